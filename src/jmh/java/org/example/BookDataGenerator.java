@@ -0,0 +1,88 @@
+package org.example;
+
+import com.opencsv.CSVWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates synthetic catalogs shaped like {@code books_1000.csv} for benchmarking.
+ *
+ * Titles, authors and locations are drawn from the values in the test fixture
+ * copy of the shipped catalog, which nothing writes to (unlike the live inventory
+ * file), so a generated file has the same column layout, the same small author
+ * and location cardinality, and the same word distribution in titles. IDs are
+ * sequential from 1. Generation is seeded, so a given size always produces the
+ * same file, and files are cached under {@code target/jmh-data}.
+ */
+final class BookDataGenerator {
+    static final Path SOURCE = Paths.get("src/test/resources/books_1000.csv");
+    static final Path DATA_DIR = Paths.get("target/jmh-data");
+    private static final long SEED = 1000;
+
+    private BookDataGenerator() {
+    }
+
+    /**
+     * Returns a generated catalog with the given number of books, creating it if needed.
+     *
+     * @param size the number of books
+     * @return the path of the generated CSV file
+     * @throws IOException if the source catalog cannot be read or the file cannot be written
+     */
+    static Path catalog(int size) throws IOException {
+        Path file = DATA_DIR.resolve("books_" + size + ".csv");
+        if (Files.exists(file)) {
+            return file;
+        }
+        Files.createDirectories(DATA_DIR);
+        Path tmp = DATA_DIR.resolve("books_" + size + ".csv.tmp");
+        generate(size, tmp);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return file;
+    }
+
+    /**
+     * Writes a catalog with the given number of books to the given file.
+     *
+     * @param size   the number of books
+     * @param target the file to write
+     * @throws IOException if the source catalog cannot be read or the file cannot be written
+     */
+    static void generate(int size, Path target) throws IOException {
+        Set<String> titleSet = new LinkedHashSet<>();
+        Set<String> authorSet = new LinkedHashSet<>();
+        Set<String> locationSet = new LinkedHashSet<>();
+        for (Book book : CsvBookLoader.load(SOURCE)) {
+            titleSet.add(book.getTitle());
+            authorSet.add(book.getAuthor());
+            locationSet.add(book.getLocation());
+        }
+        List<String> titles = new ArrayList<>(titleSet);
+        List<String> authors = new ArrayList<>(authorSet);
+        List<String> locations = new ArrayList<>(locationSet);
+
+        Random random = new Random(SEED);
+        try (Writer out = Files.newBufferedWriter(target, StandardCharsets.UTF_8);
+             CSVWriter writer = new CSVWriter(out)) {
+            writer.writeNext(new String[]{"id", "title", "author", "location"}, false);
+            for (int id = 1; id <= size; id++) {
+                writer.writeNext(new String[]{
+                        String.valueOf(id),
+                        titles.get(random.nextInt(titles.size())),
+                        authors.get(random.nextInt(authors.size())),
+                        locations.get(random.nextInt(locations.size()))}, false);
+            }
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the inventory's hot paths at catalog sizes from 1K to 10M books.
+ *
+ * Each trial runs in its own forked JVM against a private copy of a generated
+ * catalog (see {@link BookDataGenerator}), so saves and journal writes never touch
+ * the shipped CSV. The copy is selected through the {@code bookstore.csv} system
+ * property, which has to be set before {@link BookInventoryOperations} is first used.
+ *
+ * Loading and saving are measured as single shots; everything else as average
+ * time per call. The 10M catalog needs a large heap, hence {@code -Xmx8g}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BookInventoryBenchmark {
+    private static final int SAMPLE_IDS = 4096;
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    int size;
+
+    private String[] sampleIds;
+    private int nextSample;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path catalog = BookDataGenerator.catalog(size);
+        Path workingCopy = BookDataGenerator.DATA_DIR.resolve("work_" + size + ".csv");
+        Files.copy(catalog, workingCopy, StandardCopyOption.REPLACE_EXISTING);
+        for (String suffix : List.of(".journal", ".journal.compacting", ".snapshot")) {
+            Files.deleteIfExists(Path.of(workingCopy + suffix));
+        }
+
+        System.setProperty("bookstore.csv", workingCopy.toString());
+        if (!BookInventoryOperations.dataFile().equals(workingCopy)) {
+            throw new IllegalStateException("Inventory already initialized with " + BookInventoryOperations.dataFile()
+                    + "; run benchmarks forked (-f 1 or more)");
+        }
+        BookInventoryOperations.loadBooksFromCsv();
+        BookInventoryOperations.saveBooks(); // Writes the snapshot the snapshot-load benchmark reads
+
+        Random random = new Random(size);
+        sampleIds = new String[SAMPLE_IDS];
+        for (int i = 0; i < SAMPLE_IDS; i++) {
+            sampleIds[i] = String.valueOf(1 + random.nextInt(size));
+        }
+    }
+
+    /**
+     * Holds a freshly added book for the remove benchmark, so every removal hits
+     * an existing book and the catalog size stays steady.
+     */
+    @State(Scope.Thread)
+    public static class PendingRemoval {
+        String id;
+
+        @Setup(Level.Invocation)
+        public void addBook(BookInventoryBenchmark inventory) {
+            id = BookInventoryOperations.getNextBookId();
+            BookInventoryOperations.add(new Book(id, "The Road", "Quahog", "Cormac McCarthy"));
+        }
+    }
+
+    /**
+     * A private list holding the whole catalog, refilled before every purge so each
+     * purge removes the same books from the same full list.
+     */
+    @State(Scope.Thread)
+    public static class PurgeTarget {
+        BookList books;
+
+        @Setup(Level.Invocation)
+        public void fill() {
+            books = new BookList();
+            books.addAll(BookInventoryOperations.getBooks());
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public List<Book> loadBooksFromCsv() {
+        BookInventoryOperations.loadBooksFromCsv();
+        return BookInventoryOperations.getBooks();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public boolean loadBooksFromSnapshot() {
+        return BookInventoryOperations.loadBooksFromSnapshot();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public void saveBooks() {
+        BookInventoryOperations.saveBooks();
+    }
+
+    @Benchmark
+    public void add() {
+        BookInventoryOperations.add(new Book(BookInventoryOperations.getNextBookId(),
+                "The Three Musketeers", "Springfield", "Leo Tolstoy"));
+    }
+
+    /**
+     * Adds from many threads at once, where group commit lets the writers share fsyncs.
+     */
+    @Benchmark
+    @Threads(16)
+    public void addConcurrently() {
+        add();
+    }
+
+    @Benchmark
+    public boolean remove(PendingRemoval pending) {
+        return BookInventoryOperations.remove(pending.id);
+    }
+
+    /**
+     * Removes the oldest tenth of the catalog in one call: too few rows to compact,
+     * and the rows sit at the front of every posting list, where dropping them one
+     * at a time would shift the rest of the list each time.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public List<String> purgeOldestTenth(PurgeTarget target) {
+        return target.books.removeIdRange(1, size / 10);
+    }
+
+    @Benchmark
+    public Book findById() {
+        return BookInventoryOperations.findById(nextSampleId());
+    }
+
+    @Benchmark
+    public String getNextBookId() {
+        return BookInventoryOperations.getNextBookId();
+    }
+
+    // The search modes offered by BookSearchOperations; searching by ID is findById above
+
+    @Benchmark
+    public List<Book> searchByTitle() {
+        return BookInventoryOperations.searchContaining(BookField.TITLE, "Musketeers");
+    }
+
+    @Benchmark
+    public List<Book> searchByAuthor() {
+        return BookInventoryOperations.searchContaining(BookField.AUTHOR, "Orwell");
+    }
+
+    @Benchmark
+    public List<Book> searchByLocation() {
+        return BookInventoryOperations.searchContaining(BookField.LOCATION, "Quahog");
+    }
+
+    @Benchmark
+    public BookQueryResult queryFirstPageByLocation() {
+        return BookInventoryOperations.query(BookQuery.containing(BookField.LOCATION, "Quahog").page(0, 20));
+    }
+
+    @Benchmark
+    public BookQueryResult queryFirstPageByTitle() {
+        return BookInventoryOperations.query(BookQuery.all().sortedBy(BookField.TITLE).page(0, 20));
+    }
+
+    @Benchmark
+    public BookQueryResult querySecondPageOfTitleWordByAuthor() {
+        return BookInventoryOperations.query(BookQuery.containing(BookField.TITLE, "the")
+                .sortedBy(BookField.AUTHOR).page(20, 20));
+    }
+
+    @Benchmark
+    public BookQueryResult fuzzySearchByTitle() {
+        return BookInventoryOperations.query(BookQuery.fuzzy(BookField.TITLE, "Musketers").page(0, 20));
+    }
+
+    private String nextSampleId() {
+        String id = sampleIds[nextSample];
+        nextSample = (nextSample + 1) % SAMPLE_IDS;
+        return id;
+    }
+}
@@ -0,0 +1,135 @@
+package org.example;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load test for {@link BookServer}: many concurrent clients looking up books by ID.
+ *
+ * Unless {@code --url} points it at a running server, it loads a generated catalog
+ * (see {@link BookDataGenerator}) and starts the server in-process on a free port.
+ * Each client is a virtual thread that sends {@code GET /books/{id}} for random IDs
+ * until the request budget is spent; one in {@code --search-every} requests is a
+ * title search instead. It then prints throughput and latency percentiles.
+ *
+ * <pre>
+ * mvn -P jmh package -DskipTests
+ * java -cp target/benchmarks.jar org.example.BookServerLoadTest --books 100000 --clients 2000 --requests 200000
+ * </pre>
+ */
+public class BookServerLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        int books = intOption(args, "--books", 100_000);
+        int clients = intOption(args, "--clients", 1000);
+        int requests = intOption(args, "--requests", 100_000);
+        int searchEvery = intOption(args, "--search-every", 20);
+        String url = option(args, "--url", null);
+
+        HttpServer server = null;
+        if (url == null) {
+            server = startLocalServer(books);
+            url = "http://localhost:" + server.getAddress().getPort();
+        }
+        System.out.printf("Sending %d requests from %d concurrent clients to %s%n", requests, clients, url);
+
+        long[] latencies = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        String base = url;
+        long started;
+        long elapsed;
+        try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient client = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .connectTimeout(Duration.ofSeconds(10))
+                     .executor(threads)
+                     .build()) {
+            started = System.nanoTime();
+            try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int c = 0; c < clients; c++) {
+                    workers.submit(() -> {
+                        for (int i = next.getAndIncrement(); i < requests; i = next.getAndIncrement()) {
+                            String path = i % searchEvery == 0
+                                    ? "/books/search?field=title&text=the&mode=word&limit=20"
+                                    : "/books/" + (1 + ThreadLocalRandom.current().nextInt(books));
+                            HttpRequest request = HttpRequest.newBuilder(URI.create(base + path)).GET().build();
+                            long sent = System.nanoTime();
+                            try {
+                                HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                                if (response.statusCode() != 200) {
+                                    failures.incrementAndGet();
+                                }
+                            } catch (IOException e) {
+                                failures.incrementAndGet();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                return;
+                            }
+                            latencies[i] = System.nanoTime() - sent;
+                        }
+                    });
+                }
+            } // Waits for every client to finish
+            elapsed = System.nanoTime() - started;
+        } finally {
+            if (server != null) {
+                server.stop(0);
+            }
+        }
+
+        Arrays.sort(latencies);
+        System.out.printf("Throughput: %.0f requests/s%n", requests / (elapsed / 1e9));
+        System.out.printf("Latency:    p50 %.2f ms, p99 %.2f ms, p99.9 %.2f ms, max %.2f ms%n",
+                percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 0.999),
+                latencies[latencies.length - 1] / 1e6);
+        System.out.printf("Failures:   %d%n", failures.get());
+        System.out.println(BookMetrics.report());
+    }
+
+    private static HttpServer startLocalServer(int books) throws IOException {
+        Path catalog = BookDataGenerator.catalog(books);
+        Path workingCopy = BookDataGenerator.DATA_DIR.resolve("server_" + books + ".csv");
+        Files.copy(catalog, workingCopy, StandardCopyOption.REPLACE_EXISTING);
+        for (String suffix : List.of(".journal", ".journal.compacting", ".snapshot")) {
+            Files.deleteIfExists(Path.of(workingCopy + suffix));
+        }
+        System.setProperty("bookstore.csv", workingCopy.toString());
+        BookInventoryOperations.loadBooksFromCsv();
+        BookMetrics.reset();
+        return BookServer.start(0);
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(sorted.length * fraction) - 1);
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+
+    private static String option(String[] args, String name, String defaultValue) {
+        for (int i = 0; i + 1 < args.length; i++) {
+            if (args[i].equals(name)) {
+                return args[i + 1];
+            }
+        }
+        return defaultValue;
+    }
+
+    private static int intOption(String[] args, String name, int defaultValue) {
+        return Integer.parseInt(option(args, name, String.valueOf(defaultValue)));
+    }
+}
@@ -0,0 +1,126 @@
+package org.example;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * A BK-tree of words, for finding every word within a small edit distance of a query word.
+ *
+ * Each child hangs off its parent under its Levenshtein distance to the parent.
+ * By the triangle inequality, a search for words within {@code k} edits of a word
+ * at distance {@code d} from a node only needs to visit the children numbered
+ * {@code d - k} to {@code d + k}. A search with one or two edits therefore touches a
+ * small part of the vocabulary instead of all of it.
+ *
+ * Words are never removed; the owner filters out words that are no longer in use.
+ * Like the other indexes, the tree tolerates lock-free readers racing a single
+ * writer: a new child array is filled in before it is published.
+ */
+final class BkTree {
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private static final class Node {
+        final String word;
+        Node[] children = NO_CHILDREN; // children[d - 1] is the child at distance d
+
+        Node(String word) {
+            this.word = word;
+        }
+    }
+
+    private Node root;
+
+    /**
+     * Adds a word, doing nothing if it is already present.
+     *
+     * @param word the word to add
+     */
+    void add(String word) {
+        if (root == null) {
+            root = new Node(word);
+            return;
+        }
+        Node node = root;
+        while (true) {
+            int d = distance(word, node.word);
+            if (d == 0) {
+                return;
+            }
+            Node[] children = node.children;
+            if (d <= children.length && children[d - 1] != null) {
+                node = children[d - 1];
+                continue;
+            }
+            Node[] grown = d <= children.length ? children.clone() : Arrays.copyOf(children, d);
+            grown[d - 1] = new Node(word);
+            node.children = grown;
+            return;
+        }
+    }
+
+    /**
+     * Reports every word within the given edit distance of a word.
+     *
+     * @param word        the word to look for
+     * @param maxDistance the largest edit distance to accept
+     * @param matches     receives each matching word and its distance
+     */
+    void search(String word, int maxDistance, ObjIntConsumer<String> matches) {
+        if (root == null) {
+            return;
+        }
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            int d = distance(word, node.word);
+            if (d <= maxDistance) {
+                matches.accept(node.word, d);
+            }
+            Node[] children = node.children;
+            int last = Math.min(d + maxDistance, children.length);
+            for (int i = Math.max(d - maxDistance, 1); i <= last; i++) {
+                if (children[i - 1] != null) {
+                    pending.push(children[i - 1]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes every word.
+     */
+    void clear() {
+        root = null;
+    }
+
+    /**
+     * Returns the Levenshtein distance between two words: the fewest single-character
+     * insertions, deletions and substitutions that turn one into the other.
+     *
+     * @param a the first word
+     * @param b the second word
+     * @return the edit distance
+     */
+    static int distance(String a, String b) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            char c = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int substitute = previous[j - 1] + (c == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitute, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+}
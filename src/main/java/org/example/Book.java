@@ -1,35 +1,24 @@
 package org.example;
 
-import com.opencsv.bean.CsvBindByName;
+import java.util.Objects;
 
 /**
  * Represents a Book entity for the inventory system.
  * Each Book has an ID, title, author, and location.
  *
- * Mapped for CSV operations using OpenCSV annotations.
+ * Books are immutable. They are read from and written to CSV by {@link BookCsvCodec}.
  */
 public class Book {
 
-    @CsvBindByName
-    private String id;
-
-    @CsvBindByName
-    private String title;
-
-    @CsvBindByName
-    private String author;
-
-    @CsvBindByName
-    private String location;
-
-    /**
-     * Default no-argument constructor required for OpenCSV to instantiate objects.
-     */
-    public Book() {
-    }
+    private final String id;
+    private final String title;
+    private final String author;
+    private final String location;
 
     /**
      * Creates a new Book with the specified ID, title, location, and author.
+     * The values are kept as given; the inventory stores each distinct author
+     * and location once when the book is added to it (see {@link BookColumns}).
      *
      * @param id       the unique ID of the book
      * @param title    the title of the book
@@ -79,6 +68,39 @@ public class Book {
         return author;
     }
 
+    /**
+     * Two books are equal when their ID, title, author, and location are all equal.
+     * The inventory hands out fresh Book objects built from its columnar store,
+     * so books must be compared by value rather than by identity.
+     *
+     * @param o the object to compare with
+     * @return true if o is a Book with the same values
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Book)) {
+            return false;
+        }
+        Book other = (Book) o;
+        return Objects.equals(id, other.id)
+                && Objects.equals(title, other.title)
+                && Objects.equals(author, other.author)
+                && Objects.equals(location, other.location);
+    }
+
+    /**
+     * Returns a hash code consistent with {@link #equals(Object)}.
+     *
+     * @return the hash code
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, title, author, location);
+    }
+
     /**
      * Returns a string representation of the Book object.
      *
@@ -86,10 +108,21 @@ public class Book {
      */
     @Override
     public String toString() {
-        return "Book [ID=" + id +
-                ", Title=\"" + title + "\"" +
-                ", Author=\"" + author + "\"" +
-                ", Location=\"" + location + "\"]";
+        return appendTo(new StringBuilder(96)).toString();
+    }
+
+    /**
+     * Appends the same text as {@link #toString()} to the given builder, so
+     * listings can reuse one builder instead of creating a String per book.
+     *
+     * @param out the builder to append to
+     * @return the same builder
+     */
+    StringBuilder appendTo(StringBuilder out) {
+        return out.append("Book [ID=").append(id)
+                .append(", Title=\"").append(title).append('"')
+                .append(", Author=\"").append(author).append('"')
+                .append(", Location=\"").append(location).append("\"]");
     }
 
 }
@@ -0,0 +1,238 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Columnar (struct-of-arrays) storage for books.
+ *
+ * Each field lives in its own array indexed by row, with authors and locations
+ * stored as codes into the store's own {@link StringDictionary} tables, which
+ * hold only values some stored row has. Removing a book only sets its bit in
+ * a tombstone bitmap; {@link #compact()} squeezes the tombstones out later. Full
+ * scans therefore walk a few flat arrays in order instead of chasing a pointer
+ * to a separate object per book.
+ */
+final class BookColumns {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private String[] ids = new String[INITIAL_CAPACITY];
+    private String[] titles = new String[INITIAL_CAPACITY];
+    private int[] authorCodes = new int[INITIAL_CAPACITY];
+    private int[] locationCodes = new int[INITIAL_CAPACITY];
+    private final StringDictionary authors;
+    private final StringDictionary locations;
+    private final BitSet deleted;
+    private int rowCount;
+    private int deletedCount;
+
+    /**
+     * Creates an empty store.
+     */
+    BookColumns() {
+        this(new StringDictionary(), new StringDictionary(), new BitSet());
+    }
+
+    private BookColumns(StringDictionary authors, StringDictionary locations, BitSet deleted) {
+        this.authors = authors;
+        this.locations = locations;
+        this.deleted = deleted;
+    }
+
+    /**
+     * Appends a book as a new row.
+     *
+     * @param book the book to store
+     * @return the row the book was stored under
+     */
+    int append(Book book) {
+        ensureCapacity(rowCount + 1);
+        ids[rowCount] = book.getId();
+        titles[rowCount] = book.getTitle();
+        authorCodes[rowCount] = authors.acquire(book.getAuthor());
+        locationCodes[rowCount] = locations.acquire(book.getLocation());
+        return rowCount++;
+    }
+
+    /**
+     * Makes room for at least the given number of rows.
+     *
+     * @param capacity the number of rows needed
+     */
+    void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, ids.length + (ids.length >> 1));
+        ids = Arrays.copyOf(ids, newCapacity);
+        titles = Arrays.copyOf(titles, newCapacity);
+        authorCodes = Arrays.copyOf(authorCodes, newCapacity);
+        locationCodes = Arrays.copyOf(locationCodes, newCapacity);
+    }
+
+    /**
+     * Marks a row as removed. Its values stay readable until the next compaction.
+     *
+     * @param row the row to remove
+     */
+    void delete(int row) {
+        if (!deleted.get(row)) {
+            deleted.set(row);
+            deletedCount++;
+            authors.release(authorCodes[row]);
+            locations.release(locationCodes[row]);
+        }
+    }
+
+    boolean isDeleted(int row) {
+        return deleted.get(row);
+    }
+
+    String id(int row) {
+        return ids[row];
+    }
+
+    String title(int row) {
+        return titles[row];
+    }
+
+    int authorCode(int row) {
+        return authorCodes[row];
+    }
+
+    int locationCode(int row) {
+        return locationCodes[row];
+    }
+
+    /**
+     * Returns the dictionary the author codes refer to.
+     *
+     * @return the author dictionary
+     */
+    StringDictionary authors() {
+        return authors;
+    }
+
+    /**
+     * Returns the dictionary the location codes refer to.
+     *
+     * @return the location dictionary
+     */
+    StringDictionary locations() {
+        return locations;
+    }
+
+    /**
+     * Returns the value of the given field in the given row.
+     *
+     * @param field the field to read
+     * @param row   the row to read
+     * @return the field value, possibly null
+     */
+    String value(BookField field, int row) {
+        return switch (field) {
+            case ID -> ids[row];
+            case TITLE -> titles[row];
+            case AUTHOR -> authors.value(authorCodes[row]);
+            case LOCATION -> locations.value(locationCodes[row]);
+        };
+    }
+
+    /**
+     * Builds a Book holding the values of the given row. The Book shares the
+     * stored Strings, so it costs one small object, and books read from the same
+     * store share one instance of each author and location.
+     *
+     * @param row the row to read
+     * @return a Book with the row's values
+     */
+    Book book(int row) {
+        return new Book(ids[row], titles[row], locations.value(locationCodes[row]), authors.value(authorCodes[row]));
+    }
+
+    /**
+     * Returns the number of rows, including removed ones.
+     *
+     * @return the row count
+     */
+    int rowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns the number of removed rows still taking up space.
+     *
+     * @return the tombstone count
+     */
+    int deletedCount() {
+        return deletedCount;
+    }
+
+    /**
+     * Returns an independent copy of this store, removed rows included, so that
+     * it can be compacted without touching this one.
+     *
+     * @return the copy
+     */
+    BookColumns copy() {
+        BookColumns copy = new BookColumns(authors.copy(), locations.copy(), (BitSet) deleted.clone());
+        copy.ids = ids.clone();
+        copy.titles = titles.clone();
+        copy.authorCodes = authorCodes.clone();
+        copy.locationCodes = locationCodes.clone();
+        copy.rowCount = rowCount;
+        copy.deletedCount = deletedCount;
+        return copy;
+    }
+
+    /**
+     * Drops every removed row, moving the remaining rows down in order, and drops
+     * authors and locations no remaining row holds from the dictionaries.
+     *
+     * @return a mapping from each old row to its new row, or -1 if it was removed
+     */
+    int[] compact() {
+        int[] remap = new int[rowCount];
+        int next = 0;
+        for (int row = 0; row < rowCount; row++) {
+            if (deleted.get(row)) {
+                remap[row] = -1;
+                continue;
+            }
+            ids[next] = ids[row];
+            titles[next] = titles[row];
+            authorCodes[next] = authorCodes[row];
+            locationCodes[next] = locationCodes[row];
+            remap[row] = next++;
+        }
+        Arrays.fill(ids, next, rowCount, null);
+        Arrays.fill(titles, next, rowCount, null);
+        recode(authorCodes, next, authors.compact());
+        recode(locationCodes, next, locations.compact());
+        deleted.clear();
+        deletedCount = 0;
+        rowCount = next;
+        return remap;
+    }
+
+    private static void recode(int[] codes, int rows, int[] remap) {
+        for (int row = 0; row < rows; row++) {
+            if (codes[row] >= 0) {
+                codes[row] = remap[codes[row]];
+            }
+        }
+    }
+
+    /**
+     * Removes every row.
+     */
+    void clear() {
+        Arrays.fill(ids, 0, rowCount, null);
+        Arrays.fill(titles, 0, rowCount, null);
+        authors.clear();
+        locations.clear();
+        deleted.clear();
+        deletedCount = 0;
+        rowCount = 0;
+    }
+}
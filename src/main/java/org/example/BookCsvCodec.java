@@ -0,0 +1,209 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * The one place that knows how inventory CSV files are laid out, used both to
+ * load them ({@link CsvBookLoader}) and to write them.
+ *
+ * A file's header row is its schema. Columns are identified by name, ignoring
+ * case and surrounding white space, so every layout the inventory has used
+ * reads correctly:
+ * <pre>
+ * id,title,location,author            what saveBooks wrote before this codec
+ * id,title,author,location            books_1000.csv and exports; what is written now
+ * "AUTHOR","ID","LOCATION","TITLE"    OpenCSV bean dumps such as src/beans_output.csv
+ * </pre>
+ * The header is resolved once into a table from column position to book field,
+ * and every row is then mapped through that table. A file whose rows are not all
+ * laid out like its header is rejected rather than loaded with fields in the
+ * wrong places: one without a title column (usually a file with no header at
+ * all), one that names a column twice, and one with a second header row of
+ * another layout. Only header rows are checked; a row's values are not, since a
+ * title or location may well be a number and an ID may be blank or free text.
+ * Repeats of the file's own header, as left by concatenating files, are skipped.
+ *
+ * Files are always written in the current layout, quoting only fields that need it
+ * and escaping them the way the loader's parser expects, so what is written reads
+ * back unchanged.
+ */
+final class BookCsvCodec {
+    static final int ID = 0;
+    static final int TITLE = 1;
+    static final int AUTHOR = 2;
+    static final int LOCATION = 3;
+    static final int FIELD_COUNT = 4;
+
+    private static final String[] FIELD_NAMES = {"id", "title", "author", "location"};
+
+    private final int[] columns;
+
+    private BookCsvCodec(int[] columns) {
+        this.columns = columns;
+    }
+
+    /**
+     * Resolves a header row into the layout of the rows that follow it.
+     *
+     * @param header the header row's fields
+     * @return the layout
+     * @throws IOException if the header has no title column or names a column twice
+     */
+    static BookCsvCodec forHeader(List<String> header) throws IOException {
+        int[] columns = new int[header.size()];
+        boolean[] seen = new boolean[FIELD_COUNT];
+        for (int i = 0; i < columns.length; i++) {
+            int field = field(header.get(i));
+            if (field >= 0) {
+                if (seen[field]) {
+                    throw new IOException("CSV header names the " + FIELD_NAMES[field] + " column twice: " + header);
+                }
+                seen[field] = true;
+            }
+            columns[i] = field;
+        }
+        if (!seen[TITLE]) {
+            throw new IOException("CSV header " + header + " has no title column; expected a header such as "
+                    + String.join(",", FIELD_NAMES));
+        }
+        return new BookCsvCodec(columns);
+    }
+
+    /**
+     * Returns, for each column, the slot its value goes to in a row's values
+     * array ({@link #ID}, {@link #TITLE}, {@link #AUTHOR}, {@link #LOCATION}),
+     * or -1 if the column is not a book field.
+     *
+     * @return the column table; callers must not modify it
+     */
+    int[] columns() {
+        return columns;
+    }
+
+    /**
+     * Returns the number of fields every row must have.
+     *
+     * @return the header's column count
+     */
+    int width() {
+        return columns.length;
+    }
+
+    /**
+     * Builds the book a row describes. A blank ID is read as no ID, like a file without an ID column.
+     *
+     * @param values the row's values indexed by field slot; fields the file lacks are null
+     * @return the book, or null if the row is a repeat of the header
+     * @throws IOException if the row is a header of another layout
+     */
+    Book read(String[] values) throws IOException {
+        if (isHeader(values)) {
+            return null;
+        }
+        String id = values[ID] == null || values[ID].isBlank() ? null : values[ID];
+        return new Book(id, values[TITLE], values[LOCATION], values[AUTHOR]);
+    }
+
+    private static boolean isHeader(String[] values) throws IOException {
+        boolean sameLayout = true;
+        for (int slot = 0; slot < FIELD_COUNT; slot++) {
+            if (values[slot] == null) {
+                continue;
+            }
+            int field = field(values[slot]);
+            if (field < 0) {
+                return false;
+            }
+            sameLayout &= field == slot;
+        }
+        if (!sameLayout) {
+            throw new IOException("CSV file mixes layouts: found a header row with the columns in a different order");
+        }
+        return true;
+    }
+
+    /**
+     * Writes books as CSV in the current layout, starting with the header row.
+     *
+     * @param out   where to write; not closed
+     * @param books the books to write
+     * @return the number of books written
+     * @throws IOException if writing fails
+     */
+    static int write(Writer out, Iterable<Book> books) throws IOException {
+        out.write(String.join(",", FIELD_NAMES));
+        out.write('\n');
+        int count = 0;
+        for (Book book : books) {
+            writeField(out, book.getId());
+            out.write(',');
+            writeField(out, book.getTitle());
+            out.write(',');
+            writeField(out, book.getAuthor());
+            out.write(',');
+            writeField(out, book.getLocation());
+            out.write('\n');
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the field a column name denotes, ignoring case and surrounding white
+     * space, or -1. Runs on every row, so it compares in place instead of trimming.
+     */
+    private static int field(String name) {
+        int start = 0;
+        int end = name.length();
+        while (start < end && name.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && name.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            String fieldName = FIELD_NAMES[field];
+            if (end - start == fieldName.length() && name.regionMatches(true, start, fieldName, 0, end - start)) {
+                return field;
+            }
+        }
+        return -1;
+    }
+
+    private static void writeField(Writer out, String value) throws IOException {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        if (!needsQuotes(value)) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.write("\"\"");
+            } else if (c == '\\') {
+                out.write("\\\\");
+            } else {
+                out.write(c);
+            }
+        }
+        out.write('"');
+    }
+
+    private static boolean needsQuotes(String value) {
+        if (Character.isWhitespace(value.charAt(0)) || Character.isWhitespace(value.charAt(value.length() - 1))) {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\\' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,29 @@
+package org.example;
+
+import java.util.function.Function;
+
+/**
+ * The searchable fields of a {@link Book}.
+ */
+public enum BookField {
+    ID(Book::getId),
+    TITLE(Book::getTitle),
+    AUTHOR(Book::getAuthor),
+    LOCATION(Book::getLocation);
+
+    private final Function<Book, String> getter;
+
+    BookField(Function<Book, String> getter) {
+        this.getter = getter;
+    }
+
+    /**
+     * Returns the value of this field for the given book.
+     *
+     * @param book the book to read from
+     * @return the field value, possibly null
+     */
+    public String valueOf(Book book) {
+        return getter.apply(book);
+    }
+}
@@ -0,0 +1,87 @@
+package org.example;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out numeric book IDs from a high-water mark.
+ *
+ * The mark is raised whenever a book with a larger numeric ID enters the
+ * inventory (including every row read at load time), so allocating an ID
+ * never has to scan the catalog. Removing a book does not lower the mark,
+ * which keeps IDs from ever being handed out twice in one session. Across
+ * restarts, the inventory saves the mark next to the CSV file and feeds it
+ * back through {@link #observe(String)} on load, since the highest ID may
+ * belong to a book that was removed before the save.
+ *
+ * IDs are ints; once the mark reaches {@code Integer.MAX_VALUE}, allocating
+ * throws rather than wrapping around to IDs already in use.
+ */
+class BookIdAllocator {
+    private final AtomicInteger highWaterMark = new AtomicInteger();
+
+    /**
+     * Raises the high-water mark if the given ID is numeric and larger than
+     * any ID seen so far. Non-numeric IDs are ignored.
+     *
+     * @param id the ID of a book entering the inventory
+     */
+    void observe(String id) {
+        if (id == null) {
+            return;
+        }
+        try {
+            int value = Integer.parseInt(id);
+            highWaterMark.accumulateAndGet(value, Math::max);
+        } catch (NumberFormatException e) {
+            // Skip any invalid (non-integer) ID values
+        }
+    }
+
+    /**
+     * Atomically allocates the next available ID.
+     *
+     * @return the allocated ID as a String
+     * @throws IllegalStateException if every ID up to {@code Integer.MAX_VALUE} is taken
+     */
+    String next() {
+        return String.valueOf(highWaterMark.updateAndGet(mark -> advance(mark, 1)));
+    }
+
+    /**
+     * Atomically reserves a contiguous block of IDs, e.g. for a batch import.
+     *
+     * @param count the number of IDs to reserve
+     * @return the first ID of the block; the block ends at {@code first + count - 1}
+     * @throws IllegalStateException if the block would run past {@code Integer.MAX_VALUE}
+     */
+    int reserve(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("count must be positive: " + count);
+        }
+        return highWaterMark.getAndUpdate(mark -> advance(mark, count)) + 1;
+    }
+
+    private static int advance(int mark, int count) {
+        try {
+            return Math.addExact(mark, count);
+        } catch (ArithmeticException e) {
+            throw new IllegalStateException("No " + count + " book ID(s) left above " + mark);
+        }
+    }
+
+    /**
+     * Returns the largest ID allocated or observed so far.
+     *
+     * @return the current high-water mark
+     */
+    int highWaterMark() {
+        return highWaterMark.get();
+    }
+
+    /**
+     * Forgets every ID seen so far. Used when the whole inventory is cleared or reloaded.
+     */
+    void reset() {
+        highWaterMark.set(0);
+    }
+}
@@ -0,0 +1,60 @@
+package org.example;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of a bulk import: how many books were added, which rows were
+ * rejected and why, and whether the imported books were durably saved.
+ */
+public final class BookImportResult {
+    private final int imported;
+    private final String firstId;
+    private final List<String> rejected;
+    private final boolean saved;
+
+    BookImportResult(int imported, String firstId, List<String> rejected, boolean saved) {
+        this.imported = imported;
+        this.firstId = firstId;
+        this.rejected = Collections.unmodifiableList(rejected);
+        this.saved = saved;
+    }
+
+    /**
+     * Returns the number of books added to the inventory.
+     *
+     * @return the imported count
+     */
+    public int getImported() {
+        return imported;
+    }
+
+    /**
+     * Returns the ID given to the first imported book. Imported books get
+     * increasing IDs in file order, consecutive unless other books were added
+     * while the import ran.
+     *
+     * @return the first assigned ID, or null if nothing was imported
+     */
+    public String getFirstId() {
+        return firstId;
+    }
+
+    /**
+     * Returns one message per rejected row, naming the line it starts on and the problem.
+     *
+     * @return an unmodifiable list of messages
+     */
+    public List<String> getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Returns true if the inventory, including the imported books, was written to disk.
+     *
+     * @return true if the import is durable
+     */
+    public boolean isSaved() {
+        return saved;
+    }
+}
@@ -0,0 +1,64 @@
+package org.example;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * A secondary index kept in sync by {@link BookList}.
+ *
+ * Every book in the list is given a row number when it is added. Rows only
+ * ever grow, so they can be stored in sorted posting lists and still give
+ * results back in insertion order.
+ */
+interface BookIndex {
+
+    /**
+     * Called after a book has been added to the list.
+     *
+     * @param row  the row number assigned to the book
+     * @param book the book that was added
+     */
+    void add(int row, Book book);
+
+    /**
+     * Called after many books have been added to the list at once, under
+     * consecutive rows. Indexes that can take a batch more cheaply than one book
+     * at a time override this.
+     *
+     * @param firstRow the row number assigned to the first book
+     * @param books    the books that were added, in row order
+     */
+    default void addAll(int firstRow, List<Book> books) {
+        for (int i = 0; i < books.size(); i++) {
+            add(firstRow + i, books.get(i));
+        }
+    }
+
+    /**
+     * Called after a book has been removed from the list.
+     *
+     * @param row  the row number the book was stored under
+     * @param book the book that was removed
+     */
+    void remove(int row, Book book);
+
+    /**
+     * Called after many books have been removed from the list at once. Indexes
+     * whose single removals are not constant time override this to drop all the
+     * rows in one pass instead of one removal each.
+     *
+     * @param rows  the rows the removed books were stored under
+     * @param books returns the removed book stored under a row
+     */
+    default void removeAll(BitSet rows, IntFunction<Book> books) {
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            remove(row, books.apply(row));
+        }
+    }
+
+    /**
+     * Called after the whole list has been cleared.
+     */
+    void clear();
+}
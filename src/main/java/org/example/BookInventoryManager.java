@@ -1,5 +1,11 @@
 package org.example;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 
 /**
@@ -20,22 +26,27 @@ public class BookInventoryManager {
         while (!isExit) {
             printOptions();
 
-            String input = scnr.nextLine().toLowerCase().trim();
+            String line = scnr.nextLine().trim();
+            String input = command(line);
 
             // Validate input
             while (!(input.equals("view") || input.equals("search")
-                    || input.equals("add") || input.equals("remove")
+                    || input.equals("add") || input.equals("remove") || input.equals("purge")
+                    || input.equals("stats")
+                    || ((input.equals("import") || input.equals("export") || input.equals("count"))
+                        && !argument(line).isEmpty())
                     || input.equals("exit"))) {
 
-                System.out.println("'" + input + "' is invalid.");
+                System.out.println("'" + line.toLowerCase() + "' is invalid.");
                 printOptions();
-                input = scnr.nextLine().toLowerCase().trim();
+                line = scnr.nextLine().trim();
+                input = command(line);
             }
 
             // Handle valid user command
             switch (input) {
                 case "view":
-                    BookInventoryOperations.viewBooks();
+                    BookViewOperations.viewBooks(scnr);
                     break;
                 case "search":
                     BookSearchOperations.searchBooks(scnr);
@@ -46,6 +57,26 @@ public class BookInventoryManager {
                 case "remove":
                     removeBook(scnr);
                     break;
+                case "purge":
+                    try {
+                        purgeBooks(scnr);
+                    } catch (UncheckedIOException e) {
+                        System.out.println("❌ Removed the books but could not save the removal: " + e.getMessage());
+                    }
+                    break;
+                case "import":
+                    importBooks(argument(line));
+                    break;
+                case "export":
+                    exportBooks(argument(line));
+                    break;
+                case "count":
+                    countBooks(argument(line));
+                    break;
+                case "stats":
+                    System.out.println(BookMetrics.report());
+                    printCacheStats(BookInventoryOperations.resultCacheStats());
+                    break;
                 case "exit":
                     System.out.println("Goodbye!");
                     isExit = true;
@@ -55,6 +86,22 @@ public class BookInventoryManager {
         }
     }
 
+    /**
+     * Returns the lowercased first word of a command line.
+     */
+    private static String command(String line) {
+        int space = line.indexOf(' ');
+        return (space < 0 ? line : line.substring(0, space)).toLowerCase();
+    }
+
+    /**
+     * Returns everything after the first word of a command line, case preserved.
+     */
+    private static String argument(String line) {
+        int space = line.indexOf(' ');
+        return space < 0 ? "" : line.substring(space + 1).trim();
+    }
+
     /**
      * Prints the available options for the user to choose from.
      */
@@ -64,12 +111,17 @@ public class BookInventoryManager {
                 "'search' - Search for a book\n" +
                 "'add'    - Add a new book\n" +
                 "'remove' - Remove a book\n" +
+                "'purge'  - Remove many books by IDs, ID range or field\n" +
+                "'import <file>' - Add all books from a CSV file\n" +
+                "'export <file>' - Write all books to a CSV file\n" +
+                "'count <author|location> [query]' - Count books per author or location\n" +
+                "'stats'  - Show call counts and timings of inventory operations\n" +
                 "'exit'   - Exit the program");
     }
 
     /**
      * Handles the logic for adding a new book based on user input.
-     * Prompts the user for book details and saves the new book to the inventory.
+     * Prompts the user for book details and adds the new book to the inventory.
      *
      * @param scnr the Scanner object used to read user input
      */
@@ -86,8 +138,12 @@ public class BookInventoryManager {
         String location = scnr.nextLine().trim();
 
         Book newBook = new Book(newId, title, location, author);
-        BookInventoryOperations.add(newBook);
-        BookInventoryOperations.saveBooks(); // Immediately save changes
+        try {
+            BookInventoryOperations.add(newBook); // Durably journaled before returning, or throws
+        } catch (UncheckedIOException e) {
+            System.out.println("❌ Added " + newBook + " but could not save it: " + e.getMessage());
+            return;
+        }
         System.out.println("✅ Added: " + BookInventoryOperations.findById(newId));
     }
 
@@ -101,12 +157,167 @@ public class BookInventoryManager {
         System.out.println("Enter the ID of the book to remove:");
         String id = scnr.nextLine().trim();
 
-        if(BookInventoryOperations.remove(id)) {
-            BookInventoryOperations.saveBooks(); // Immediately save changes
-            System.out.println("✅ Book with ID " + id + " removed.");
-        }else {
-            System.out.println("❌ No book found with ID " + id + ".");
+        try {
+            if(BookInventoryOperations.remove(id)) { // Durably journaled before returning, or throws
+                System.out.println("✅ Book with ID " + id + " removed.");
+            }else {
+                System.out.println("❌ No book found with ID " + id + ".");
+            }
+        } catch (UncheckedIOException e) {
+            System.out.println("❌ Removed the book with ID " + id + " but could not save the removal: "
+                    + e.getMessage());
+        }
+
+    }
+
+    /**
+     * Handles the "purge" command, removing many books at once.
+     * The user picks a list of IDs, an ID range, or an exact title, author or
+     * location. All matching books are removed in one pass and journaled with a
+     * single write. Removing by field asks for confirmation first.
+     *
+     * @param scnr the Scanner object used to read user input
+     */
+    private static void purgeBooks(Scanner scnr) {
+        System.out.println("Remove by ids, range, title, author, or location?");
+        String mode = scnr.nextLine().toLowerCase().trim();
+        while (!(mode.equals("ids") || mode.equals("range") || mode.equals("title")
+                || mode.equals("author") || mode.equals("location"))) {
+            System.out.println("'" + mode + "' is invalid.");
+            System.out.println("Remove by ids, range, title, author, or location?");
+            mode = scnr.nextLine().toLowerCase().trim();
+        }
+
+        int removed;
+        switch (mode) {
+            case "ids": {
+                System.out.println("Enter the IDs to remove, separated by commas:");
+                List<String> ids = new ArrayList<>();
+                for (String id : scnr.nextLine().split(",")) {
+                    if (!id.isBlank()) {
+                        ids.add(id.trim());
+                    }
+                }
+                removed = BookInventoryOperations.removeBooks(ids);
+                break;
+            }
+            case "range": {
+                System.out.println("Enter the range of IDs to remove (e.g. 100-200):");
+                String[] bounds = scnr.nextLine().trim().split("\\s*-\\s*");
+                try {
+                    removed = BookInventoryOperations.removeBookRange(
+                            Integer.parseInt(bounds[0]), Integer.parseInt(bounds[bounds.length - 1]));
+                } catch (NumberFormatException e) {
+                    System.out.println("❌ Invalid range.");
+                    return;
+                }
+                break;
+            }
+            default: {
+                BookField field = BookField.valueOf(mode.toUpperCase());
+                System.out.println("Enter the exact " + mode + " to remove:");
+                String value = scnr.nextLine().trim();
+                BookQuery filter = BookQuery.equalTo(field, value);
+                int matches = BookInventoryOperations.query(filter.page(0, 0)).getTotalCount();
+                if (matches == 0) {
+                    System.out.println("❌ No books found with " + mode + " '" + value + "'.");
+                    return;
+                }
+                System.out.println("Remove " + matches + " book(s) with " + mode + " '" + value + "'? (yes/no)");
+                if (!scnr.nextLine().trim().equalsIgnoreCase("yes")) {
+                    System.out.println("Nothing removed.");
+                    return;
+                }
+                removed = BookInventoryOperations.removeBooks(filter);
+            }
+        }
+        System.out.println(removed > 0 ? "✅ Removed " + removed + " book(s)." : "❌ No matching books found.");
+    }
+
+    /**
+     * Handles the "count" command, printing how many books each author or location
+     * has. The field may be followed by a query in {@link BookQuery#parse(String)}
+     * syntax to count only matching books, e.g. {@code count author location=Quahog}.
+     *
+     * @param argument the field to group by, optionally followed by a query
+     */
+    private static void countBooks(String argument) {
+        String name = command(argument);
+        String filter = argument(argument);
+        if (!(name.equals("author") || name.equals("location"))) {
+            System.out.println("❌ Can only count by author or location.");
+            return;
+        }
+        Map<String, Integer> counts;
+        try {
+            counts = BookInventoryOperations.facetCounts(BookField.valueOf(name.toUpperCase()),
+                    filter.isEmpty() ? null : BookQuery.parse(filter));
+        } catch (IllegalArgumentException e) {
+            System.out.println("❌ " + e.getMessage());
+            return;
+        }
+        if (counts.isEmpty()) {
+            System.out.println("⚠️ No matching books found.");
+            return;
+        }
+        StringBuilder out = new StringBuilder();
+        long total = 0;
+        for (Map.Entry<String, Integer> count : counts.entrySet()) {
+            out.append("📊 ").append(count.getKey()).append(": ").append(count.getValue()).append('\n');
+            total += count.getValue();
+        }
+        out.append("✅ Counted ").append(total).append(" book(s) across ").append(counts.size())
+                .append(' ').append(name).append("(s).");
+        System.out.println(out);
+    }
+
+    /**
+     * Prints the search result cache's counters below the "stats" command's table.
+     *
+     * @param stats the cache statistics
+     */
+    private static void printCacheStats(CacheStats stats) {
+        System.out.println(String.format("🗄️ Search cache: %d search(es) holding %d match(es); %d hit(s), %d miss(es)"
+                        + " (%.1f%% hit rate), %d evicted, %d invalidated.", stats.getEntries(), stats.getCachedRows(),
+                stats.getHits(), stats.getMisses(), stats.getHitRate() * 100, stats.getEvictions(),
+                stats.getInvalidations()));
+    }
+
+    /**
+     * Handles the "import" command, adding every valid row of a CSV file as a new book.
+     *
+     * @param file the path of the CSV file to import
+     */
+    private static void importBooks(String file) {
+        try {
+            BookImportResult result = BookInventoryOperations.importBooks(Paths.get(file));
+            for (String rejection : result.getRejected()) {
+                System.out.println("⚠️ Skipped " + rejection);
+            }
+            if (result.getImported() == 0) {
+                System.out.println("⚠️ No books imported.");
+                return;
+            }
+            System.out.println("✅ Imported " + result.getImported() + " books starting at ID " + result.getFirstId() + ".");
+            if (!result.isSaved()) {
+                System.out.println("❌ The imported books could not be saved to disk.");
+            }
+        } catch (IOException | RuntimeException e) {
+            System.out.println("❌ Could not import " + file + ": " + e.getMessage());
         }
+    }
 
+    /**
+     * Handles the "export" command, writing every book to a CSV file.
+     *
+     * @param file the path of the CSV file to write
+     */
+    private static void exportBooks(String file) {
+        try {
+            int count = BookInventoryOperations.exportBooks(Paths.get(file));
+            System.out.println("✅ Exported " + count + " books to " + file + ".");
+        } catch (IOException | RuntimeException e) {
+            System.out.println("❌ Could not export to " + file + ": " + e.getMessage());
+        }
     }
 }
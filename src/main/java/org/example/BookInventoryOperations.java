@@ -1,32 +1,102 @@
 package org.example;
 
-import com.opencsv.CSVWriter;
-import com.opencsv.bean.*;
-
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 /**
  * Handles all operations related to managing the book inventory,
  * including loading from CSV, saving, viewing, adding, removing,
  * and searching books.
+ *
+ * All operations are safe to call from multiple threads. Lookups and searches
+ * run without blocking each other or writers. Mutations are serialized by
+ * {@code WRITE_LOCK} so that their journal records are queued in the same order
+ * they are applied in memory. Each caller then waits for its record to be
+ * group-committed outside the lock, so concurrent writers share one fsync
+ * instead of queueing behind each other's. A change is visible to readers
+ * slightly before it is durable, but a mutating call only returns once it is.
  */
 public class BookInventoryOperations {
-    private static List<Book> books = new ArrayList<>();
-    private static final String FILE_PATH = "src/main/resources/books_1000.csv";
+    private static final BookList books = new BookList();
+    private static final int COMPACT_AFTER_RECORDS = 1000;
+    private static final int CSV_GENERATIONS = Integer.getInteger("bookstore.generations", 3);
+    private static final int IMPORT_BATCH_SIZE = 10_000;
+
+    // Extra time the journal holds a batch open for more writes; only pays off where fsync is slow
+    private static final Duration JOURNAL_COMMIT_WINDOW =
+            Duration.of(Long.getLong("bookstore.journal.windowMicros", 0), ChronoUnit.MICROS);
+    private static final int JOURNAL_MAX_BATCH_RECORDS = 1024;
+
+    // Overridable so benchmarks can point the inventory at a generated catalog, and tests at a private copy
+    private static volatile Path dataFile = Paths.get(System.getProperty("bookstore.csv",
+            "src/main/resources/books_1000.csv"));
+    private static volatile BookJournal journal = journalFor(dataFile);
+    private static final Object WRITE_LOCK = new Object(); // Orders journal records with in-memory mutations
+    private static final Object SAVE_LOCK = new Object();
+    private static final AtomicBoolean compacting = new AtomicBoolean();
+    private static final AtomicReference<CompletableFuture<Integer>> pendingSave = new AtomicReference<>();
+    private static final ExecutorService SAVER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "inventory-saver");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     /**
-     * Displays all books currently loaded in the inventory.
+     * Returns the CSV file the inventory is loaded from and saved to.
+     *
+     * @return the path of the inventory's CSV file
      */
-    public static void viewBooks() {
-        for (Book book : books) {
-            System.out.println(book);
+    static Path dataFile() {
+        return dataFile;
+    }
+
+    /**
+     * Points the inventory at another CSV file, with its journal and snapshot kept
+     * beside it, and empties the in-memory list. Nothing is loaded from the new file.
+     * Used by tests to work on a private copy of the catalog.
+     *
+     * @param csv the CSV file to load from and save to from now on
+     */
+    static void useDataFile(Path csv) {
+        synchronized (SAVE_LOCK) {
+            synchronized (WRITE_LOCK) {
+                journal.close();
+                journal = journalFor(csv);
+                dataFile = csv;
+                books.clear();
+            }
         }
     }
 
+    private static BookJournal journalFor(Path csv) {
+        return new BookJournal(Paths.get(csv + ".journal"), JOURNAL_COMMIT_WINDOW, JOURNAL_MAX_BATCH_RECORDS);
+    }
+
+    private static Path snapshotFile() {
+        return Paths.get(dataFile + ".snapshot");
+    }
+
+    private static Path idMarkFile() {
+        return Paths.get(dataFile + ".ids");
+    }
+
     /**
      * Returns the list of all books in the inventory.
      *
@@ -37,123 +107,541 @@ public class BookInventoryOperations {
     }
 
     /**
-     * Finds a book by its ID.
+     * Finds a book by its ID using the inventory's primary-key index.
      *
      * @param id the ID of the book to search for
      * @return the Book if found, otherwise null
      */
     public static Book findById(String id) {
-        for (Book book : books) {
-            if (id.equals(book.getId())) {
-                return book;
-            }
-        }
-        return null;
+        return BookMetrics.call(BookMetrics.Operation.FIND_BY_ID, () -> books.findById(id));
+    }
+
+    /**
+     * Runs a query without printing anything. Only the books inside the query's
+     * page window are materialized; the result also carries the total match count.
+     *
+     * @param query the query to run
+     * @return the requested page of matching books, in inventory order
+     */
+    public static BookQueryResult query(BookQuery query) {
+        return BookMetrics.call(BookMetrics.Operation.search(query.getMatch()), () -> books.query(query));
+    }
+
+    /**
+     * Counts the books per author or location, optionally among the books matching
+     * a filter. The counts are kept up to date as books are added and removed, so
+     * an unfiltered count does not scan the inventory.
+     *
+     * @param field  the field to group by, author or location
+     * @param filter the books to count, or null for every book
+     * @return each value mapped to its book count, largest count first
+     * @throws IllegalArgumentException if field is not author or location
+     */
+    public static Map<String, Integer> facetCounts(BookField field, BookQuery filter) {
+        return books.facetCounts(field, filter);
     }
 
     /**
-     * Saves all books to the CSV file.
-     * Overwrites the entire CSV file, including writing a header row.
+     * Returns the statistics of the cache that answers repeated searches.
+     *
+     * @return the hit, miss, eviction and invalidation counts and the cache's size
+     */
+    public static CacheStats resultCacheStats() {
+        return books.cacheStats();
+    }
+
+    /**
+     * Returns the position of the book with the given ID in inventory order.
+     *
+     * @param id the ID of the book to locate
+     * @return the book's zero-based position, or -1 if no book has that ID
+     */
+    public static int indexOfId(String id) {
+        return books.indexOfId(id);
+    }
+
+    /**
+     * Finds all books whose field contains the given text, ignoring case.
+     * The inventory's trigram and token indexes narrow the candidates, so this avoids a full scan.
+     *
+     * @param field the field to search
+     * @param text  the text to look for
+     * @return the matching books, in inventory order
+     */
+    public static List<Book> searchContaining(BookField field, String text) {
+        return BookMetrics.call(BookMetrics.Operation.SEARCH_CONTAINS, () -> books.searchContaining(field, text));
+    }
+
+    /**
+     * Finds all books whose field contains the given whole word, ignoring case.
+     *
+     * @param field the field to search (title, author or location)
+     * @param word  the word to look for
+     * @return the matching books, in inventory order
+     */
+    public static List<Book> searchWord(BookField field, String word) {
+        return BookMetrics.call(BookMetrics.Operation.SEARCH_WORD, () -> books.searchWord(field, word));
+    }
+
+    /**
+     * Finds all books whose field contains a word starting with the given prefix, ignoring case.
+     *
+     * @param field  the field to search (title, author or location)
+     * @param prefix the word prefix to look for
+     * @return the matching books, in inventory order
+     */
+    public static List<Book> searchWordPrefix(BookField field, String prefix) {
+        return BookMetrics.call(BookMetrics.Operation.SEARCH_WORD_PREFIX, () -> books.searchWordPrefix(field, prefix));
+    }
+
+    /**
+     * Saves all books to the CSV file and waits for the save to finish.
+     * See {@link #saveBooksAsync()}.
      */
     public static void saveBooks() {
-        try (FileWriter writer = new FileWriter(FILE_PATH)) {
-            ColumnPositionMappingStrategy<Book> strategy = new ColumnPositionMappingStrategy<>();
-            strategy.setType(Book.class);
-            strategy.setColumnMapping("id", "title", "location", "author");
-
-            // Write header manually
-            writer.write("id,title,location,author\n");
-
-            StatefulBeanToCsv<Book> beanToCsv = new StatefulBeanToCsvBuilder<Book>(writer)
-                    .withApplyQuotesToAll(false)
-                    .withOrderedResults(true)
-                    .withMappingStrategy(strategy)
-                    .withSeparator(',')
-                    .withQuotechar(CSVWriter.NO_QUOTE_CHARACTER)
-                    .build();
-
-            beanToCsv.write(books);
-            System.out.println("✅ Saved " + books.size() + " books to CSV.");
-        } catch (Exception e) {
-            e.printStackTrace();
+        int saved = saveBooksAsync().join();
+        if (saved >= 0) {
+            System.out.println("✅ Saved " + saved + " books to CSV.");
         }
     }
 
     /**
-     * Adds a new book to the inventory and appends it to the CSV file.
+     * Saves all books to the CSV file on a background thread, then discards the
+     * journaled records since they are now in the CSV.
+     *
+     * The CSV is replaced atomically: the new version is written to a temporary
+     * file, forced to disk and renamed over the old one, so a crash mid-save
+     * never leaves a truncated catalog. The previous versions are kept as
+     * {@code .gen1}, {@code .gen2}, ... backups (three unless the
+     * {@code bookstore.generations} property says otherwise).
+     *
+     * Saves run one at a time. A save requested while another is still waiting
+     * to start shares that save's result, since it will include the same changes.
+     *
+     * @return a future for the number of books written, or -1 if the CSV could not be written
+     */
+    public static CompletableFuture<Integer> saveBooksAsync() {
+        while (true) {
+            CompletableFuture<Integer> pending = pendingSave.get();
+            if (pending != null) {
+                return pending;
+            }
+            CompletableFuture<Integer> save = new CompletableFuture<>();
+            if (pendingSave.compareAndSet(null, save)) {
+                SAVER.execute(() -> {
+                    pendingSave.compareAndSet(save, null); // Changes from now on need a save of their own
+                    try {
+                        save.complete(checkpoint());
+                    } catch (RuntimeException e) {
+                        save.completeExceptionally(e);
+                    }
+                });
+                return save;
+            }
+        }
+    }
+
+    /**
+     * Adds a new book to the inventory and returns once it is durably recorded in the journal.
      *
      * @param book the Book object to add
+     * @throws UncheckedIOException if the journal write failed; the book is added but not yet durable
      */
     public static void add(Book book) {
-        try (FileWriter writer = new FileWriter(FILE_PATH, true)) {
-            ColumnPositionMappingStrategy<Book> strategy = new ColumnPositionMappingStrategy<>();
-            strategy.setType(Book.class);
-            strategy.setColumnMapping("id", "title", "location", "author");
-
-            StatefulBeanToCsv<Book> beanToCsv = new StatefulBeanToCsvBuilder<Book>(writer)
-                    .withApplyQuotesToAll(false)
-                    .withOrderedResults(true)
-                    .withMappingStrategy(strategy)
-                    .withSeparator(',')
-                    .withQuotechar(CSVWriter.NO_QUOTE_CHARACTER)
-                    .build();
-
-            // Append book to the CSV
-            beanToCsv.write(List.of(book));
-            // Also add to in-memory list
-            books.add(book);
-
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        BookMetrics.run(BookMetrics.Operation.ADD, () -> {
+            CompletableFuture<Void> durable;
+            synchronized (WRITE_LOCK) {
+                durable = journal.enqueueAdd(book);
+                books.add(book);
+            }
+            awaitDurable(durable);
+        });
+        compactIfNeeded();
     }
 
     /**
-     * Calculates and returns the next available book ID.
-     * Finds the maximum ID currently in use and increments it.
+     * Allocates and returns the next available book ID.
+     * The ID comes from a high-water mark tracked as books are loaded and added,
+     * so this never scans the inventory and never hands out the same ID twice.
      *
      * @return the next available ID as a String
      */
     public static String getNextBookId() {
-        int maxId = 0;
-        for (Book book : books) {
-            try {
-                int id = Integer.parseInt(book.getId());
-                if (id > maxId) {
-                    maxId = id;
-                }
-            } catch (NumberFormatException e) {
-                // Skip any invalid (non-integer) ID values
-            }
-        }
-        return String.valueOf(maxId + 1);
+        return books.idAllocator().next();
     }
 
     /**
-     * Removes a book from the inventory based on its ID.
+     * Reserves a contiguous block of book IDs for a batch import.
+     *
+     * @param count the number of IDs to reserve
+     * @return the first reserved ID; the block ends at {@code first + count - 1}
+     */
+    public static int reserveBookIds(int count) {
+        return books.idAllocator().reserve(count);
+    }
+
+    /**
+     * Removes a book from the inventory based on its ID and durably records the removal in the journal.
      *
      * @param id the ID of the book to remove
      * @return true if a book was removed; false if no book with the ID was found
+     * @throws UncheckedIOException if the journal write failed; the book is removed but not yet durably
      */
     public static boolean remove(String id) {
-        return books.removeIf(book -> book.getId().equals(id));
+        boolean removed = BookMetrics.call(BookMetrics.Operation.REMOVE, () -> {
+            CompletableFuture<Void> durable;
+            synchronized (WRITE_LOCK) {
+                if (!books.removeById(id)) {
+                    return false;
+                }
+                durable = journal.enqueueRemove(id);
+            }
+            awaitDurable(durable);
+            return true;
+        });
+        if (removed) {
+            compactIfNeeded();
+        }
+        return removed;
+    }
+
+    /**
+     * Removes every book matched by a query in one pass over the inventory and
+     * durably records all the removals with a single journal write.
+     * Use {@link BookQuery#equalTo(BookField, String)} to clear out a location or author.
+     *
+     * @param filter the query selecting the books to remove
+     * @return the number of books removed
+     */
+    public static int removeBooks(BookQuery filter) {
+        return removeAndJournal(() -> books.removeAll(filter));
+    }
+
+    /**
+     * Removes every book whose ID is in the given collection, in one pass, with a single journal write.
+     *
+     * @param ids the IDs of the books to remove; unknown IDs are ignored
+     * @return the number of books removed
+     */
+    public static int removeBooks(Collection<String> ids) {
+        return removeAndJournal(() -> books.removeIds(ids));
+    }
+
+    /**
+     * Removes every book whose numeric ID lies in the given inclusive range,
+     * in one pass, with a single journal write.
+     *
+     * @param fromId the lowest ID to remove
+     * @param toId   the highest ID to remove
+     * @return the number of books removed
+     */
+    public static int removeBookRange(int fromId, int toId) {
+        return removeAndJournal(() -> books.removeIdRange(fromId, toId));
     }
 
     /**
-     * Loads all books from the CSV file into the in-memory list.
+     * Applies a batch removal in memory and queues its journal records under
+     * {@code WRITE_LOCK}, then waits for them to be durable.
+     *
+     * @param removal removes the books and returns their IDs
+     * @return the number of books removed
+     * @throws UncheckedIOException if the journal write failed; the books are removed but not yet durably
+     */
+    private static int removeAndJournal(Supplier<List<String>> removal) {
+        List<String> removedIds;
+        CompletableFuture<Void> durable;
+        synchronized (WRITE_LOCK) {
+            removedIds = removal.get();
+            durable = journal.enqueueRemoveAll(removedIds);
+        }
+        awaitDurable(durable);
+        compactIfNeeded();
+        return removedIds.size();
+    }
+
+    /**
+     * Waits for a journal record to reach the disk.
+     *
+     * @throws UncheckedIOException if the record could not be written. The change stays
+     *         applied in memory and the next successful checkpoint saves it, but until then
+     *         it would be lost if the process stopped, so the caller must not report it as saved.
+     */
+    private static void awaitDurable(CompletableFuture<Void> durable) {
+        try {
+            BookJournal.await(durable);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not record the change in the journal: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Adds every valid row of a CSV file to the inventory as new books.
+     *
+     * The file needs a header row naming the title, author and location columns;
+     * an id column, if present, is ignored. A row without a title is rejected,
+     * naming the line of the file it starts on.
+     * The file is streamed {@code IMPORT_BATCH_SIZE} books at a time, so only one
+     * batch is held in memory. Each batch's accepted books get a consecutive block
+     * of IDs and are added together, so the indexes are updated once per batch.
+     * Instead of journaling each book, the whole inventory is written to disk
+     * once at the end.
+     *
+     * @param file the CSV file to import
+     * @return the number of books imported and the rows rejected
+     * @throws IOException if the file cannot be read or is not valid CSV. Batches
+     *         before the bad record stay imported and are saved; the message says how many books they held
+     */
+    public static BookImportResult importBooks(Path file) throws IOException {
+        List<String> rejected = new ArrayList<>();
+        List<Book> accepted = new ArrayList<>(IMPORT_BATCH_SIZE);
+        int[] imported = new int[1];
+        String[] firstId = new String[1];
+        try {
+            CsvBookLoader.read(file, IMPORT_BATCH_SIZE, (rows, lines) -> {
+                accepted.clear();
+                for (int i = 0; i < rows.size(); i++) {
+                    Book row = rows.get(i);
+                    if (row.getTitle() == null || row.getTitle().isBlank()) {
+                        rejected.add("Line " + lines[i] + ": missing title");
+                    } else {
+                        accepted.add(row);
+                    }
+                }
+                if (accepted.isEmpty()) {
+                    return;
+                }
+                int nextId = reserveBookIds(accepted.size());
+                if (firstId[0] == null) {
+                    firstId[0] = String.valueOf(nextId);
+                }
+                for (int i = 0; i < accepted.size(); i++) {
+                    Book row = accepted.get(i);
+                    accepted.set(i, new Book(String.valueOf(nextId + i), row.getTitle(), orEmpty(row.getLocation()),
+                            orEmpty(row.getAuthor())));
+                }
+                synchronized (WRITE_LOCK) {
+                    books.addAll(accepted);
+                }
+                imported[0] += accepted.size();
+            });
+        } catch (IOException e) {
+            if (imported[0] == 0) {
+                throw e;
+            }
+            checkpoint();
+            throw new IOException(e.getMessage() + "; the " + imported[0] + " books before it were imported", e);
+        }
+        if (imported[0] == 0) {
+            return new BookImportResult(0, null, rejected, true);
+        }
+        boolean saved = checkpoint() >= 0;
+        return new BookImportResult(imported[0], firstId[0], rejected, saved);
+    }
+
+    /**
+     * Writes every book in the inventory to a CSV file with an
+     * id,title,author,location header. Books are streamed from the inventory in
+     * small batches rather than copied first, so a concurrent change may or may
+     * not be included. Fields are quoted only where needed, so the file can be
+     * imported again.
+     *
+     * @param file the file to write
+     * @return the number of books written
+     * @throws IOException if the file cannot be written
+     */
+    public static int exportBooks(Path file) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            return BookCsvCodec.write(out, books);
+        }
+    }
+
+    private static String orEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    /**
+     * Loads all books from the CSV file into the in-memory list,
+     * then replays any journaled changes made since the CSV was last written.
      * This method should be called once at the start of the program.
      */
     public static void loadBooksFromCsv() {
-        try (FileReader reader = new FileReader(FILE_PATH)) {
-            CsvToBean<Book> csvToBean = new CsvToBeanBuilder<Book>(reader)
-                    .withType(Book.class)
-                    .withIgnoreLeadingWhiteSpace(true)
-                    .build();
+        BookMetrics.run(BookMetrics.Operation.LOAD_CSV, () -> {
+            try {
+                List<Book> loaded = CsvBookLoader.load(csvToLoad());
+                synchronized (WRITE_LOCK) {
+                    books.clear();
+                    books.addAll(loaded);
+                    journal.replay(books);
+                    restoreIdMark();
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    /**
+     * Returns the CSV file, or its newest backup generation if the file itself is missing.
+     */
+    private static Path csvToLoad() {
+        Path csv = dataFile;
+        if (!Files.exists(csv)) {
+            for (Path backup : FileGenerations.backups(csv)) {
+                System.out.println("⚠️ " + csv + " is missing; recovering from " + backup.getFileName());
+                return backup;
+            }
+        }
+        return csv;
+    }
+
+    /**
+     * Loads all books from the binary snapshot written alongside the CSV file,
+     * then replays any journaled changes made since it was written.
+     * The snapshot is only used if it is at least as new as the CSV file, so
+     * edits made directly to the CSV are never shadowed by a stale snapshot.
+     *
+     * @return true if the inventory was loaded from the snapshot; false if the
+     *         snapshot is missing, stale or invalid and the CSV should be loaded instead
+     */
+    public static boolean loadBooksFromSnapshot() {
+        return BookMetrics.call(BookMetrics.Operation.LOAD_SNAPSHOT, BookInventoryOperations::loadSnapshot);
+    }
 
-            books = csvToBean.parse();
+    private static boolean loadSnapshot() {
+        try {
+            Path csv = dataFile;
+            Path snapshot = snapshotFile();
+            if (!Files.exists(snapshot) || (Files.exists(csv)
+                    && Files.getLastModifiedTime(snapshot).compareTo(Files.getLastModifiedTime(csv)) < 0)) {
+                return false;
+            }
+            List<Book> loaded = BookSnapshot.read(snapshot);
+            synchronized (WRITE_LOCK) {
+                books.clear();
+                books.addAll(loaded);
+                journal.replay(books);
+                restoreIdMark();
+            }
+            return true;
         } catch (IOException e) {
-            throw new RuntimeException(e);
+            System.out.println("⚠️ Ignoring snapshot: " + e.getMessage());
+            return false;
         }
     }
-}
 
+    /**
+     * Raises the ID allocator to the high-water mark saved with the CSV, so the IDs
+     * of books removed before the last save are not handed out again.
+     */
+    private static void restoreIdMark() throws IOException {
+        Path file = idMarkFile();
+        if (Files.exists(file)) {
+            books.idAllocator().observe(Files.readString(file, StandardCharsets.UTF_8).trim());
+        }
+    }
+
+    /**
+     * Atomically replaces the saved ID high-water mark.
+     *
+     * @param mark the largest ID allocated or seen when the saved copy was taken
+     * @return true if the mark was written successfully
+     */
+    private static boolean writeIdMark(int mark) {
+        try {
+            FileGenerations.replace(idMarkFile(), 0, out -> out.write(mark + "\n"));
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Writes the given books to the binary snapshot used for fast startup.
+     * A failure is reported but not fatal; the CSV file remains the source of truth.
+     *
+     * @param snapshot the books to write
+     */
+    private static void writeSnapshot(List<Book> snapshot) {
+        try {
+            BookSnapshot.write(snapshot, snapshotFile());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Atomically replaces the CSV file with the given books, keeping the
+     * previous versions as backup generations.
+     *
+     * @param snapshot the books to write
+     * @return true if the file was written successfully
+     */
+    private static boolean writeCsv(List<Book> snapshot) {
+        try {
+            FileGenerations.replace(dataFile, CSV_GENERATIONS, out -> BookCsvCodec.write(out, snapshot));
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Writes a consistent copy of the inventory to the CSV file and the snapshot,
+     * then deletes the journal records it covers.
+     *
+     * The copy is taken and the journal rotated together under {@code WRITE_LOCK},
+     * so every record in the rotated journal is in the copy and every later
+     * mutation goes to the fresh journal. The files are then written without
+     * holding up writers. The ID high-water mark is saved beside the CSV, since
+     * the copy alone no longer shows IDs of removed books. If the CSV or the mark
+     * cannot be written the rotated journal is kept and replayed on the next load.
+     *
+     * @return the number of books written, or -1 if the CSV could not be written
+     */
+    private static int checkpoint() {
+        return BookMetrics.call(BookMetrics.Operation.SAVE, BookInventoryOperations::writeCheckpoint);
+    }
+
+    private static int writeCheckpoint() {
+        synchronized (SAVE_LOCK) {
+            List<Book> snapshot;
+            int idMark;
+            synchronized (WRITE_LOCK) {
+                snapshot = books.snapshot();
+                idMark = books.idAllocator().highWaterMark();
+                try {
+                    journal.rotate();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    return -1;
+                }
+            }
+            if (!writeCsv(snapshot)) {
+                return -1;
+            }
+            writeSnapshot(snapshot);
+            if (!writeIdMark(idMark)) {
+                return snapshot.size(); // The rotated journal still records the removed IDs
+            }
+            try {
+                journal.deleteRotated();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            return snapshot.size();
+        }
+    }
+
+    /**
+     * Folds the journal into the CSV file once it has grown past {@link #COMPACT_AFTER_RECORDS}.
+     * The save runs on the background saver thread so the caller is not blocked.
+     */
+    private static void compactIfNeeded() {
+        if (journal.records() < COMPACT_AFTER_RECORDS || !compacting.compareAndSet(false, true)) {
+            return;
+        }
+        saveBooksAsync().whenComplete((saved, failure) -> compacting.set(false));
+    }
+}
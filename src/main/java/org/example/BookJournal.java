@@ -0,0 +1,425 @@
+package org.example;
+
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import com.opencsv.CSVWriter;
+import com.opencsv.RFC4180Parser;
+import com.opencsv.exceptions.CsvValidationException;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Append-only write-ahead journal of inventory mutations.
+ *
+ * Each add or remove is written as one CSV line, so the cost of a write is
+ * proportional to the change rather than to the size of the catalog. The main
+ * CSV file only has to be rewritten when the journal is compacted into it.
+ *
+ * Records are group-committed: {@code enqueue*} methods format a record and
+ * queue it without touching the disk, and a background writer thread takes
+ * every queued record, writes them with one write and one fsync, and then
+ * completes each caller's future. While one batch is being forced to disk the
+ * next one fills up, so concurrent writers share fsyncs instead of waiting in
+ * line for them. An optional commit window holds each batch open a little
+ * longer (up to a size limit) for disks where fsync is slow enough to make
+ * that pay. Records are written in the order they were queued.
+ *
+ * Record layout:
+ * <pre>
+ * "A","id","title","author","location"   (book added)
+ * "R","id"                               (book removed)
+ * </pre>
+ *
+ * Compaction rotates the live journal to a side file; the caller then writes a
+ * new CSV and deletes the side file. Replay reads the side file first (left over
+ * if compaction was interrupted) and then the live journal. Replay is idempotent,
+ * so replaying records that already made it into the CSV does no harm.
+ */
+class BookJournal {
+    private static final String ADD = "A";
+    private static final String REMOVE = "R";
+    private static final int DEFAULT_MAX_BATCH_RECORDS = 1024;
+
+    private final Path path;
+    private final Path rotatedPath;
+    private final long commitWindowNanos;
+    private final int maxBatchRecords;
+    private FileChannel channel; // Guarded by this, which is held for every write, fsync and rotation
+    private volatile int records;
+
+    private final ReentrantLock queueLock = new ReentrantLock();
+    private final Condition recordsQueued = queueLock.newCondition();
+    private List<PendingRecords> queue = new ArrayList<>(); // Guarded by queueLock
+    private int queuedRecords; // Guarded by queueLock
+    private Thread writer; // Guarded by queueLock; started on the first enqueue
+
+    /**
+     * Creates a journal stored at the given path with no commit window: each batch
+     * holds whatever was queued while the previous one was being written.
+     * The file is created on the first append.
+     *
+     * @param path the journal file
+     */
+    BookJournal(Path path) {
+        this(path, Duration.ZERO, DEFAULT_MAX_BATCH_RECORDS);
+    }
+
+    /**
+     * Creates a journal stored at the given path. The file is created on the first append.
+     *
+     * @param path            the journal file
+     * @param commitWindow    how long the writer waits for more records after the first
+     *                        record of a batch arrives; zero commits whatever is queued at once
+     * @param maxBatchRecords the batch size at which the writer commits without waiting out the window
+     */
+    BookJournal(Path path, Duration commitWindow, int maxBatchRecords) {
+        this.path = path;
+        this.rotatedPath = path.resolveSibling(path.getFileName() + ".compacting");
+        this.commitWindowNanos = commitWindow.toNanos();
+        this.maxBatchRecords = maxBatchRecords;
+    }
+
+    /**
+     * Queues a record that a book was added.
+     *
+     * @param book the added book
+     * @return a future completed once the record is on disk, or completed
+     *         exceptionally with an IOException if it could not be written
+     */
+    CompletableFuture<Void> enqueueAdd(Book book) {
+        return enqueue(format(List.<String[]>of(new String[]{ADD, book.getId(), book.getTitle(), book.getAuthor(),
+                book.getLocation()})), 1);
+    }
+
+    /**
+     * Queues a record that a book was removed.
+     *
+     * @param id the ID of the removed book
+     * @return a future completed once the record is on disk, or completed
+     *         exceptionally with an IOException if it could not be written
+     */
+    CompletableFuture<Void> enqueueRemove(String id) {
+        return enqueue(format(List.<String[]>of(new String[]{REMOVE, id})), 1);
+    }
+
+    /**
+     * Queues records that several books were removed. They are always written in the same batch.
+     *
+     * @param ids the IDs of the removed books
+     * @return a future completed once the records are on disk, or completed
+     *         exceptionally with an IOException if they could not be written
+     */
+    CompletableFuture<Void> enqueueRemoveAll(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        List<String[]> lines = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            lines.add(new String[]{REMOVE, id});
+        }
+        return enqueue(format(lines), ids.size());
+    }
+
+    /**
+     * Waits until queued records are on disk.
+     *
+     * @param durable a future returned by one of the {@code enqueue*} methods
+     * @throws IOException if the records could not be written
+     */
+    static void await(CompletableFuture<Void> durable) throws IOException {
+        try {
+            durable.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the number of records written since the journal was last rotated or truncated.
+     * Records still waiting in the queue are not counted.
+     *
+     * @return the record count
+     */
+    int records() {
+        return records;
+    }
+
+    /**
+     * Writes every queued record, then moves the live journal aside so a
+     * compaction can fold it into the CSV, and starts a fresh journal for new mutations.
+     *
+     * @throws IOException if the journal could not be rotated
+     */
+    synchronized void rotate() throws IOException {
+        commit(drainQueue());
+        closeChannel();
+        if (Files.exists(path)) {
+            if (Files.exists(rotatedPath)) {
+                // An earlier compaction never finished; keep its records ahead of ours
+                try (FileChannel out = FileChannel.open(rotatedPath, StandardOpenOption.APPEND)) {
+                    out.write(ByteBuffer.wrap(Files.readAllBytes(path)));
+                    out.force(false);
+                }
+                Files.delete(path);
+            } else {
+                Files.move(path, rotatedPath, StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+        records = 0;
+    }
+
+    /**
+     * Deletes the rotated journal once its records are safely in the CSV.
+     *
+     * @throws IOException if the file could not be deleted
+     */
+    synchronized void deleteRotated() throws IOException {
+        Files.deleteIfExists(rotatedPath);
+    }
+
+    /**
+     * Writes every queued record, stops the writer thread and closes the file.
+     * The journal must not be used afterwards.
+     */
+    synchronized void close() {
+        commit(drainQueue());
+        queueLock.lock();
+        try {
+            if (writer != null) {
+                writer.interrupt();
+            }
+        } finally {
+            queueLock.unlock();
+        }
+        try {
+            closeChannel();
+        } catch (IOException e) {
+            // Every record was forced to disk when it was committed
+        }
+    }
+
+    /**
+     * Writes every queued record, then applies every journaled mutation to the
+     * given list, oldest first. Records are read as CSV, so a quoted field may span
+     * lines. A torn record at the end of a file (from a crash mid-write) is ignored
+     * and cut off, so records appended later start on a line of their own.
+     *
+     * @param books the list to apply the mutations to
+     * @throws IOException if a journal file could not be read or truncated
+     */
+    synchronized void replay(BookList books) throws IOException {
+        commit(drainQueue());
+        for (Path file : List.of(rotatedPath, path)) {
+            if (!Files.exists(file)) {
+                continue;
+            }
+            long complete = completeLength(file);
+            if (complete < Files.size(file)) {
+                closeChannel();
+                try (FileChannel out = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    out.truncate(complete);
+                    out.force(false);
+                }
+            }
+            try (CSVReader reader = new CSVReaderBuilder(Files.newBufferedReader(file, StandardCharsets.UTF_8))
+                    .withCSVParser(new RFC4180Parser())
+                    .build()) {
+                String[] record;
+                while ((record = reader.readNext()) != null) {
+                    apply(record, books);
+                }
+            } catch (CsvValidationException e) {
+                throw new IOException("Unreadable journal record in " + file, e);
+            }
+        }
+    }
+
+    private static void apply(String[] record, BookList books) {
+        if (record.length == 5 && ADD.equals(record[0])) {
+            if (books.findById(record[1]) == null) {
+                books.add(new Book(record[1], record[2], record[4], record[3]));
+            }
+        } else if (record.length == 2 && REMOVE.equals(record[0])) {
+            books.removeById(record[1]);
+        }
+    }
+
+    /**
+     * Returns the length of a journal file up to the end of its last complete
+     * record: the last line break outside quotes. Quotes inside fields are
+     * doubled, so they leave the quoting state unchanged, and neither byte can
+     * occur inside a multi-byte UTF-8 character.
+     */
+    private static long completeLength(Path file) throws IOException {
+        long complete = 0;
+        long position = 0;
+        boolean quoted = false;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+            int b;
+            while ((b = in.read()) != -1) {
+                position++;
+                if (b == '"') {
+                    quoted = !quoted;
+                } else if (b == '\n' && !quoted) {
+                    complete = position;
+                }
+            }
+        }
+        return complete;
+    }
+
+    private static byte[] format(List<String[]> lines) {
+        StringWriter text = new StringWriter();
+        try (CSVWriter writer = new CSVWriter(text)) {
+            for (String[] line : lines) {
+                writer.writeNext(line);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // A StringWriter never fails
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private CompletableFuture<Void> enqueue(byte[] text, int count) {
+        PendingRecords pending = new PendingRecords(text, count);
+        queueLock.lock();
+        try {
+            if (writer == null) {
+                writer = new Thread(this::runWriter, "journal-writer");
+                writer.setDaemon(true);
+                writer.start();
+            }
+            queue.add(pending);
+            queuedRecords += count;
+            if (queue.size() == 1 || queuedRecords >= maxBatchRecords) {
+                recordsQueued.signal();
+            }
+        } finally {
+            queueLock.unlock();
+        }
+        return pending.durable;
+    }
+
+    /**
+     * Waits for the first record of a batch, then for the commit window to pass
+     * or the batch to fill, and commits the batch. Runs forever on the writer thread.
+     */
+    private void runWriter() {
+        while (true) {
+            queueLock.lock();
+            try {
+                while (queue.isEmpty()) {
+                    recordsQueued.await();
+                }
+                long remaining = commitWindowNanos;
+                while (remaining > 0 && queuedRecords < maxBatchRecords) {
+                    remaining = recordsQueued.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                queueLock.unlock();
+            }
+            synchronized (this) {
+                // Drained under the journal lock, so a rotation can never slip in between
+                // taking a batch and writing it, and batches reach the file in queue order
+                commit(drainQueue());
+            }
+        }
+    }
+
+    private List<PendingRecords> drainQueue() {
+        queueLock.lock();
+        try {
+            List<PendingRecords> batch = queue;
+            queue = new ArrayList<>();
+            queuedRecords = 0;
+            return batch;
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    /**
+     * Writes a batch with one write and one fsync and completes its futures. Called holding this.
+     */
+    private void commit(List<PendingRecords> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        int size = 0;
+        int count = 0;
+        for (PendingRecords pending : batch) {
+            size += pending.text.length;
+            count += pending.count;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        for (PendingRecords pending : batch) {
+            buffer.put(pending.text);
+        }
+        buffer.flip();
+        try {
+            if (channel == null) {
+                channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.APPEND);
+            }
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            records += count;
+        } catch (IOException e) {
+            for (PendingRecords pending : batch) {
+                pending.durable.completeExceptionally(e);
+            }
+            return;
+        }
+        for (PendingRecords pending : batch) {
+            pending.durable.complete(null);
+        }
+    }
+
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * Formatted records waiting to be written, and the future their writer waits on.
+     */
+    private static final class PendingRecords {
+        final byte[] text;
+        final int count;
+        final CompletableFuture<Void> durable = new CompletableFuture<>();
+
+        PendingRecords(byte[] text, int count) {
+            this.text = text;
+            this.count = count;
+        }
+    }
+}
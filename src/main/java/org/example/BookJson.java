@@ -0,0 +1,219 @@
+package org.example;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal JSON encoding for the HTTP service.
+ *
+ * The service only ever writes books, pages of books and flat objects, and
+ * only ever reads flat objects of strings, so this covers exactly that instead
+ * of pulling in a JSON library.
+ */
+final class BookJson {
+
+    private BookJson() {
+    }
+
+    /**
+     * Encodes a book as {@code {"id":..,"title":..,"author":..,"location":..}}.
+     *
+     * @param book the book to encode
+     * @return the JSON object
+     */
+    static String book(Book book) {
+        return appendBook(new StringBuilder(128), book).toString();
+    }
+
+    /**
+     * Encodes a page of query results with its offset and total match count.
+     *
+     * @param result the page to encode
+     * @return the JSON object
+     */
+    static String page(BookQueryResult result) {
+        StringBuilder out = new StringBuilder(64 + 128 * result.getBooks().size());
+        out.append("{\"offset\":").append(result.getOffset())
+                .append(",\"total\":").append(result.getTotalCount())
+                .append(",\"books\":[");
+        List<Book> books = result.getBooks();
+        for (int i = 0; i < books.size(); i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            appendBook(out, books.get(i));
+        }
+        return out.append("]}").toString();
+    }
+
+    /**
+     * Encodes a flat object. Values are written as numbers if they are Numbers
+     * and as strings otherwise.
+     *
+     * @param fields the fields in the order to write them
+     * @return the JSON object
+     */
+    static String object(Map<String, ?> fields) {
+        StringBuilder out = new StringBuilder("{");
+        for (Map.Entry<String, ?> field : fields.entrySet()) {
+            if (out.length() > 1) {
+                out.append(',');
+            }
+            appendString(out, field.getKey()).append(':');
+            Object value = field.getValue();
+            if (value instanceof Number) {
+                out.append(value);
+            } else {
+                appendString(out, value == null ? null : value.toString());
+            }
+        }
+        return out.append('}').toString();
+    }
+
+    /**
+     * Parses a flat JSON object whose values are all strings or null.
+     *
+     * @param json the text to parse
+     * @return the fields in the order they appear
+     * @throws IllegalArgumentException if the text is not such an object
+     */
+    static Map<String, String> parseObject(String json) {
+        Parser parser = new Parser(json);
+        Map<String, String> fields = new LinkedHashMap<>();
+        parser.expect('{');
+        if (!parser.consume('}')) {
+            do {
+                String key = parser.string();
+                parser.expect(':');
+                fields.put(key, parser.consume("null") ? null : parser.string());
+            } while (parser.consume(','));
+            parser.expect('}');
+        }
+        parser.end();
+        return fields;
+    }
+
+    private static StringBuilder appendBook(StringBuilder out, Book book) {
+        out.append("{\"id\":");
+        appendString(out, book.getId()).append(",\"title\":");
+        appendString(out, book.getTitle()).append(",\"author\":");
+        appendString(out, book.getAuthor()).append(",\"location\":");
+        return appendString(out, book.getLocation()).append('}');
+    }
+
+    private static StringBuilder appendString(StringBuilder out, String value) {
+        if (value == null) {
+            return out.append("null");
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        return out.append('"');
+    }
+
+    private static final class Parser {
+        private final String json;
+        private int pos;
+
+        Parser(String json) {
+            this.json = json;
+        }
+
+        void expect(char c) {
+            if (!consume(c)) {
+                throw error("Expected '" + c + "'");
+            }
+        }
+
+        boolean consume(char c) {
+            skipWhitespace();
+            if (pos < json.length() && json.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        boolean consume(String literal) {
+            skipWhitespace();
+            if (json.startsWith(literal, pos)) {
+                pos += literal.length();
+                return true;
+            }
+            return false;
+        }
+
+        String string() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (pos < json.length()) {
+                char c = json.charAt(pos++);
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                if (pos >= json.length()) {
+                    break;
+                }
+                char escaped = json.charAt(pos++);
+                switch (escaped) {
+                    case '"', '\\', '/' -> value.append(escaped);
+                    case 'b' -> value.append('\b');
+                    case 'f' -> value.append('\f');
+                    case 'n' -> value.append('\n');
+                    case 'r' -> value.append('\r');
+                    case 't' -> value.append('\t');
+                    case 'u' -> {
+                        if (pos + 4 > json.length()) {
+                            throw error("Bad \\u escape");
+                        }
+                        try {
+                            value.append((char) Integer.parseInt(json.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("Bad \\u escape");
+                        }
+                        pos += 4;
+                    }
+                    default -> throw error("Bad escape '\\" + escaped + "'");
+                }
+            }
+            throw error("Unterminated string");
+        }
+
+        void end() {
+            skipWhitespace();
+            if (pos != json.length()) {
+                throw error("Unexpected trailing text");
+            }
+        }
+
+        private void skipWhitespace() {
+            while (pos < json.length() && Character.isWhitespace(json.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + pos + " of the JSON body");
+        }
+    }
+}
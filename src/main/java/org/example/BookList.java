@@ -0,0 +1,1413 @@
+package org.example;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * The in-memory list of books backing the inventory.
+ *
+ * Behaves like an ordinary List, but stores the books column by column in a
+ * {@link BookColumns} store and keeps a primary-key index (ID -> row) in sync
+ * with every mutation, so lookups by ID take constant time no matter how big the
+ * catalog is. Books are expected to have unique IDs; if duplicates slip in, the
+ * first one in list order wins, just like a linear scan would.
+ *
+ * The list does not keep the Book objects handed to it. Reading an element
+ * returns a lightweight Book built from the row, sharing the stored Strings,
+ * so two reads of the same element are equal but not identical.
+ *
+ * The list also feeds every incoming ID to a {@link BookIdAllocator}, so the
+ * next free ID is always known without a scan.
+ *
+ * Every book is given a row number when it is added, and secondary indexes
+ * ({@link BookIndex}) are keyed by row. Rows only ever grow until the list is
+ * cleared or compacted, so rows come back in the order the books were added.
+ * Compaction rebuilds a copy of the store and its indexes without holding the
+ * lock and only takes the write lock to swap the copy in, so readers are never
+ * held up by it.
+ *
+ * The list is safe for concurrent readers and writers. Writers are serialized
+ * by a {@link StampedLock}. Point reads (by ID or position, size, and iterator
+ * batches) never take a lock up front: they read optimistically and validate the
+ * stamp afterwards, retrying if a write overlapped the read, and only fall back
+ * to a shared read lock after several failed attempts. Searches, queries, counts
+ * and snapshots take the shared read lock, since redoing their work on every
+ * overlapping write would cost more than the lock, and since they touch the
+ * result cache, whose state must not change on behalf of a read that is thrown away.
+ * Iteration is weakly consistent: it never throws ConcurrentModificationException
+ * and reflects the list as it was at some point during the iteration. Separate
+ * calls to {@code size()} and {@code get(int)} are each consistent on their own,
+ * but not with each other while other threads are writing; use {@link #snapshot()}
+ * for a consistent copy.
+ */
+class BookList extends AbstractList<Book> implements RandomAccess {
+    private static final int MIN_TOMBSTONES_TO_COMPACT = 1024;
+    private static final int COMPACTION_ATTEMPTS = 3;
+    private static final int OPTIMISTIC_READ_ATTEMPTS = 4;
+    private static final int ITERATOR_BATCH_SIZE = 1024;
+    private static final Comparator<String> TEXT_ORDER = Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER);
+    private static final Comparator<String> ID_ORDER = Comparator.nullsLast(Comparator.naturalOrder());
+    private static final int RESULT_CACHE_ENTRIES = 1024;
+    private static final long RESULT_CACHE_ROWS = Long.getLong("bookstore.cache.rows", 1 << 20);
+
+    private final StampedLock lock = new StampedLock();
+    private long writes; // Guarded by the write lock; tells a compaction whether its copy went stale
+    private final AtomicBoolean compacting = new AtomicBoolean();
+
+    // The store, ID map and row-keyed indexes are replaced together when the store is compacted
+    private BookColumns columns = new BookColumns();
+    private int[] positions = new int[16]; // list position -> row
+    private int size;
+    private boolean positionsSorted = true; // Rows ascend with position unless a book was inserted or replaced
+    private Map<String, Integer> rowsById = new ConcurrentHashMap<>();
+    private final BookIdAllocator idAllocator = new BookIdAllocator();
+
+    private TokenIndex tokenIndex = newTokenIndex();
+    private TrigramIndex trigramIndex = newTrigramIndex();
+    private FacetIndex facetIndex = new FacetIndex(columns);
+    private final ResultCache resultCache = new ResultCache(RESULT_CACHE_ENTRIES, RESULT_CACHE_ROWS);
+    private List<BookIndex> indexes = List.of(tokenIndex, trigramIndex, facetIndex, resultCache);
+
+    /**
+     * Finds a book by its ID using the primary-key index.
+     *
+     * @param id the ID of the book to search for
+     * @return the Book if found, otherwise null
+     */
+    Book findById(String id) {
+        return read(() -> {
+            Integer row = rowsById.get(id);
+            return row == null ? null : columns.book(row);
+        });
+    }
+
+    /**
+     * Returns the allocator that tracks the highest ID in this list.
+     *
+     * @return the ID allocator
+     */
+    BookIdAllocator idAllocator() {
+        return idAllocator;
+    }
+
+    /**
+     * Removes every book with the given ID.
+     *
+     * @param id the ID of the book to remove
+     * @return true if a book was removed
+     */
+    boolean removeById(String id) {
+        return write(() -> {
+            if (!hasDuplicateIds()) {
+                Integer row = rowsById.get(id);
+                if (row == null) {
+                    return false;
+                }
+                removeAt(positionOf(row));
+                return true;
+            }
+            return removeMatching(book -> id.equals(book.getId()));
+        });
+    }
+
+    /**
+     * Returns the list position of the first book with the given ID.
+     *
+     * @param id the ID to look for
+     * @return the book's position, or -1 if no book has that ID
+     */
+    int indexOfId(String id) {
+        return read(() -> {
+            Integer row = rowsById.get(id);
+            return row == null ? -1 : positionOf(row);
+        });
+    }
+
+    /**
+     * Returns a consistent copy of every book in list order.
+     *
+     * @return a new list holding the books as they were at one instant
+     */
+    List<Book> snapshot() {
+        return readLocked(() -> {
+            List<Book> copy = new ArrayList<>(size);
+            for (int pos = 0; pos < size; pos++) {
+                copy.add(columns.book(positions[pos]));
+            }
+            return copy;
+        });
+    }
+
+    /**
+     * Finds all books whose field contains the given text, ignoring case.
+     * Texts of three or more characters are narrowed with the trigram index,
+     * shorter ones with the token index; only the candidates are checked.
+     *
+     * @param field the field to search
+     * @param text  the text to look for
+     * @return the matching books in the order they were added
+     */
+    List<Book> searchContaining(BookField field, String text) {
+        String needle = text.toLowerCase();
+        return readLocked(() -> booksAt(containingRows(field, needle)));
+    }
+
+    /**
+     * Finds all books whose field contains the given whole word, ignoring case.
+     *
+     * @param field the field to search (title, author or location)
+     * @param word  the word to look for
+     * @return the matching books in the order they were added
+     */
+    List<Book> searchWord(BookField field, String word) {
+        return readLocked(() -> booksAt(tokenIndex.word(field, word)));
+    }
+
+    /**
+     * Finds all books whose field contains a word starting with the given prefix, ignoring case.
+     *
+     * @param field  the field to search (title, author or location)
+     * @param prefix the word prefix to look for
+     * @return the matching books in the order they were added
+     */
+    List<Book> searchWordPrefix(BookField field, String prefix) {
+        return readLocked(() -> booksAt(tokenIndex.wordPrefix(field, prefix)));
+    }
+
+    /**
+     * Runs a query, materializing only the books inside its page window.
+     * The page and the total count come from the same consistent view.
+     *
+     * The rows matching a single-field search are kept in a {@link ResultCache},
+     * so repeating the search, in any letter case, sort order or page window,
+     * skips straight to sorting and materializing the page until a book it
+     * matches is added or removed.
+     *
+     * @param query the query to run
+     * @return the requested page of matches and the total number of matches
+     */
+    BookQueryResult query(BookQuery query) {
+        ResultCache.Key key = ResultCache.key(query);
+        if (key == null) {
+            return uncachedQuery(query);
+        }
+        long version = resultCache.version();
+        int[][] computed = new int[1][];
+        BookQueryResult result = readLocked(() -> {
+            // Looked up under the read lock, so no compaction can renumber the rows while they are used
+            int[] rows = resultCache.get(key);
+            computed[0] = rows == null ? rows = matchingRows(query) : null;
+            return new BookQueryResult(booksAt(window(rows, query)), Math.min(query.getOffset(), rows.length),
+                    rows.length);
+        });
+        resultCache.recordLookup(computed[0] == null);
+        if (computed[0] != null) {
+            resultCache.put(key, computed[0], version);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the hit, miss, eviction and invalidation counts of the search result cache.
+     *
+     * @return the cache statistics
+     */
+    CacheStats cacheStats() {
+        return resultCache.stats();
+    }
+
+    private BookQueryResult uncachedQuery(BookQuery query) {
+        return readLocked(() -> {
+            if (query.getMatch() == BookQuery.Match.ALL && query.getSort() == null) {
+                // Slice the positions directly so a page costs the same whatever the list size
+                int from = Math.min(query.getOffset(), size);
+                int to = from + Math.min(query.getLimit(), size - from);
+                return new BookQueryResult(booksAt(Arrays.copyOfRange(positions, from, to)), from, size);
+            }
+            if (isRanked(query)) {
+                long[] scored = fuzzyRows(query.getField(), lowered(query));
+                return new BookQueryResult(booksAt(rankedWindow(scored, query)),
+                        Math.min(query.getOffset(), scored.length), scored.length);
+            }
+            int[] rows = matchingRows(query);
+            return new BookQueryResult(booksAt(window(rows, query)), Math.min(query.getOffset(), rows.length),
+                    rows.length);
+        });
+    }
+
+    /**
+     * Counts the books per author or location, optionally among the books matching
+     * a filter. Unfiltered counts, and counts filtered by an exact location (for
+     * authors) or an exact author (for locations), are read from running totals in
+     * time proportional to the number of distinct values. Other filters count the
+     * rows they match. The filter's sort order and page window are ignored.
+     *
+     * @param field  the field to group by, author or location
+     * @param filter the books to count, or null for every book
+     * @return each value held by at least one counted book, mapped to its count,
+     *         largest count first and ties in alphabetical order
+     * @throws IllegalArgumentException if field is not author or location
+     */
+    Map<String, Integer> facetCounts(BookField field, BookQuery filter) {
+        if (field != BookField.AUTHOR && field != BookField.LOCATION) {
+            throw new IllegalArgumentException("No facet counts for " + field);
+        }
+        StringDictionary values = dictionary(field);
+        BookField other = field == BookField.AUTHOR ? BookField.LOCATION : BookField.AUTHOR;
+        return readLocked(() -> {
+            int[] counts;
+            if (filter == null || filter.getMatch() == BookQuery.Match.ALL) {
+                counts = facetIndex.counts(field).clone();
+            } else if (filter.getMatch() == BookQuery.Match.EQUALS && filter.getField() == other) {
+                int code = dictionary(other).lookupCode(filter.getText());
+                counts = code < 0 ? new int[0] : facetIndex.countsWhere(field, code).clone();
+            } else {
+                counts = new int[values.size()];
+                for (int row : matchingRows(filter)) {
+                    int code = field == BookField.AUTHOR ? columns.authorCode(row) : columns.locationCode(row);
+                    if (code >= 0) {
+                        if (code >= counts.length) {
+                            counts = Arrays.copyOf(counts, code + 1);
+                        }
+                        counts[code]++;
+                    }
+                }
+            }
+            return sortedCounts(values, counts);
+        });
+    }
+
+    private static Map<String, Integer> sortedCounts(StringDictionary values, int[] counts) {
+        List<Integer> codes = new ArrayList<>();
+        for (int code = 0; code < counts.length; code++) {
+            if (counts[code] > 0) {
+                codes.add(code);
+            }
+        }
+        codes.sort(Comparator.comparingInt((Integer code) -> -counts[code])
+                .thenComparing(code -> values.value(code), TEXT_ORDER));
+        Map<String, Integer> sorted = new LinkedHashMap<>();
+        for (int code : codes) {
+            sorted.put(values.value(code), counts[code]);
+        }
+        return sorted;
+    }
+
+    private static boolean isRanked(BookQuery query) {
+        return query.getMatch() == BookQuery.Match.FUZZY && query.getSort() == null;
+    }
+
+    /**
+     * Picks the fuzzy matches inside a query's page window, closest first.
+     */
+    private static int[] rankedWindow(long[] scored, BookQuery query) {
+        int from = Math.min(query.getOffset(), scored.length);
+        int to = from + Math.min(query.getLimit(), scored.length - from);
+        int[] indexes = new int[scored.length];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = i;
+        }
+        int[] closest = TopRows.select(indexes, to, (a, b) -> {
+            int order = Integer.compare(edits(scored[a]), edits(scored[b]));
+            return order != 0 ? order : Long.compare(scored[a], scored[b]);
+        });
+        int[] rows = new int[to - from];
+        for (int i = from; i < to; i++) {
+            rows[i - from] = scoredRow(scored[closest[i]]);
+        }
+        return rows;
+    }
+
+    /**
+     * Finds the rows whose field fuzzily matches every word of the text, each
+     * scored by its total number of edits. Indexed fields look up the words
+     * near each query word in the token index's BK-tree and then merge their
+     * posting lists, so no edit distance is computed per book.
+     *
+     * @return the matches in ascending row order, each packed as row (high half) and edits (low half)
+     */
+    private long[] fuzzyRows(BookField field, String lowered) {
+        Set<String> words = TokenIndex.tokenize(lowered);
+        if (words.isEmpty()) {
+            return new long[0];
+        }
+        if (!tokenIndex.covers(field)) {
+            long[] scored = new long[size];
+            int count = 0;
+            for (int pos = 0; pos < size; pos++) {
+                int row = positions[pos];
+                int edits = fuzzyEdits(columns.value(field, row), words);
+                if (edits >= 0) {
+                    scored[count++] = scored(row, edits);
+                }
+            }
+            scored = Arrays.copyOf(scored, count);
+            Arrays.sort(scored);
+            return scored;
+        }
+        long[] result = null;
+        for (String word : words) {
+            long[] matches = closestPerRow(field, tokenIndex.similarWords(field, word, BookQuery.maxEdits(word)));
+            result = result == null ? matches : intersectScored(result, matches);
+            if (result.length == 0) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Scores every row holding one of the similar words by the closest of them.
+     */
+    private long[] closestPerRow(BookField field, Map<String, Integer> similar) {
+        long[] scored = new long[0];
+        int count = 0;
+        for (Map.Entry<String, Integer> entry : similar.entrySet()) {
+            int[] rows = tokenIndex.word(field, entry.getKey());
+            scored = Arrays.copyOf(scored, count + rows.length);
+            for (int row : rows) {
+                scored[count++] = scored(row, entry.getValue());
+            }
+        }
+        Arrays.sort(scored);
+        // The lowest score of each row sorts first; keep only that one
+        int kept = 0;
+        for (int j = 0; j < count; j++) {
+            if (kept == 0 || scoredRow(scored[kept - 1]) != scoredRow(scored[j])) {
+                scored[kept++] = scored[j];
+            }
+        }
+        return Arrays.copyOf(scored, kept);
+    }
+
+    private static long[] intersectScored(long[] a, long[] b) {
+        long[] both = new long[Math.min(a.length, b.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            int rowA = scoredRow(a[i]);
+            int rowB = scoredRow(b[j]);
+            if (rowA < rowB) {
+                i++;
+            } else if (rowA > rowB) {
+                j++;
+            } else {
+                both[count++] = scored(rowA, edits(a[i++]) + edits(b[j++]));
+            }
+        }
+        return Arrays.copyOf(both, count);
+    }
+
+    /**
+     * Returns the total edits needed to match every word against some word of the
+     * value, or -1 if a word is too far from all of them.
+     */
+    private static int fuzzyEdits(String value, Set<String> words) {
+        Set<String> tokens = TokenIndex.tokenize(value);
+        int total = 0;
+        for (String word : words) {
+            int best = -1;
+            for (String token : tokens) {
+                int edits = BkTree.distance(word, token);
+                if (edits <= BookQuery.maxEdits(word) && (best < 0 || edits < best)) {
+                    best = edits;
+                }
+            }
+            if (best < 0) {
+                return -1;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    private static long scored(int row, int edits) {
+        return (long) row << 32 | edits;
+    }
+
+    private static int scoredRow(long scored) {
+        return (int) (scored >>> 32);
+    }
+
+    private static int edits(long scored) {
+        return (int) scored;
+    }
+
+    /**
+     * Picks the matching rows inside a query's page window. A sorted query keeps
+     * only the first {@code offset + limit} rows in a bounded heap instead of
+     * sorting every match.
+     */
+    private int[] window(int[] rows, BookQuery query) {
+        int from = Math.min(query.getOffset(), rows.length);
+        int to = from + Math.min(query.getLimit(), rows.length - from);
+        if (query.getSort() != null) {
+            rows = TopRows.select(rows, to, rowOrder(query.getSort()));
+        }
+        return Arrays.copyOfRange(rows, from, to);
+    }
+
+    /**
+     * Orders rows by a field, breaking ties by row so books with equal values
+     * keep the order they were added in. Authors and locations are ranked once
+     * per query through the dictionary, so comparing two rows is an int compare.
+     */
+    private TopRows.RowOrder rowOrder(BookField field) {
+        TopRows.RowOrder byValue = switch (field) {
+            case ID -> (a, b) -> compareIds(columns.id(a), columns.id(b));
+            case TITLE -> (a, b) -> TEXT_ORDER.compare(columns.title(a), columns.title(b));
+            case AUTHOR -> {
+                int[] ranks = columns.authors().ranks(TEXT_ORDER);
+                yield (a, b) -> Integer.compare(rank(ranks, columns.authorCode(a)), rank(ranks, columns.authorCode(b)));
+            }
+            case LOCATION -> {
+                int[] ranks = columns.locations().ranks(TEXT_ORDER);
+                yield (a, b) -> Integer.compare(rank(ranks, columns.locationCode(a)),
+                        rank(ranks, columns.locationCode(b)));
+            }
+        };
+        return (a, b) -> {
+            int order = byValue.compare(a, b);
+            return order != 0 ? order : Integer.compare(a, b);
+        };
+    }
+
+    private static int rank(int[] ranks, int code) {
+        return code >= 0 && code < ranks.length ? ranks[code] : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Numeric IDs first in numeric order, then the rest in text order, then nulls.
+     */
+    private static int compareIds(String a, String b) {
+        long x = numericId(a);
+        long y = numericId(b);
+        if (x >= 0 && y >= 0) {
+            return Long.compare(x, y);
+        }
+        if (x >= 0 || y >= 0) {
+            return x >= 0 ? -1 : 1;
+        }
+        return ID_ORDER.compare(a, b);
+    }
+
+    /**
+     * Returns the rows matching a query. Leaf queries use an index where one applies.
+     * Compound queries are planned from index-based estimates: an AND resolves only
+     * its most selective operand and checks the others on the surviving candidates;
+     * an OR unions the rows of its operands, unless one of them would need a full
+     * scan anyway, in which case the whole OR is checked in a single pass.
+     */
+    private int[] matchingRows(BookQuery query) {
+        BookField field = query.getField();
+        String lowered = lowered(query);
+        return switch (query.getMatch()) {
+            case ALL -> Arrays.copyOf(positions, size);
+            case EQUALS -> equalRows(field, query.getText());
+            case CONTAINS -> containingRows(field, lowered);
+            case WORD -> tokenIndex.covers(field) ? tokenIndex.word(field, lowered) : scan(compile(query));
+            case WORD_PREFIX -> tokenIndex.covers(field) ? tokenIndex.wordPrefix(field, lowered) : scan(compile(query));
+            case FUZZY -> {
+                long[] scored = fuzzyRows(field, lowered);
+                int[] rows = new int[scored.length];
+                for (int i = 0; i < rows.length; i++) {
+                    rows[i] = scoredRow(scored[i]);
+                }
+                yield rows;
+            }
+            case AND -> andRows(query.getOperands());
+            case OR -> estimate(query) < size ? orRows(query.getOperands()) : scan(compile(query));
+        };
+    }
+
+    private int[] andRows(List<BookQuery> operands) {
+        BookQuery driver = operands.get(0);
+        int best = estimate(driver);
+        for (BookQuery operand : operands) {
+            int estimate = estimate(operand);
+            if (estimate < best) {
+                driver = operand;
+                best = estimate;
+            }
+        }
+        int[] rows = matchingRows(driver);
+        List<IntPredicate> filters = new ArrayList<>();
+        for (BookQuery operand : operands) {
+            if (operand != driver) {
+                filters.add(compile(operand));
+            }
+        }
+        int count = 0;
+        for (int row : rows) {
+            if (allMatch(filters, row)) {
+                rows[count++] = row;
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    private int[] orRows(List<BookQuery> operands) {
+        List<int[]> parts = new ArrayList<>(operands.size());
+        for (BookQuery operand : operands) {
+            parts.add(matchingRows(operand));
+        }
+        return PostingList.unionRows(parts);
+    }
+
+    /**
+     * Estimates from the indexes how many rows a query matches, without
+     * resolving it. Predicates no index can narrow are estimated at the list
+     * size, since they need a full scan.
+     */
+    private int estimate(BookQuery query) {
+        BookField field = query.getField();
+        String lowered = lowered(query);
+        long estimate = switch (query.getMatch()) {
+            case ALL -> size;
+            case EQUALS -> estimateEquals(field, query.getText(), lowered);
+            case CONTAINS -> {
+                if (trigramIndex.canNarrow(field, lowered)) {
+                    yield trigramIndex.estimate(field, lowered);
+                }
+                int tokens = tokenIndex.covers(field) ? tokenIndex.estimate(field, lowered) : -1;
+                yield tokens < 0 ? size : tokens;
+            }
+            case WORD -> tokenIndex.covers(field) ? tokenIndex.count(field, lowered) : size;
+            case WORD_PREFIX -> tokenIndex.covers(field) ? tokenIndex.prefixCount(field, lowered) : size;
+            case FUZZY -> tokenIndex.covers(field) ? estimateFuzzy(field, lowered) : size;
+            case AND -> {
+                long smallest = size;
+                for (BookQuery operand : query.getOperands()) {
+                    smallest = Math.min(smallest, estimate(operand));
+                }
+                yield smallest;
+            }
+            case OR -> {
+                long total = 0;
+                for (BookQuery operand : query.getOperands()) {
+                    total += estimate(operand);
+                }
+                yield total;
+            }
+        };
+        return (int) Math.min(estimate, size);
+    }
+
+    /**
+     * Bounds a fuzzy match by the rows holding any word near its rarest word.
+     */
+    private long estimateFuzzy(BookField field, String lowered) {
+        long fewest = Long.MAX_VALUE;
+        for (String word : TokenIndex.tokenize(lowered)) {
+            long rows = 0;
+            for (String similar : tokenIndex.similarWords(field, word, BookQuery.maxEdits(word)).keySet()) {
+                rows += tokenIndex.count(field, similar);
+            }
+            fewest = Math.min(fewest, rows);
+        }
+        return fewest == Long.MAX_VALUE ? 0 : fewest; // A text without words matches nothing
+    }
+
+    private int estimateEquals(BookField field, String value, String lowered) {
+        if (field == BookField.ID && !hasDuplicateIds()) {
+            return rowsById.containsKey(value) ? 1 : 0;
+        }
+        if ((field == BookField.AUTHOR || field == BookField.LOCATION) && dictionary(field).lookupCode(value) < 0) {
+            return 0; // No book holds this value
+        }
+        String token = rarestToken(field, lowered);
+        return token == null ? size : tokenIndex.count(field, token);
+    }
+
+    /**
+     * Returns the word of the value that occurs in the fewest rows of the field,
+     * or null if the field has no token index or the value has no words.
+     */
+    private String rarestToken(BookField field, String lowered) {
+        if (!tokenIndex.covers(field)) {
+            return null;
+        }
+        String rarest = null;
+        int fewest = Integer.MAX_VALUE;
+        for (String token : TokenIndex.tokenize(lowered)) {
+            int count = tokenIndex.count(field, token);
+            if (count < fewest) {
+                rarest = token;
+                fewest = count;
+            }
+        }
+        return rarest;
+    }
+
+    /**
+     * Compiles a query into a test on a single row, for checking candidates that
+     * another predicate has already narrowed down.
+     */
+    private IntPredicate compile(BookQuery query) {
+        BookField field = query.getField();
+        String lowered = lowered(query);
+        return switch (query.getMatch()) {
+            case ALL -> row -> true;
+            case EQUALS -> {
+                String value = query.getText();
+                if (field == BookField.AUTHOR || field == BookField.LOCATION) {
+                    // Equal Strings share one dictionary code, so compare codes
+                    int code = dictionary(field).lookupCode(value);
+                    yield field == BookField.AUTHOR
+                            ? row -> code >= 0 && columns.authorCode(row) == code
+                            : row -> code >= 0 && columns.locationCode(row) == code;
+                }
+                yield row -> value.equals(columns.value(field, row));
+            }
+            case CONTAINS -> valueMatcher(field, value -> containsIgnoreCase(value, lowered));
+            case WORD -> valueMatcher(field, value -> TokenIndex.tokenize(value).contains(lowered));
+            case WORD_PREFIX -> valueMatcher(field,
+                    value -> TokenIndex.tokenize(value).stream().anyMatch(token -> token.startsWith(lowered)));
+            case FUZZY -> {
+                Set<String> words = TokenIndex.tokenize(lowered);
+                yield valueMatcher(field, value -> !words.isEmpty() && fuzzyEdits(value, words) >= 0);
+            }
+            case AND, OR -> {
+                List<IntPredicate> parts = new ArrayList<>();
+                for (BookQuery operand : query.getOperands()) {
+                    parts.add(compile(operand));
+                }
+                yield query.getMatch() == BookQuery.Match.AND
+                        ? row -> allMatch(parts, row)
+                        : row -> parts.stream().anyMatch(part -> part.test(row));
+            }
+        };
+    }
+
+    /**
+     * Applies a test to a field's value. Authors and locations are tested once per
+     * distinct dictionary value, leaving an integer comparison per row.
+     */
+    private IntPredicate valueMatcher(BookField field, Predicate<String> test) {
+        return switch (field) {
+            case AUTHOR -> {
+                BitSet codes = columns.authors().matchingCodes(test);
+                yield row -> codeMatches(codes, columns.authorCode(row));
+            }
+            case LOCATION -> {
+                BitSet codes = columns.locations().matchingCodes(test);
+                yield row -> codeMatches(codes, columns.locationCode(row));
+            }
+            default -> row -> test.test(columns.value(field, row));
+        };
+    }
+
+    /**
+     * Returns the dictionary of an author or location column.
+     */
+    private StringDictionary dictionary(BookField field) {
+        return field == BookField.AUTHOR ? columns.authors() : columns.locations();
+    }
+
+    private static boolean allMatch(List<IntPredicate> filters, int row) {
+        for (IntPredicate filter : filters) {
+            if (!filter.test(row)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the rows, in list order, that pass the filter.
+     */
+    private int[] scan(IntPredicate filter) {
+        int[] rows = new int[size];
+        int count = 0;
+        for (int pos = 0; pos < size; pos++) {
+            int row = positions[pos];
+            if (filter.test(row)) {
+                rows[count++] = row;
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    private static String lowered(BookQuery query) {
+        return query.getText() == null ? null : query.getText().toLowerCase();
+    }
+
+    /**
+     * Finds the rows whose field equals the value exactly. IDs use the primary-key
+     * index. Other indexed fields are narrowed to the rows containing the value's
+     * rarest word before the exact comparison.
+     */
+    private int[] equalRows(BookField field, String value) {
+        if (field == BookField.ID && !hasDuplicateIds()) {
+            Integer row = rowsById.get(value);
+            return row == null ? new int[0] : new int[]{row};
+        }
+        IntPredicate filter = compile(BookQuery.equalTo(field, value));
+        String token = rarestToken(field, value.toLowerCase());
+        if (token == null) {
+            return scan(filter);
+        }
+        int[] rows = tokenIndex.word(field, token);
+        int count = 0;
+        for (int row : rows) {
+            if (filter.test(row)) {
+                rows[count++] = row;
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    /**
+     * Finds the rows whose field contains the lowercased needle, narrowing with
+     * an index where one applies and checking each candidate exactly.
+     */
+    private int[] containingRows(BookField field, String needle) {
+        int[] candidates = null;
+        if (trigramIndex.canNarrow(field, needle)) {
+            candidates = trigramIndex.candidates(field, needle);
+        } else if (tokenIndex.covers(field)) {
+            candidates = tokenIndex.candidates(field, needle);
+        }
+        if (candidates == null) {
+            return scanContaining(field, needle);
+        }
+        int count = 0;
+        for (int row : candidates) {
+            if (!columns.isDeleted(row) && containsIgnoreCase(columns.value(field, row), needle)) {
+                candidates[count++] = row;
+            }
+        }
+        return Arrays.copyOf(candidates, count);
+    }
+
+    @Override
+    public Book get(int index) {
+        return read(() -> columns.book(positions[checkIndex(index)]));
+    }
+
+    @Override
+    public int size() {
+        return read(() -> size);
+    }
+
+    /**
+     * Returns a weakly consistent iterator that reads the list in batches.
+     * It does not support {@code remove()}; use {@link #removeIf} instead.
+     */
+    @Override
+    public Iterator<Book> iterator() {
+        return new Iterator<>() {
+            private List<Book> batch = List.of();
+            private int batchIndex;
+            private int nextPosition;
+            private boolean exhausted;
+
+            @Override
+            public boolean hasNext() {
+                if (batchIndex < batch.size()) {
+                    return true;
+                }
+                if (exhausted) {
+                    return false;
+                }
+                int from = nextPosition;
+                batch = read(() -> {
+                    List<Book> books = new ArrayList<>(ITERATOR_BATCH_SIZE);
+                    for (int pos = from; pos < size && books.size() < ITERATOR_BATCH_SIZE; pos++) {
+                        books.add(columns.book(positions[pos]));
+                    }
+                    return books;
+                });
+                batchIndex = 0;
+                nextPosition += batch.size();
+                exhausted = batch.size() < ITERATOR_BATCH_SIZE;
+                return !batch.isEmpty();
+            }
+
+            @Override
+            public Book next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return batch.get(batchIndex++);
+            }
+        };
+    }
+
+    @Override
+    public Spliterator<Book> spliterator() {
+        return Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED | Spliterator.NONNULL);
+    }
+
+    @Override
+    public Object[] toArray() {
+        return snapshot().toArray();
+    }
+
+    @Override
+    public <T> T[] toArray(T[] a) {
+        return snapshot().toArray(a);
+    }
+
+    @Override
+    public void add(int index, Book book) {
+        write(() -> {
+            if (index < 0 || index > size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            ensurePositions(size + 1);
+            System.arraycopy(positions, index, positions, index + 1, size - index);
+            positions[index] = append(book);
+            positionsSorted &= index == size;
+            size++;
+            modCount++;
+            return null;
+        });
+    }
+
+    /**
+     * Stores the books in consecutive rows and hands them to each index as one batch.
+     */
+    @Override
+    public boolean addAll(Collection<? extends Book> c) {
+        List<Book> added = new ArrayList<>(c); // Copy first in case c is this list
+        return write(() -> {
+            ensurePositions(size + added.size());
+            columns.ensureCapacity(columns.rowCount() + added.size());
+            int firstRow = columns.rowCount();
+            for (Book book : added) {
+                positions[size++] = store(book);
+            }
+            for (BookIndex index : indexes) {
+                index.addAll(firstRow, added);
+            }
+            modCount++;
+            return !added.isEmpty();
+        });
+    }
+
+    @Override
+    public Book set(int index, Book book) {
+        return write(() -> {
+            int oldRow = positions[checkIndex(index)];
+            Book old = columns.book(oldRow);
+            delete(oldRow);
+            positions[index] = append(book);
+            positionsSorted &= size == 1;
+            return old;
+        });
+    }
+
+    @Override
+    public Book remove(int index) {
+        return write(() -> removeAt(index));
+    }
+
+    private Book removeAt(int index) {
+        int row = positions[checkIndex(index)];
+        Book old = columns.book(row);
+        System.arraycopy(positions, index + 1, positions, index, size - index - 1);
+        size--;
+        modCount++;
+        delete(row);
+        return old;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return write(() -> {
+            for (int pos = 0; pos < size; pos++) {
+                if (columns.book(positions[pos]).equals(o)) {
+                    removeAt(pos);
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        return removeIf(c::contains);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        return removeIf(book -> !c.contains(book));
+    }
+
+    /**
+     * Removes every matching book in a single pass over the list.
+     */
+    @Override
+    public boolean removeIf(Predicate<? super Book> filter) {
+        return write(() -> removeMatching(filter));
+    }
+
+    private boolean removeMatching(Predicate<? super Book> filter) {
+        BitSet rows = new BitSet();
+        for (int pos = 0; pos < size; pos++) {
+            int row = positions[pos];
+            if (filter.test(columns.book(row))) {
+                rows.set(row);
+            }
+        }
+        return !removeRows(rows).isEmpty();
+    }
+
+    /**
+     * Removes every book matched by a query, honouring its sort order and page window.
+     *
+     * @param query the query selecting the books to remove
+     * @return the IDs of the removed books, in list order
+     */
+    List<String> removeAll(BookQuery query) {
+        return write(() -> {
+            int[] page = isRanked(query)
+                    ? rankedWindow(fuzzyRows(query.getField(), lowered(query)), query)
+                    : window(matchingRows(query), query);
+            BitSet selected = new BitSet();
+            for (int row : page) {
+                selected.set(row);
+            }
+            return removeRows(selected);
+        });
+    }
+
+    /**
+     * Removes every book whose ID is in the given collection.
+     *
+     * @param ids the IDs to remove
+     * @return the IDs of the removed books, in list order
+     */
+    List<String> removeIds(Collection<String> ids) {
+        return write(() -> {
+            if (hasDuplicateIds()) {
+                Set<String> wanted = new HashSet<>(ids);
+                BitSet selected = new BitSet();
+                for (int pos = 0; pos < size; pos++) {
+                    if (wanted.contains(columns.id(positions[pos]))) {
+                        selected.set(positions[pos]);
+                    }
+                }
+                return removeRows(selected);
+            }
+            BitSet selected = new BitSet();
+            for (String id : ids) {
+                Integer row = rowsById.get(id);
+                if (row != null) {
+                    selected.set(row);
+                }
+            }
+            return removeRows(selected);
+        });
+    }
+
+    /**
+     * Removes every book whose numeric ID lies in the given inclusive range.
+     * Books with non-numeric IDs are never removed.
+     *
+     * @param fromId the lowest ID to remove
+     * @param toId   the highest ID to remove
+     * @return the IDs of the removed books, in list order
+     */
+    List<String> removeIdRange(int fromId, int toId) {
+        return write(() -> {
+            BitSet selected = new BitSet();
+            for (int pos = 0; pos < size; pos++) {
+                int row = positions[pos];
+                long id = numericId(columns.id(row));
+                if (id >= fromId && id <= toId) {
+                    selected.set(row);
+                }
+            }
+            return removeRows(selected);
+        });
+    }
+
+    /**
+     * Drops the selected rows in a single pass over the positions and tombstones
+     * them, then each index drops all the rows in one pass of its own. A bulk
+     * removal costs time linear in the list, not in the list times the rows removed.
+     */
+    private List<String> removeRows(BitSet rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        boolean duplicateIds = hasDuplicateIds();
+        List<String> removedIds = new ArrayList<>(rows.cardinality());
+        int kept = 0;
+        for (int pos = 0; pos < size; pos++) {
+            int row = positions[pos];
+            if (rows.get(row)) {
+                removedIds.add(columns.id(row));
+            } else {
+                positions[kept++] = row;
+            }
+        }
+        size = kept;
+        modCount++;
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            columns.delete(row);
+            String id = columns.id(row);
+            if (id != null && Integer.valueOf(row).equals(rowsById.get(id))) {
+                rowsById.remove(id);
+            }
+        }
+        if (duplicateIds) {
+            // Hand each freed ID to the first remaining book in list order that has it
+            for (int pos = 0; pos < size; pos++) {
+                String id = columns.id(positions[pos]);
+                if (id != null) {
+                    rowsById.putIfAbsent(id, positions[pos]);
+                }
+            }
+        }
+        for (BookIndex index : indexes) {
+            index.removeAll(rows, columns::book);
+        }
+        return removedIds;
+    }
+
+    /**
+     * Parses a decimal ID without allocating, returning -1 for anything that is not
+     * a non-negative int.
+     */
+    private static long numericId(String id) {
+        if (id == null || id.isEmpty() || id.length() > 10) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value <= Integer.MAX_VALUE ? value : -1;
+    }
+
+    @Override
+    public void clear() {
+        write(() -> {
+            columns.clear();
+            size = 0;
+            positionsSorted = true;
+            rowsById.clear();
+            idAllocator.reset();
+            for (BookIndex index : indexes) {
+                index.clear();
+            }
+            modCount++;
+            return null;
+        });
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        write(() -> {
+            BitSet rows = new BitSet();
+            for (int pos = fromIndex; pos < toIndex; pos++) {
+                rows.set(positions[pos]);
+            }
+            removeRows(rows);
+            return null;
+        });
+    }
+
+    /**
+     * Runs a read without locking, validating afterwards that no write overlapped it.
+     * A read that overlapped a write may have seen half-updated arrays and thrown;
+     * that exception is discarded and the read retried. After a few failed attempts
+     * the read runs under the shared read lock instead.
+     */
+    private <T> T read(Supplier<T> reader) {
+        for (int attempt = 0; attempt < OPTIMISTIC_READ_ATTEMPTS; attempt++) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp == 0) {
+                Thread.onSpinWait(); // A write is in progress
+                continue;
+            }
+            try {
+                T result = reader.get();
+                if (lock.validate(stamp)) {
+                    return result;
+                }
+            } catch (RuntimeException e) {
+                if (lock.validate(stamp)) {
+                    throw e; // Not caused by a concurrent write
+                }
+            }
+        }
+        long stamp = lock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Runs a read under the shared read lock, so it runs exactly once and sees no
+     * concurrent write. Used for reads too costly to redo, or with side effects.
+     */
+    private <T> T readLocked(Supplier<T> reader) {
+        long stamp = lock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Runs a write under the exclusive lock. If the write left the store sparse,
+     * the calling thread compacts it after releasing the lock.
+     */
+    private <T> T write(Supplier<T> writer) {
+        T result;
+        boolean sparse;
+        long stamp = lock.writeLock();
+        try {
+            writes++;
+            result = writer.get();
+            sparse = isSparse();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        if (sparse) {
+            compactIfSparse();
+        }
+        return result;
+    }
+
+    /**
+     * Full scan used when no index can narrow the search.
+     */
+    private int[] scanContaining(BookField field, String needle) {
+        return scan(valueMatcher(field, value -> containsIgnoreCase(value, needle)));
+    }
+
+    private static boolean codeMatches(BitSet codes, int code) {
+        return code >= 0 && codes.get(code);
+    }
+
+    private List<Book> booksAt(int[] candidates) {
+        List<Book> result = new ArrayList<>(candidates.length);
+        for (int row : candidates) {
+            if (!columns.isDeleted(row)) {
+                result.add(columns.book(row));
+            }
+        }
+        return result;
+    }
+
+    private static boolean containsIgnoreCase(String value, String needle) {
+        return value != null && value.toLowerCase().contains(needle);
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return index;
+    }
+
+    private void ensurePositions(int capacity) {
+        if (capacity > positions.length) {
+            positions = Arrays.copyOf(positions, Math.max(capacity, positions.length + (positions.length >> 1)));
+        }
+    }
+
+    /**
+     * Finds the position holding a row. Positions are binary searched while
+     * rows still ascend with position, and scanned otherwise.
+     */
+    private int positionOf(int row) {
+        if (positionsSorted) {
+            int pos = Arrays.binarySearch(positions, 0, size, row);
+            return pos < 0 ? -1 : pos;
+        }
+        for (int pos = 0; pos < size; pos++) {
+            if (positions[pos] == row) {
+                return pos;
+            }
+        }
+        return -1;
+    }
+
+    private boolean hasDuplicateIds() {
+        return rowsById.size() < size;
+    }
+
+    /**
+     * Stores a book in a new row and adds it to every index.
+     */
+    private int append(Book book) {
+        int row = store(book);
+        for (BookIndex index : indexes) {
+            index.add(row, book);
+        }
+        return row;
+    }
+
+    /**
+     * Stores a book in a new row and maps its ID, leaving the indexes to the caller.
+     */
+    private int store(Book book) {
+        int row = columns.append(book);
+        idAllocator.observe(book.getId());
+        if (book.getId() != null) {
+            rowsById.putIfAbsent(book.getId(), row);
+        }
+        return row;
+    }
+
+    /**
+     * Tombstones a row that is no longer in the list and drops it from every index.
+     */
+    private void delete(int row) {
+        Book book = columns.book(row);
+        columns.delete(row);
+        for (BookIndex index : indexes) {
+            index.remove(row, book);
+        }
+
+        String id = book.getId();
+        if (id == null || !Integer.valueOf(row).equals(rowsById.get(id))) {
+            return;
+        }
+        rowsById.remove(id);
+
+        // Only possible when duplicate IDs exist: hand the slot to the next one in list order
+        if (rowsById.size() < size) {
+            for (int pos = 0; pos < size; pos++) {
+                int other = positions[pos];
+                if (!columns.isDeleted(other) && id.equals(columns.id(other))) {
+                    rowsById.put(id, other);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Tells whether a compaction is rebuilding a copy of the store right now.
+     *
+     * @return true while a compaction is in progress
+     */
+    boolean isCompacting() {
+        return compacting.get();
+    }
+
+    private static TokenIndex newTokenIndex() {
+        return new TokenIndex(BookField.TITLE, BookField.AUTHOR, BookField.LOCATION);
+    }
+
+    private static TrigramIndex newTrigramIndex() {
+        return new TrigramIndex(BookField.TITLE, BookField.AUTHOR, BookField.LOCATION);
+    }
+
+    private boolean isSparse() {
+        int tombstones = columns.deletedCount();
+        return tombstones >= MIN_TOMBSTONES_TO_COMPACT && tombstones * 2 >= columns.rowCount();
+    }
+
+    /**
+     * Squeezes tombstones out of the column store once they make up most of it.
+     * Row numbers change, so the ID map and every index are rebuilt.
+     *
+     * The store is copied under the shared read lock, and the copy is compacted and
+     * indexed with no lock held, so searches keep running throughout. The write lock
+     * is only taken to swap the rebuilt structures in. A write that lands in the
+     * meantime makes the copy stale; it is then thrown away and the compaction
+     * retried a few times, after which it is left to the next write.
+     */
+    private void compactIfSparse() {
+        if (!compacting.compareAndSet(false, true)) {
+            return; // Another thread is already compacting
+        }
+        try {
+            for (int attempt = 0; attempt < COMPACTION_ATTEMPTS; attempt++) {
+                BookColumns compacted;
+                int[] rows;
+                int count;
+                long copiedAt;
+                long stamp = lock.readLock();
+                try {
+                    if (!isSparse()) {
+                        return;
+                    }
+                    compacted = columns.copy();
+                    rows = Arrays.copyOf(positions, Math.max(size, 16));
+                    count = size;
+                    copiedAt = writes;
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+
+                int[] remap = compacted.compact();
+                Map<String, Integer> ids = new ConcurrentHashMap<>();
+                for (int pos = 0; pos < count; pos++) {
+                    rows[pos] = remap[rows[pos]];
+                    String id = compacted.id(rows[pos]);
+                    if (id != null) {
+                        ids.putIfAbsent(id, rows[pos]);
+                    }
+                }
+                TokenIndex tokens = newTokenIndex();
+                TrigramIndex trigrams = newTrigramIndex();
+                FacetIndex facets = new FacetIndex(compacted);
+                List<BookIndex> rebuilt = List.of(tokens, trigrams, facets);
+                for (int row = 0; row < compacted.rowCount(); row++) {
+                    Book book = compacted.book(row);
+                    for (BookIndex index : rebuilt) {
+                        index.add(row, book);
+                    }
+                }
+
+                stamp = lock.writeLock();
+                try {
+                    if (writes != copiedAt) {
+                        continue; // The copy missed a write
+                    }
+                    columns = compacted;
+                    positions = rows;
+                    rowsById = ids;
+                    tokenIndex = tokens;
+                    trigramIndex = trigrams;
+                    facetIndex = facets;
+                    indexes = List.of(tokens, trigrams, facets, resultCache);
+                    resultCache.clear(); // Cached rows refer to the old row numbers
+                    return;
+                } finally {
+                    lock.unlockWrite(stamp);
+                }
+            }
+        } finally {
+            compacting.set(false);
+        }
+    }
+}
@@ -0,0 +1,426 @@
+package org.example;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Built-in counters, latency histograms and allocation counts for the inventory's hot paths.
+ *
+ * Each {@link Operation} has a fixed set of lock-free recorders: a log-linear
+ * latency histogram good to about 12%, which also gives the call count, the total
+ * and maximum latency, and the bytes the calling thread allocated. The latency
+ * recorders are striped, about one stripe per core: a thread records into the
+ * stripe its ID hashes to, and the stripes are merged when the numbers are read,
+ * so threads on different cores rarely write the same counters. Recording a call
+ * costs two clock reads and two atomic adds on the thread's stripe, and never
+ * allocates, so it is safe to leave on in production. Reading the thread's
+ * allocation counter costs about as much as a clock read, so allocations are
+ * only measured on a random sample of one call in {@value #ALLOCATION_SAMPLE_RATE}.
+ * Starting the JVM with {@code -Dbookstore.metrics=false} turns recording off
+ * altogether; the wrapped actions then run directly.
+ *
+ * The numbers can be read with {@link #report()} (the console's "stats" command),
+ * over JMX once {@link #registerMBean()} has run, and from a file refreshed by
+ * {@link #startDumping(Path, Duration)}.
+ */
+final class BookMetrics {
+
+    /**
+     * The instrumented operations.
+     */
+    enum Operation {
+        LOAD_CSV("load csv"),
+        LOAD_SNAPSHOT("load snapshot"),
+        SAVE("save"),
+        ADD("add"),
+        REMOVE("remove"),
+        FIND_BY_ID("find by id"),
+        SEARCH_ALL("search all"),
+        SEARCH_EQUALS("search equals"),
+        SEARCH_CONTAINS("search contains"),
+        SEARCH_WORD("search word"),
+        SEARCH_WORD_PREFIX("search prefix"),
+        SEARCH_FUZZY("search fuzzy"),
+        SEARCH_COMPOUND("search and/or");
+
+        private final String label;
+
+        Operation(String label) {
+            this.label = label;
+        }
+
+        String label() {
+            return label;
+        }
+
+        /**
+         * Returns the operation that records a query of the given kind.
+         *
+         * @param match the kind of query
+         * @return the search operation
+         */
+        static Operation search(BookQuery.Match match) {
+            return switch (match) {
+                case ALL -> SEARCH_ALL;
+                case EQUALS -> SEARCH_EQUALS;
+                case CONTAINS -> SEARCH_CONTAINS;
+                case WORD -> SEARCH_WORD;
+                case WORD_PREFIX -> SEARCH_WORD_PREFIX;
+                case FUZZY -> SEARCH_FUZZY;
+                case AND, OR -> SEARCH_COMPOUND;
+            };
+        }
+    }
+
+    // Latencies below 16ns get a bucket each; above that, 8 buckets per power of two
+    private static final int LINEAR_BUCKETS = 16;
+    private static final int SUB_BUCKETS = 8;
+    private static final int BUCKETS = LINEAR_BUCKETS + (63 - 4) * SUB_BUCKETS;
+    private static final int TOTAL_SLOT = BUCKETS; // Stripe slot holding the total latency
+    private static final int MAX_SLOT = BUCKETS + 1; // Stripe slot holding the largest latency
+    private static final int STRIPES = stripeCount(Runtime.getRuntime().availableProcessors());
+    private static final int ALLOCATION_SAMPLE_RATE = 16;
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("bookstore.metrics", "true"));
+
+    private static final com.sun.management.ThreadMXBean THREADS = allocationCounter();
+    private static final Map<Operation, Recorder> RECORDERS = new EnumMap<>(Operation.class);
+
+    static {
+        for (Operation operation : Operation.values()) {
+            RECORDERS.put(operation, new Recorder());
+        }
+    }
+
+    private static final class Recorder {
+        // Per stripe: the histogram buckets, then the total and the largest latency
+        final AtomicLongArray[] stripes = new AtomicLongArray[STRIPES];
+        final LongAdder allocatedBytes = new LongAdder();
+        final LongAdder allocationSamples = new LongAdder();
+
+        Recorder() {
+            for (int i = 0; i < STRIPES; i++) {
+                stripes[i] = new AtomicLongArray(BUCKETS + 2);
+            }
+        }
+
+        void record(long nanos) {
+            AtomicLongArray stripe = stripes[stripe()];
+            stripe.incrementAndGet(bucket(nanos));
+            stripe.addAndGet(TOTAL_SLOT, nanos);
+            long max = stripe.get(MAX_SLOT);
+            while (nanos > max && !stripe.compareAndSet(MAX_SLOT, max, nanos)) {
+                max = stripe.get(MAX_SLOT);
+            }
+        }
+
+        void reset() {
+            allocatedBytes.reset();
+            allocationSamples.reset();
+            for (AtomicLongArray stripe : stripes) {
+                for (int i = 0; i < stripe.length(); i++) {
+                    stripe.set(i, 0);
+                }
+            }
+        }
+    }
+
+    private static ScheduledExecutorService dumper;
+
+    private BookMetrics() {
+    }
+
+    /**
+     * Runs an action and records how long it took and how much it allocated.
+     *
+     * @param operation the operation to record under
+     * @param action    the action to run
+     * @return the action's result
+     */
+    static <T> T call(Operation operation, Supplier<T> action) {
+        if (!ENABLED) {
+            return action.get();
+        }
+        long allocated = sampleAllocatedBytes();
+        long started = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            record(operation, started, allocated);
+        }
+    }
+
+    /**
+     * Runs an action and records how long it took and how much it allocated.
+     *
+     * @param operation the operation to record under
+     * @param action    the action to run
+     */
+    static void run(Operation operation, Runnable action) {
+        if (!ENABLED) {
+            action.run();
+            return;
+        }
+        long allocated = sampleAllocatedBytes();
+        long started = System.nanoTime();
+        try {
+            action.run();
+        } finally {
+            record(operation, started, allocated);
+        }
+    }
+
+    /**
+     * Records one call that started at the given time.
+     *
+     * @param operation    the operation to record under
+     * @param startedNanos the {@link System#nanoTime()} when the call started
+     * @param allocated    the thread's {@link #allocatedBytes()} when the call started,
+     *                     or -1 to not measure this call's allocations
+     */
+    static void record(Operation operation, long startedNanos, long allocated) {
+        long nanos = Math.max(0, System.nanoTime() - startedNanos);
+        Recorder recorder = RECORDERS.get(operation);
+        recorder.record(nanos);
+        if (allocated >= 0) {
+            long now = allocatedBytes();
+            if (now >= allocated) {
+                recorder.allocatedBytes.add(now - allocated);
+                recorder.allocationSamples.increment();
+            }
+        }
+    }
+
+    /**
+     * Returns {@link #allocatedBytes()} for a random sample of calls and -1 for the rest.
+     */
+    private static long sampleAllocatedBytes() {
+        return ThreadLocalRandom.current().nextInt(ALLOCATION_SAMPLE_RATE) == 0 ? allocatedBytes() : -1;
+    }
+
+    /**
+     * Returns the bytes allocated so far by the current thread, or -1 if the JVM
+     * cannot tell (for example on a virtual thread).
+     *
+     * @return the thread's allocated bytes, or -1
+     */
+    static long allocatedBytes() {
+        return THREADS == null ? -1 : THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Returns a summary of every operation that has been called at least once.
+     *
+     * @return the statistics, in {@link Operation} order
+     */
+    static List<OperationStats> snapshot() {
+        List<OperationStats> stats = new ArrayList<>();
+        for (Map.Entry<Operation, Recorder> entry : RECORDERS.entrySet()) {
+            Recorder recorder = entry.getValue();
+            long[] histogram = new long[BUCKETS];
+            long count = 0;
+            long total = 0;
+            long max = 0;
+            for (AtomicLongArray stripe : recorder.stripes) {
+                for (int i = 0; i < BUCKETS; i++) {
+                    long calls = stripe.get(i);
+                    histogram[i] += calls;
+                    count += calls;
+                }
+                total += stripe.get(TOTAL_SLOT);
+                max = Math.max(max, stripe.get(MAX_SLOT));
+            }
+            if (count == 0) {
+                continue;
+            }
+            long samples = recorder.allocationSamples.sum();
+            stats.add(new OperationStats(entry.getKey().label(), count,
+                    total / count,
+                    Math.min(percentile(histogram, count, 0.50), max),
+                    Math.min(percentile(histogram, count, 0.99), max),
+                    max,
+                    samples == 0 ? 0 : recorder.allocatedBytes.sum() / samples));
+        }
+        return stats;
+    }
+
+    /**
+     * Formats the statistics as a table, one line per operation.
+     *
+     * @return the report
+     */
+    static String report() {
+        List<OperationStats> stats = snapshot();
+        if (stats.isEmpty()) {
+            return "No operations recorded yet.";
+        }
+        StringBuilder out = new StringBuilder(String.format("%-16s %10s %12s %12s %12s %12s %14s%n",
+                "operation", "count", "mean (µs)", "p50 (µs)", "p99 (µs)", "max (µs)", "alloc/op (B)"));
+        for (OperationStats stat : stats) {
+            out.append(String.format("%-16s %10d %12.1f %12.1f %12.1f %12.1f %14d%n",
+                    stat.getOperation(), stat.getCount(), stat.getMeanNanos() / 1000.0, stat.getP50Nanos() / 1000.0,
+                    stat.getP99Nanos() / 1000.0, stat.getMaxNanos() / 1000.0, stat.getAllocatedBytesPerCall()));
+        }
+        return out.toString().stripTrailing();
+    }
+
+    /**
+     * Clears every counter.
+     */
+    static void reset() {
+        for (Recorder recorder : RECORDERS.values()) {
+            recorder.reset();
+        }
+    }
+
+    /**
+     * Registers the metrics as the MXBean {@code org.example:type=BookMetrics}, so
+     * they can be read with JConsole or any other JMX client. Does nothing if it
+     * is already registered.
+     */
+    static void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("org.example:type=BookMetrics");
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new BookMetricsMXBean() {
+                    @Override
+                    public List<OperationStats> getOperations() {
+                        return snapshot();
+                    }
+
+                    @Override
+                    public String getReport() {
+                        return report();
+                    }
+
+                    @Override
+                    public void reset() {
+                        BookMetrics.reset();
+                    }
+                }, name);
+            }
+        } catch (JMException e) {
+            System.out.println("⚠️ Metrics are not available over JMX: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the report to a file now and then at a fixed rate, from a daemon thread.
+     * Each dump replaces the file in one step, so readers never see half a report.
+     * Calling this again replaces the previous schedule.
+     *
+     * @param file   the file to write
+     * @param period the time between dumps
+     */
+    static synchronized void startDumping(Path file, Duration period) {
+        if (dumper != null) {
+            dumper.shutdownNow();
+        }
+        dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-dumper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleAtFixedRate(() -> dump(file), 0, period.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes the current report to a file, replacing it.
+     *
+     * @param file the file to write
+     */
+    static void dump(Path file) {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.writeString(temp, report() + System.lineSeparator(), StandardCharsets.UTF_8);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Returns the stripe the current thread records into. Thread IDs are handed out
+     * in sequence, so they are mixed first to spread neighbouring threads apart.
+     */
+    private static int stripe() {
+        long mixed = Thread.currentThread().threadId() * 0x9E3779B97F4A7C15L;
+        return (int) (mixed >>> 32) & (STRIPES - 1);
+    }
+
+    /**
+     * Returns the power of two at or above the core count, at most 64.
+     */
+    static int stripeCount(int cores) {
+        int stripes = 1;
+        while (stripes < cores && stripes < 64) {
+            stripes <<= 1;
+        }
+        return stripes;
+    }
+
+    private static int bucket(long nanos) {
+        if (nanos < LINEAR_BUCKETS) {
+            return (int) nanos;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos); // 4 or more
+        int sub = (int) (nanos >>> (exponent - 3)) & (SUB_BUCKETS - 1);
+        return LINEAR_BUCKETS + (exponent - 4) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Returns the largest latency that falls into a bucket.
+     */
+    private static long bucketLimit(int bucket) {
+        if (bucket < LINEAR_BUCKETS) {
+            return bucket;
+        }
+        int exponent = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + 4;
+        long sub = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+        long width = 1L << (exponent - 3);
+        return (1L << exponent) + (sub + 1) * width - 1;
+    }
+
+    private static long percentile(long[] histogram, long count, double fraction) {
+        long rank = (long) Math.ceil(count * fraction);
+        long seen = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            seen += histogram[i];
+            if (seen >= rank) {
+                return bucketLimit(i);
+            }
+        }
+        return bucketLimit(histogram.length - 1);
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        try {
+            if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                    && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads;
+            }
+        } catch (RuntimeException e) {
+            // Fall through: allocation counts are simply not reported
+        }
+        return null;
+    }
+}
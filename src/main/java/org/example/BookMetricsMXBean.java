@@ -0,0 +1,29 @@
+package org.example;
+
+import java.util.List;
+
+/**
+ * JMX view of the inventory's operation metrics, registered by {@link BookMetrics#registerMBean()}
+ * as {@code org.example:type=BookMetrics}.
+ */
+public interface BookMetricsMXBean {
+
+    /**
+     * Returns the statistics of every operation called at least once.
+     *
+     * @return the statistics per operation
+     */
+    List<OperationStats> getOperations();
+
+    /**
+     * Returns the statistics formatted as a table, as printed by the console's "stats" command.
+     *
+     * @return the report
+     */
+    String getReport();
+
+    /**
+     * Clears every counter.
+     */
+    void reset();
+}
@@ -0,0 +1,386 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.StringJoiner;
+
+/**
+ * An immutable description of a search over the inventory, with an optional page window.
+ *
+ * Queries are built with the static factory methods and run with
+ * {@link BookInventoryOperations#query(BookQuery)}. Matching ignores case except
+ * for {@link Match#EQUALS}, which compares values exactly like an ID lookup.
+ * By default a query returns every match; {@link #page(int, int)} narrows that to
+ * a window, while the result still reports the total number of matches.
+ *
+ * Queries can be combined with {@link #and(BookQuery...)} and {@link #or(BookQuery...)}.
+ * The inventory plans a compound query by estimating how many books each part
+ * matches from its indexes: an AND runs only its most selective part against an
+ * index and checks the other parts on the surviving candidates.
+ *
+ * Matches come back in the order the books were added unless the query is
+ * {@link #sortedBy(BookField) sorted}. A sorted query with a small page window
+ * only keeps the first {@code offset + limit} matches in a bounded heap, so it
+ * never sorts the whole result set. Unsorted {@link Match#FUZZY} queries rank
+ * their matches by closeness instead.
+ */
+public final class BookQuery {
+
+    /**
+     * How a query's text is matched against the field.
+     */
+    public enum Match {
+        /** Every book matches. */
+        ALL,
+        /** The field equals the text exactly. */
+        EQUALS,
+        /** The field contains the text, ignoring case. */
+        CONTAINS,
+        /** The field contains the text as a whole word, ignoring case. */
+        WORD,
+        /** The field contains a word starting with the text, ignoring case. */
+        WORD_PREFIX,
+        /** Every word of the text is within a few typos of a word in the field, ignoring case. */
+        FUZZY,
+        /** Every operand matches. */
+        AND,
+        /** At least one operand matches. */
+        OR
+    }
+
+    private static final BookQuery ALL = new BookQuery(Match.ALL, null, null, List.of(), null, 0, Integer.MAX_VALUE);
+
+    private final Match match;
+    private final BookField field;
+    private final String text;
+    private final List<BookQuery> operands;
+    private final BookField sort;
+    private final int offset;
+    private final int limit;
+
+    private BookQuery(Match match, BookField field, String text, List<BookQuery> operands, BookField sort,
+                      int offset, int limit) {
+        this.match = match;
+        this.field = field;
+        this.text = text;
+        this.operands = operands;
+        this.sort = sort;
+        this.offset = offset;
+        this.limit = limit;
+    }
+
+    /**
+     * Returns a query matching every book, in inventory order.
+     *
+     * @return the query
+     */
+    public static BookQuery all() {
+        return ALL;
+    }
+
+    /**
+     * Returns a query matching the book with the given ID.
+     *
+     * @param id the ID to look for
+     * @return the query
+     */
+    public static BookQuery byId(String id) {
+        return equalTo(BookField.ID, id);
+    }
+
+    /**
+     * Returns a query matching books whose field equals the given value exactly.
+     *
+     * @param field the field to compare
+     * @param value the value to look for
+     * @return the query
+     */
+    public static BookQuery equalTo(BookField field, String value) {
+        return of(Match.EQUALS, field, value);
+    }
+
+    /**
+     * Returns a query matching books whose field contains the given text, ignoring case.
+     *
+     * @param field the field to search
+     * @param text  the text to look for
+     * @return the query
+     */
+    public static BookQuery containing(BookField field, String text) {
+        return of(Match.CONTAINS, field, text);
+    }
+
+    /**
+     * Returns a query matching books whose field contains the given whole word, ignoring case.
+     *
+     * @param field the field to search (title, author or location)
+     * @param word  the word to look for
+     * @return the query
+     */
+    public static BookQuery word(BookField field, String word) {
+        return of(Match.WORD, field, word);
+    }
+
+    /**
+     * Returns a query matching books whose field contains a word starting with the given prefix, ignoring case.
+     *
+     * @param field  the field to search (title, author or location)
+     * @param prefix the word prefix to look for
+     * @return the query
+     */
+    public static BookQuery wordPrefix(BookField field, String prefix) {
+        return of(Match.WORD_PREFIX, field, prefix);
+    }
+
+    /**
+     * Returns a typo-tolerant query matching books whose field has, for every word
+     * of the text, a word within a small edit distance of it, ignoring case. Words of
+     * up to two characters must match exactly, words of three to five characters
+     * may be one edit away and longer words two edits. Unless the query is sorted,
+     * matches come back closest first: by the total number of edits, then in the
+     * order the books were added.
+     *
+     * @param field the field to search
+     * @param text  the text to look for
+     * @return the query
+     */
+    public static BookQuery fuzzy(BookField field, String text) {
+        return of(Match.FUZZY, field, text);
+    }
+
+    /**
+     * Returns the number of edits a fuzzy query tolerates for one of its words.
+     *
+     * @param word the word
+     * @return the largest edit distance accepted for the word
+     */
+    static int maxEdits(String word) {
+        return word.length() <= 2 ? 0 : word.length() <= 5 ? 1 : 2;
+    }
+
+    /**
+     * Returns a query matching books that match every one of the given queries.
+     * Page windows and sort orders on the operands are ignored.
+     *
+     * @param operands the queries to combine; at least one
+     * @return the query
+     */
+    public static BookQuery and(BookQuery... operands) {
+        return compound(Match.AND, operands);
+    }
+
+    /**
+     * Returns a query matching books that match at least one of the given queries.
+     * Page windows and sort orders on the operands are ignored.
+     *
+     * @param operands the queries to combine; at least one
+     * @return the query
+     */
+    public static BookQuery or(BookQuery... operands) {
+        return compound(Match.OR, operands);
+    }
+
+    /**
+     * Parses a query typed at the console. Terms have the form {@code field=value}
+     * for an exact match or {@code field~text} for a case-insensitive contains match,
+     * where field is id, title, author or location. Terms are joined with AND and
+     * OR, written in upper case so that values like "Pride and Prejudice" stay
+     * intact; AND binds tighter than OR.
+     * For example: {@code author=George Orwell AND location~quahog OR title~war}.
+     *
+     * The expression may end with {@code ORDER BY field} and then {@code LIMIT n},
+     * and the terms may be left out to sort the whole inventory, as in
+     * {@code ORDER BY title LIMIT 20}.
+     *
+     * @param expression the expression to parse
+     * @return the query
+     * @throws IllegalArgumentException if the expression is malformed
+     */
+    public static BookQuery parse(String expression) {
+        String condition = " " + expression.trim();
+        int limit = Integer.MAX_VALUE;
+        int at = condition.lastIndexOf(" LIMIT ");
+        if (at >= 0) {
+            limit = parseLimit(condition.substring(at + " LIMIT ".length()).trim());
+            condition = condition.substring(0, at);
+        }
+        BookField sort = null;
+        at = condition.lastIndexOf(" ORDER BY ");
+        if (at >= 0) {
+            sort = parseField(condition.substring(at + " ORDER BY ".length()));
+            condition = condition.substring(0, at);
+        }
+        BookQuery query = condition.isBlank() ? all() : parseCondition(condition.trim());
+        return query.sortedBy(sort).page(0, limit);
+    }
+
+    private static BookQuery parseCondition(String condition) {
+        List<BookQuery> alternatives = new ArrayList<>();
+        for (String alternative : condition.split("\\s+OR\\s+")) {
+            List<BookQuery> terms = new ArrayList<>();
+            for (String term : alternative.split("\\s+AND\\s+")) {
+                terms.add(parseTerm(term.trim()));
+            }
+            alternatives.add(terms.size() == 1 ? terms.get(0) : and(terms.toArray(new BookQuery[0])));
+        }
+        return alternatives.size() == 1 ? alternatives.get(0) : or(alternatives.toArray(new BookQuery[0]));
+    }
+
+    private static BookQuery parseTerm(String term) {
+        int op = 0;
+        while (op < term.length() && term.charAt(op) != '=' && term.charAt(op) != '~') {
+            op++;
+        }
+        if (op == term.length()) {
+            throw new IllegalArgumentException("Expected field=value or field~text but got '" + term + "'");
+        }
+        BookField field = parseField(term.substring(0, op));
+        String value = term.substring(op + 1).trim();
+        return term.charAt(op) == '=' ? equalTo(field, value) : containing(field, value);
+    }
+
+    private static BookField parseField(String name) {
+        try {
+            return BookField.valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown field '" + name.trim() + "'");
+        }
+    }
+
+    private static int parseLimit(String limit) {
+        try {
+            return Integer.parseInt(limit);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("LIMIT must be a whole number but got '" + limit + "'");
+        }
+    }
+
+    private static BookQuery of(Match match, BookField field, String text) {
+        return new BookQuery(match, Objects.requireNonNull(field, "field"), Objects.requireNonNull(text, "text"),
+                List.of(), null, 0, Integer.MAX_VALUE);
+    }
+
+    private static BookQuery compound(Match match, BookQuery... operands) {
+        if (operands.length == 0) {
+            throw new IllegalArgumentException(match + " needs at least one operand");
+        }
+        List<BookQuery> unpaged = new ArrayList<>(operands.length);
+        for (BookQuery operand : operands) {
+            unpaged.add(operand.sortedBy(null).page(0, Integer.MAX_VALUE));
+        }
+        return new BookQuery(match, null, null, List.copyOf(unpaged), null, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns a copy of this query that returns its matches ordered by a field.
+     * Text fields compare ignoring case and IDs compare numerically, with
+     * non-numeric IDs after the numeric ones; empty values come last. Books with
+     * equal values keep the order they were added in.
+     *
+     * @param sort the field to order by, or null for the order the books were added in
+     * @return the sorted query
+     */
+    public BookQuery sortedBy(BookField sort) {
+        return new BookQuery(match, field, text, operands, sort, offset, limit);
+    }
+
+    /**
+     * Returns a copy of this query that only returns a window of the matches.
+     *
+     * @param offset the number of matches to skip
+     * @param limit  the maximum number of matches to return
+     * @return the paged query
+     * @throws IllegalArgumentException if offset or limit is negative
+     */
+    public BookQuery page(int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("offset and limit must not be negative: " + offset + ", " + limit);
+        }
+        return new BookQuery(match, field, text, operands, sort, offset, limit);
+    }
+
+    public Match getMatch() {
+        return match;
+    }
+
+    /**
+     * Returns the field this query searches.
+     *
+     * @return the field, or null for {@link Match#ALL} and compound queries
+     */
+    public BookField getField() {
+        return field;
+    }
+
+    /**
+     * Returns the text this query looks for.
+     *
+     * @return the text, or null for {@link Match#ALL} and compound queries
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Returns the operands of an AND or OR query.
+     *
+     * @return the operands, or an empty list for other queries
+     */
+    public List<BookQuery> getOperands() {
+        return operands;
+    }
+
+    /**
+     * Returns the field the matches are ordered by.
+     *
+     * @return the sort field, or null if matches come back in the order the books were added
+     */
+    public BookField getSort() {
+        return sort;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof BookQuery other)) {
+            return false;
+        }
+        return match == other.match && field == other.field && Objects.equals(text, other.text)
+                && operands.equals(other.operands) && sort == other.sort && offset == other.offset
+                && limit == other.limit;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(match, field, text, operands, sort, offset, limit);
+    }
+
+    @Override
+    public String toString() {
+        return "BookQuery{" + describe() + (sort == null ? "" : ", sort=" + sort)
+                + ", offset=" + offset + ", limit=" + limit + "}";
+    }
+
+    private String describe() {
+        if (!operands.isEmpty()) {
+            StringJoiner joined = new StringJoiner(" " + match + " ", "(", ")");
+            for (BookQuery operand : operands) {
+                joined.add(operand.describe());
+            }
+            return joined.toString();
+        }
+        return match + (field == null ? "" : " " + field + " '" + text + "'");
+    }
+}
@@ -0,0 +1,69 @@
+package org.example;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * The result of running a {@link BookQuery}: one page of matching books plus the
+ * total number of matches, all taken from the same consistent view of the inventory.
+ * Only the books in the page are materialized, so asking for a small page of a
+ * query with many matches stays cheap.
+ */
+public final class BookQueryResult {
+    private final List<Book> books;
+    private final int offset;
+    private final int totalCount;
+
+    BookQueryResult(List<Book> books, int offset, int totalCount) {
+        this.books = Collections.unmodifiableList(books);
+        this.offset = offset;
+        this.totalCount = totalCount;
+    }
+
+    /**
+     * Returns the books in this page, in the query's order: by its sort field if it
+     * has one, closest first for a fuzzy search without one, and otherwise in inventory order.
+     *
+     * @return an unmodifiable list of books
+     */
+    public List<Book> getBooks() {
+        return books;
+    }
+
+    /**
+     * Returns the books in this page as a stream.
+     *
+     * @return a stream of books
+     */
+    public Stream<Book> stream() {
+        return books.stream();
+    }
+
+    /**
+     * Returns the position of the first book in this page among all matches.
+     *
+     * @return the page offset
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Returns the number of books matching the query, regardless of the page window.
+     *
+     * @return the total match count
+     */
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Returns true if there are matches after this page.
+     *
+     * @return true if a later page is not empty
+     */
+    public boolean hasMore() {
+        return offset + books.size() < totalCount;
+    }
+}
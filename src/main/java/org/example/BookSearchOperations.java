@@ -1,12 +1,20 @@
 package org.example;
 
+import java.io.PrintWriter;
 import java.util.Scanner;
 
 /**
  * Handles user search operations for the Book Inventory system.
- * Provides options to search books by ID, title, author, or location.
+ * Provides options to search books by ID, title, author, or location,
+ * or with a compound query across several fields. Title and author searches
+ * that find nothing fall back to a typo-tolerant search and show the closest books.
+ *
+ * This class only handles console input and output; the searches themselves
+ * run through {@link BookInventoryOperations#query(BookQuery)}, which can be
+ * called directly from code.
  */
 public class BookSearchOperations {
+    private static final int CLOSEST_MATCHES = 10;
 
     /**
      * Main method that asks the user which type of search to perform
@@ -15,14 +23,15 @@ public class BookSearchOperations {
      * @param scnr the Scanner object used to read user input
      */
     public static void searchBooks(Scanner scnr) {
-        System.out.println("Search by id, title, author, or location?");
+        System.out.println("Search by id, title, author, location, or query?");
         String input = scnr.nextLine().toLowerCase().trim();
 
         // Validate user input
         while (!(input.equalsIgnoreCase("id") || input.equalsIgnoreCase("title")
-                || input.equalsIgnoreCase("location") || input.equalsIgnoreCase("author"))) {
+                || input.equalsIgnoreCase("location") || input.equalsIgnoreCase("author")
+                || input.equalsIgnoreCase("query"))) {
             System.out.println("'" + input + "' is invalid.");
-            System.out.println("Search by id, title, author, or location?");
+            System.out.println("Search by id, title, author, location, or query?");
             input = scnr.nextLine().toLowerCase();
         }
 
@@ -40,6 +49,9 @@ public class BookSearchOperations {
             case "title":
                 searchByTitle(scnr);
                 break;
+            case "query":
+                searchByQuery(scnr);
+                break;
             default:
                 // Should never happen due to input validation
         }
@@ -55,21 +67,7 @@ public class BookSearchOperations {
         String theTitle = scnr.nextLine().trim();
 
         System.out.println("Finding books titled '" + theTitle + "'...");
-        int count = 0;
-
-        for (Book book : BookInventoryOperations.getBooks()) {
-            if (book.getTitle().toLowerCase().contains(theTitle.toLowerCase())) {
-                System.out.println("👉 " + book);
-                count++;
-            }
-        }
-
-        // Summary of results
-        if (count > 0) {
-            System.out.println("✅ Found " + count + " matching book(s).");
-        } else {
-            System.out.println("⚠️ No matching books found.");
-        }
+        printMatchesOrClosest(BookField.TITLE, theTitle, "⚠️ No matching books found.");
     }
 
 
@@ -83,20 +81,7 @@ public class BookSearchOperations {
         String theAuthor = scnr.nextLine().trim();
 
         System.out.println("Finding books by '" + theAuthor + "'...");
-        int count = 0;
-
-        for (Book book : BookInventoryOperations.getBooks()) {
-            if (book.getAuthor().toLowerCase().contains(theAuthor.toLowerCase())) {
-                System.out.println("👉 " + book);
-                count++;
-            }
-        }
-
-        if (count > 0) {
-            System.out.println("✅ Found " + count + " matching book(s).");
-        } else {
-            System.out.println("⚠️ No matching books found.");
-        }
+        printMatchesOrClosest(BookField.AUTHOR, theAuthor, "⚠️ No matching books found.");
     }
 
 
@@ -111,20 +96,32 @@ public class BookSearchOperations {
         String theLocation = scnr.nextLine().trim();
 
         System.out.println("Finding books in the '" + theLocation + "' location...");
-        int count = 0;
+        printResults(BookInventoryOperations.query(BookQuery.containing(BookField.LOCATION, theLocation)),
+                "⚠️ Location not found.");
+    }
 
-        for (Book book : BookInventoryOperations.getBooks()) {
-            if (book.getLocation().toLowerCase().contains(theLocation.toLowerCase())) {
-                System.out.println("👉 " + book);
-                count++;
-            }
-        }
 
-        if (count > 0) {
-            System.out.println("✅ Found " + count + " matching book(s).");
-        } else {
-            System.out.println("⚠️ Location not found.");
+    /**
+     * Searches with a compound query across several fields, such as
+     * {@code author=George Orwell AND location~quahog}, optionally sorted and
+     * limited as in {@code ORDER BY title LIMIT 20}. See {@link BookQuery#parse(String)}.
+     *
+     * @param scnr the Scanner object used to read user input
+     */
+    private static void searchByQuery(Scanner scnr) {
+        System.out.println("Enter query (field=value or field~text, joined with AND / OR,"
+                + " optionally followed by ORDER BY field and LIMIT n):");
+        String expression = scnr.nextLine().trim();
+
+        BookQuery query;
+        try {
+            query = BookQuery.parse(expression);
+        } catch (IllegalArgumentException e) {
+            System.out.println("❌ " + e.getMessage());
+            return;
         }
+        System.out.println("Finding books matching '" + expression + "'...");
+        printResults(BookInventoryOperations.query(query), "⚠️ No matching books found.");
     }
 
 
@@ -138,14 +135,69 @@ public class BookSearchOperations {
         System.out.println("Enter id:");
         String id = scnr.nextLine().trim();
 
-        Book bookFoundById = BookInventoryOperations.findById(id);
+        Book book = BookInventoryOperations.findById(id);
 
-        if (bookFoundById == null) {
+        if (book == null) {
             System.out.println("⚠️ No book exists with that ID.");
         } else {
-            System.out.println("👉 " + bookFoundById);
+            System.out.println("👉 " + book);
             System.out.println("✅ Found 1 matching book.");
         }
     }
 
+    /**
+     * Prints the books whose field contains the text. If there are none, runs a
+     * typo-tolerant search instead and prints the closest books it finds, with a
+     * summary that says they are suggestions rather than matches.
+     *
+     * @param field        the field to search
+     * @param text         the text to look for
+     * @param emptyMessage the message to print when nothing is close either
+     */
+    private static void printMatchesOrClosest(BookField field, String text, String emptyMessage) {
+        BookQueryResult result = BookInventoryOperations.query(BookQuery.containing(field, text));
+        if (result.getTotalCount() == 0) {
+            BookQueryResult closest = BookInventoryOperations.query(
+                    BookQuery.fuzzy(field, text).page(0, CLOSEST_MATCHES));
+            if (closest.getTotalCount() > 0) {
+                PrintWriter out = BookViewOperations.consoleWriter();
+                out.println("🔎 No exact matches. Closest matches:");
+                printBooks(out, closest);
+                out.println("🔎 Showing " + closest.getBooks().size() + " closest match(es).");
+                out.flush();
+                return;
+            }
+        }
+        printResults(result, emptyMessage);
+    }
+
+    /**
+     * Prints every book in a result followed by a summary line.
+     * The books are streamed through one buffered console writer, so output goes
+     * out in large writes without holding the text of every match in memory at once.
+     *
+     * @param result       the search result to print
+     * @param emptyMessage the message to print when nothing matched
+     */
+    private static void printResults(BookQueryResult result, String emptyMessage) {
+        PrintWriter out = BookViewOperations.consoleWriter();
+        printBooks(out, result);
+        if (result.getTotalCount() > 0) {
+            out.print("✅ Found " + result.getTotalCount() + " matching book(s).");
+            if (result.getBooks().size() < result.getTotalCount()) {
+                out.print(" Showing " + result.getBooks().size() + ".");
+            }
+            out.println();
+        } else {
+            out.println(emptyMessage);
+        }
+        out.flush();
+    }
+
+    private static void printBooks(PrintWriter out, BookQueryResult result) {
+        for (Book book : result.getBooks()) {
+            out.append("👉 ").append(book.toString()).append('\n');
+        }
+    }
+
 }
@@ -0,0 +1,274 @@
+package org.example;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves the inventory over HTTP with JSON bodies, using the JDK's built-in HTTP server.
+ *
+ * Every request runs on its own virtual thread, so thousands of concurrent
+ * lookups cost little more than the lookups themselves: the inventory's reads
+ * never block each other, and a request waiting on the network parks its
+ * virtual thread instead of holding a platform thread.
+ *
+ * <pre>
+ * GET    /books?offset=0&amp;limit=20[&amp;sort=title]   a page of books, in inventory order unless sorted
+ * GET    /books/{id}                               one book, or 404
+ * GET    /books/search?q=author=Jane Austen AND location~quahog
+ * GET    /books/search?field=title&amp;text=war[&amp;mode=contains|word|prefix|fuzzy|equals]
+ * POST   /books  {"title":..,"author":..,"location":..}   adds a book with the next free ID; 201
+ * DELETE /books/{id}                               204, or 404
+ * GET    /stats                                    operation metrics
+ * </pre>
+ *
+ * Searches and the book list accept {@code offset} and {@code limit} (at most
+ * {@value #MAX_PAGE_SIZE}) and answer with {@code {"offset":..,"total":..,"books":[..]}}.
+ * Errors are answered with {@code {"error":".."}}. An add or remove whose journal
+ * write fails is answered with 500, since it is not durable.
+ */
+public class BookServer {
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int BACKLOG = 4096;
+
+    private BookServer() {
+    }
+
+    /**
+     * Starts serving the inventory on the given port of every local interface.
+     *
+     * @param port the port to listen on, or 0 for any free port
+     * @return the running server; {@code server.getAddress()} tells the port
+     * @throws IOException if the port cannot be bound
+     */
+    public static HttpServer start(int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        server.createContext("/books", BookServer::handleBooks);
+        server.createContext("/stats", BookServer::handleStats);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+        return server;
+    }
+
+    private static void handleBooks(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            try {
+                routeBooks(exchange);
+            } catch (IllegalArgumentException e) {
+                send(exchange, 400, error(e.getMessage()));
+            } catch (UncheckedIOException e) {
+                send(exchange, 500, error(e.getMessage())); // The change was not made durable
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                send(exchange, 500, error("Internal error"));
+            }
+        }
+    }
+
+    private static void routeBooks(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        if (!path.equals("/books") && !path.startsWith("/books/")) {
+            send(exchange, 404, error("Not found"));
+            return;
+        }
+        String rest = path.equals("/books") ? "" : path.substring("/books/".length());
+        String method = exchange.getRequestMethod();
+        Map<String, String> params = queryParams(exchange);
+
+        if (rest.isEmpty()) {
+            switch (method) {
+                case "GET" -> listBooks(exchange, params);
+                case "POST" -> addBook(exchange);
+                default -> send(exchange, 405, error("Use GET or POST on /books"));
+            }
+        } else if (rest.equals("search")) {
+            if (method.equals("GET")) {
+                search(exchange, params);
+            } else {
+                send(exchange, 405, error("Use GET on /books/search"));
+            }
+        } else {
+            switch (method) {
+                case "GET" -> getBook(exchange, rest);
+                case "DELETE" -> removeBook(exchange, rest);
+                default -> send(exchange, 405, error("Use GET or DELETE on /books/{id}"));
+            }
+        }
+    }
+
+    private static void listBooks(HttpExchange exchange, Map<String, String> params) throws IOException {
+        BookQuery query = BookQuery.all();
+        String sort = params.get("sort");
+        if (sort != null) {
+            query = query.sortedBy(field(sort));
+        }
+        send(exchange, 200, BookJson.page(BookInventoryOperations.query(paged(query, params))));
+    }
+
+    private static void search(HttpExchange exchange, Map<String, String> params) throws IOException {
+        BookQuery query;
+        if (params.containsKey("q")) {
+            query = BookQuery.parse(params.get("q"));
+        } else {
+            BookField field = field(required(params, "field"));
+            String text = required(params, "text");
+            query = switch (params.getOrDefault("mode", "contains").toLowerCase(Locale.ROOT)) {
+                case "contains" -> BookQuery.containing(field, text);
+                case "word" -> BookQuery.word(field, text);
+                case "prefix" -> BookQuery.wordPrefix(field, text);
+                case "fuzzy" -> BookQuery.fuzzy(field, text);
+                case "equals" -> BookQuery.equalTo(field, text);
+                default -> throw new IllegalArgumentException(
+                        "mode must be contains, word, prefix, fuzzy or equals");
+            };
+        }
+        send(exchange, 200, BookJson.page(BookInventoryOperations.query(paged(query, params))));
+    }
+
+    private static void getBook(HttpExchange exchange, String id) throws IOException {
+        Book book = BookInventoryOperations.findById(id);
+        if (book == null) {
+            send(exchange, 404, error("No book found with ID " + id));
+        } else {
+            send(exchange, 200, BookJson.book(book));
+        }
+    }
+
+    private static void addBook(HttpExchange exchange) throws IOException {
+        Map<String, String> fields;
+        try (InputStream body = exchange.getRequestBody()) {
+            fields = BookJson.parseObject(new String(body.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        String title = fields.get("title");
+        if (title == null || title.isBlank()) {
+            throw new IllegalArgumentException("title is required");
+        }
+        String id = BookInventoryOperations.getNextBookId();
+        Book book = new Book(id, title.trim(), orEmpty(fields.get("location")), orEmpty(fields.get("author")));
+        BookInventoryOperations.add(book); // Durably journaled before answering, or throws
+        exchange.getResponseHeaders().set("Location", "/books/" + id);
+        send(exchange, 201, BookJson.book(book));
+    }
+
+    private static void removeBook(HttpExchange exchange, String id) throws IOException {
+        if (BookInventoryOperations.remove(id)) {
+            send(exchange, 204, null);
+        } else {
+            send(exchange, 404, error("No book found with ID " + id));
+        }
+    }
+
+    private static void handleStats(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            StringJoiner operations = new StringJoiner(",", "[", "]");
+            for (OperationStats stats : BookMetrics.snapshot()) {
+                Map<String, Object> fields = new LinkedHashMap<>();
+                fields.put("operation", stats.getOperation());
+                fields.put("count", stats.getCount());
+                fields.put("meanNanos", stats.getMeanNanos());
+                fields.put("p50Nanos", stats.getP50Nanos());
+                fields.put("p99Nanos", stats.getP99Nanos());
+                fields.put("maxNanos", stats.getMaxNanos());
+                fields.put("allocatedBytesPerCall", stats.getAllocatedBytesPerCall());
+                operations.add(BookJson.object(fields));
+            }
+            CacheStats cache = BookInventoryOperations.resultCacheStats();
+            Map<String, Object> cacheFields = new LinkedHashMap<>();
+            cacheFields.put("hits", cache.getHits());
+            cacheFields.put("misses", cache.getMisses());
+            cacheFields.put("evictions", cache.getEvictions());
+            cacheFields.put("invalidations", cache.getInvalidations());
+            cacheFields.put("entries", cache.getEntries());
+            cacheFields.put("cachedRows", cache.getCachedRows());
+            send(exchange, 200, "{\"operations\":" + operations + ",\"resultCache\":" + BookJson.object(cacheFields)
+                    + "}");
+        }
+    }
+
+    private static BookQuery paged(BookQuery query, Map<String, String> params) {
+        int offset = intParam(params, "offset", query.getOffset());
+        int limit = intParam(params, "limit", Math.min(query.getLimit(), DEFAULT_PAGE_SIZE));
+        if (limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be at most " + MAX_PAGE_SIZE);
+        }
+        return query.page(offset, limit);
+    }
+
+    private static BookField field(String name) {
+        try {
+            return BookField.valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown field '" + name + "'");
+        }
+    }
+
+    private static String required(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing parameter '" + name + "'");
+        }
+        return value;
+    }
+
+    private static int intParam(Map<String, String> params, String name, int defaultValue) {
+        String value = params.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a whole number");
+        }
+    }
+
+    private static Map<String, String> queryParams(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static String error(String message) {
+        return BookJson.object(Map.of("error", message));
+    }
+
+    private static String orEmpty(String value) {
+        return value == null ? "" : value.trim();
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        if (json == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package org.example;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Compact binary image of the inventory for fast startup.
+ *
+ * Layout (big-endian):
+ * <pre>
+ * header:   int magic, int version, long bodyLength, long crc32c(body)
+ * body:     int authorCount,   authorCount strings      (author dictionary)
+ *           int locationCount, locationCount strings    (location dictionary)
+ *           int bookCount,     bookCount records:
+ *               string id, string title, int authorCode, int locationCode
+ * string:   int byteLength (-1 for null), UTF-8 bytes
+ * </pre>
+ *
+ * Authors and locations repeat across many books, so each distinct value is
+ * stored once and books refer to it by code. Reading maps the file, checks the
+ * header and checksum, and decodes each dictionary entry only once.
+ */
+final class BookSnapshot {
+    private static final int MAGIC = 0x424B534E; // "BKSN"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 8;
+
+    private BookSnapshot() {
+    }
+
+    /**
+     * Writes the books to a snapshot file. The file is written next to the target
+     * and renamed into place, so a reader never sees a half-written snapshot.
+     *
+     * @param books the books to write
+     * @param path  the snapshot file
+     * @throws IOException if the snapshot could not be written
+     */
+    static void write(List<Book> books, Path path) throws IOException {
+        Map<String, Integer> authors = new HashMap<>();
+        Map<String, Integer> locations = new HashMap<>();
+        List<String> authorTable = new ArrayList<>();
+        List<String> locationTable = new ArrayList<>();
+        int[] authorCodes = new int[books.size()];
+        int[] locationCodes = new int[books.size()];
+        for (int i = 0; i < books.size(); i++) {
+            authorCodes[i] = code(books.get(i).getAuthor(), authors, authorTable);
+            locationCodes[i] = code(books.get(i).getLocation(), locations, locationTable);
+        }
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.position(HEADER_SIZE);
+            CRC32C crc = new CRC32C();
+            OutputStream body = Channels.newOutputStream(channel);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(body, crc), 1 << 16));
+
+            writeTable(out, authorTable);
+            writeTable(out, locationTable);
+            out.writeInt(books.size());
+            for (int i = 0; i < books.size(); i++) {
+                Book book = books.get(i);
+                writeString(out, book.getId());
+                writeString(out, book.getTitle());
+                out.writeInt(authorCodes[i]);
+                out.writeInt(locationCodes[i]);
+            }
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putLong(channel.position() - HEADER_SIZE)
+                    .putLong(crc.getValue())
+                    .flip();
+            while (header.hasRemaining()) {
+                channel.write(header, HEADER_SIZE - header.remaining());
+            }
+            channel.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a snapshot file, validating its header and checksum.
+     *
+     * @param path the snapshot file
+     * @return the books in the snapshot, in their saved order
+     * @throws IOException if the file cannot be read, is from another version, or is corrupt
+     */
+    static List<Book> read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Unsupported snapshot size: " + size + " bytes");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a book snapshot: " + path);
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version);
+            }
+            long bodyLength = buffer.getLong();
+            long checksum = buffer.getLong();
+            if (bodyLength != size - HEADER_SIZE) {
+                throw new IOException("Truncated snapshot: expected " + bodyLength + " body bytes");
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.slice());
+            if (crc.getValue() != checksum) {
+                throw new IOException("Snapshot checksum mismatch: " + path);
+            }
+
+            Reader reader = new Reader(buffer);
+            String[] authors = reader.readTable();
+            String[] locations = reader.readTable();
+            int count = buffer.getInt();
+            List<Book> books = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String id = reader.readString();
+                String title = reader.readString();
+                String author = authors[buffer.getInt()];
+                String location = locations[buffer.getInt()];
+                books.add(new Book(id, title, location, author));
+            }
+            return books;
+        } catch (RuntimeException e) {
+            // Out-of-range codes or lengths in a file that passed the checksum
+            throw new IOException("Malformed snapshot: " + path, e);
+        }
+    }
+
+    private static int code(String value, Map<String, Integer> codes, List<String> table) {
+        return codes.computeIfAbsent(value, v -> {
+            table.add(v);
+            return table.size() - 1;
+        });
+    }
+
+    private static void writeTable(DataOutputStream out, List<String> table) throws IOException {
+        out.writeInt(table.size());
+        for (String value : table) {
+            writeString(out, value);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Decodes length-prefixed strings from the mapped body with one reusable buffer.
+     */
+    private static final class Reader {
+        private final ByteBuffer buffer;
+        private byte[] scratch = new byte[256];
+
+        Reader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        String[] readTable() {
+            String[] table = new String[buffer.getInt()];
+            for (int i = 0; i < table.length; i++) {
+                table[i] = readString();
+            }
+            return table;
+        }
+
+        String readString() {
+            int length = buffer.getInt();
+            if (length < 0) {
+                return null;
+            }
+            if (length > scratch.length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            buffer.get(scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package org.example;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.Scanner;
+
+/**
+ * Handles the paged "view" command of the Book Inventory system.
+ * Shows the inventory one page at a time and lets the user move to the next or
+ * previous page, jump to the page holding a given ID, or change the page size.
+ *
+ * Each page is fetched with a windowed {@link BookQuery}, so only the books on
+ * screen are read, and rendered into one reusable builder that is written to the
+ * console through a buffered writer in a single call. Showing a page therefore
+ * costs the same whatever the size of the catalog.
+ */
+public class BookViewOperations {
+    static final int DEFAULT_PAGE_SIZE = 20;
+
+    /**
+     * Runs the paged view until the user returns to the main menu.
+     * If every book fits on one page, the page is shown without prompting.
+     *
+     * @param scnr the Scanner object used to read user input
+     */
+    public static void viewBooks(Scanner scnr) {
+        PrintWriter out = consoleWriter();
+        StringBuilder page = new StringBuilder(4096);
+        int pageSize = DEFAULT_PAGE_SIZE;
+        int offset = 0;
+        String highlightId = null;
+
+        while (true) {
+            BookQueryResult result = BookInventoryOperations.query(BookQuery.all().page(offset, pageSize));
+            int total = result.getTotalCount();
+            if (total == 0) {
+                out.println("⚠️ No books in the inventory.");
+                out.flush();
+                return;
+            }
+            if (offset >= total) {
+                // Books were removed since the last page was shown; go to what is now the last page
+                offset = (total - 1) / pageSize * pageSize;
+                continue;
+            }
+
+            page.setLength(0);
+            renderPage(page, result, pageSize, highlightId);
+            out.append(page);
+            out.flush();
+            if (total <= pageSize) {
+                return;
+            }
+
+            out.println("'n' next page, 'p' previous page, 'id <ID>' jump to a book, "
+                    + "'size <N>' set page size, anything else to return");
+            out.flush();
+            if (!scnr.hasNextLine()) {
+                return;
+            }
+            String input = scnr.nextLine().trim().toLowerCase();
+            highlightId = null;
+
+            if (input.equals("n") || input.equals("next")) {
+                if (result.hasMore()) {
+                    offset += pageSize;
+                } else {
+                    out.println("⚠️ Already on the last page.");
+                }
+            } else if (input.equals("p") || input.equals("prev")) {
+                if (offset > 0) {
+                    offset = Math.max(0, offset - pageSize);
+                } else {
+                    out.println("⚠️ Already on the first page.");
+                }
+            } else if (input.startsWith("id ")) {
+                String id = input.substring(3).trim();
+                int position = BookInventoryOperations.indexOfId(id);
+                if (position < 0) {
+                    out.println("⚠️ No book exists with that ID.");
+                } else {
+                    offset = position / pageSize * pageSize;
+                    highlightId = id;
+                }
+            } else if (input.startsWith("size ")) {
+                Integer size = parsePageSize(input.substring(5).trim());
+                if (size == null) {
+                    out.println("⚠️ Page size must be a positive number.");
+                } else {
+                    pageSize = size;
+                    offset = offset / pageSize * pageSize;
+                }
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Renders one page: a header line, then one line per book. The book with the
+     * highlighted ID, if any, is marked with an arrow.
+     *
+     * @param out         the builder to render into
+     * @param result      the page of books to render
+     * @param pageSize    the number of books per page
+     * @param highlightId the ID to mark, or null
+     */
+    static void renderPage(StringBuilder out, BookQueryResult result, int pageSize, String highlightId) {
+        int total = result.getTotalCount();
+        int first = result.getOffset() + 1;
+        out.append("📚 Page ").append(result.getOffset() / pageSize + 1)
+                .append(" of ").append((total + pageSize - 1) / pageSize)
+                .append(" (books ").append(first).append('-').append(first + result.getBooks().size() - 1)
+                .append(" of ").append(total).append(")\n");
+        for (Book book : result.getBooks()) {
+            out.append(highlightId != null && highlightId.equals(book.getId()) ? "👉 " : "   "); // IDs may be null
+            book.appendTo(out).append('\n');
+        }
+    }
+
+    /**
+     * Returns a buffered writer on the current console stream. It is created per
+     * call so it follows {@code System.setOut}, and is flushed rather than closed.
+     */
+    static PrintWriter consoleWriter() {
+        return new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out, System.out.charset()), 1 << 16));
+    }
+
+    private static Integer parsePageSize(String text) {
+        try {
+            int size = Integer.parseInt(text);
+            return size > 0 ? size : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
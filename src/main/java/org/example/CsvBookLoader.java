@@ -0,0 +1,424 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * High-throughput loader for the inventory CSV file.
+ *
+ * The file is memory-mapped and split into chunks on record boundaries, and the
+ * chunks are parsed in parallel on all cores. The hand-written parser works on
+ * raw bytes and allocates nothing per field except the final Strings.
+ *
+ * Parsing follows OpenCSV's default {@code CSVParser} rules (quote {@code "},
+ * escape {@code \}, leading white space before a quote ignored, quoted fields may
+ * span lines). Columns are bound by header name through {@link BookCsvCodec}, the
+ * same way OpenCSV's {@code CsvToBean} binds {@code @CsvBindByName} fields, so the
+ * resulting list is the same as the one OpenCSV produces. The differences are
+ * that blank lines and repeats of the header row are skipped, and that files
+ * mixing layouts are rejected (see {@link BookCsvCodec}).
+ *
+ * {@link #read} streams a file instead, parsing it in order on the calling thread
+ * and handing the books over a batch at a time, so that only one batch is ever
+ * held in memory.
+ */
+final class CsvBookLoader {
+    private static final long WINDOW_SIZE = 1L << 30;
+    private static final long MIN_CHUNK_SIZE = 1L << 20;
+    private static final long MAX_CHUNK_SIZE = 64L << 20;
+
+    private static final int[] SKIP_ALL = new int[0];
+
+    private CsvBookLoader() {
+    }
+
+    /**
+     * Receives the books of a streamed file, one batch at a time.
+     */
+    @FunctionalInterface
+    interface BatchConsumer {
+        /**
+         * Takes a batch of books.
+         *
+         * @param books the next books in file order; the list is reused for the next batch
+         * @param lines the line of the file each book's record starts on, counting the
+         *              header as line 1; the array is reused for the next batch
+         * @throws IOException to stop reading the file
+         */
+        void accept(List<Book> books, int[] lines) throws IOException;
+    }
+
+    /**
+     * Loads every book from the given CSV file.
+     *
+     * @param path the CSV file, starting with a header row
+     * @return the books in file order
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    static List<Book> load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return new ArrayList<>();
+            }
+
+            long[] header = new long[2];
+            BookCsvCodec codec = readHeader(channel, size, header);
+
+            List<long[]> chunks = splitChunks(channel, header[0], size, chunkSize(size));
+            try {
+                List<List<Book>> parsed = chunks.parallelStream()
+                        .map(chunk -> parseChunk(channel, chunk[0], chunk[1], codec))
+                        .collect(Collectors.toList());
+
+                int total = 0;
+                for (List<Book> part : parsed) {
+                    total += part.size();
+                }
+                List<Book> books = new ArrayList<>(total);
+                for (List<Book> part : parsed) {
+                    books.addAll(part);
+                }
+                return books;
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Streams every book from the given CSV file, in file order, in batches of at
+     * most the given size. Each batch is handed over before the next is parsed,
+     * together with the line each book's record starts on, which counts blank lines,
+     * skipped header rows and the extra lines of quoted multi-line fields.
+     *
+     * @param path      the CSV file, starting with a header row
+     * @param batchSize the largest number of books per batch
+     * @param consumer  receives each batch
+     * @throws IOException if the file cannot be read or is malformed, or the consumer fails;
+     *         the batches before the failure have already been handed over
+     */
+    static void read(Path path, int batchSize, BatchConsumer consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return;
+            }
+            long[] header = new long[2];
+            BookCsvCodec codec = readHeader(channel, size, header);
+
+            RecordParser parser = new RecordParser();
+            String[] values = new String[BookCsvCodec.FIELD_COUNT];
+            List<Book> batch = new ArrayList<>(batchSize);
+            int[] lines = new int[batchSize];
+            int line = 1 + (int) header[1];
+            long base = header[0];
+            while (base < size) {
+                long windowSize = Math.min(WINDOW_SIZE, size - base);
+                boolean atEof = base + windowSize == size;
+                MappedByteBuffer window = map(channel, base, windowSize);
+
+                int pos = 0;
+                while (pos < windowSize) {
+                    Arrays.fill(values, null);
+                    int next = parser.parse(window, pos, atEof, codec.columns(), values, null);
+                    if (next < 0) {
+                        break; // Record runs past this window; remap starting at it
+                    }
+                    Book book = readRecord(parser, codec, values, base + pos);
+                    if (book != null) {
+                        lines[batch.size()] = line;
+                        batch.add(book);
+                        if (batch.size() == batchSize) {
+                            consumer.accept(batch, lines);
+                            batch.clear();
+                        }
+                    }
+                    line += parser.lines;
+                    pos = next;
+                }
+                if (pos == 0) {
+                    throw new IOException("CSV record at byte " + base + " is larger than " + WINDOW_SIZE + " bytes");
+                }
+                base += pos;
+            }
+            if (!batch.isEmpty()) {
+                consumer.accept(batch, lines);
+            }
+        }
+    }
+
+    /**
+     * Parses the header row, which resolves each column to a Book field or to -1 to skip it.
+     *
+     * @param header receives the position just past the header row, then the number of lines it spans
+     */
+    private static BookCsvCodec readHeader(FileChannel channel, long size, long[] header) throws IOException {
+        RecordParser parser = new RecordParser();
+        List<String> names = new ArrayList<>();
+        long end = -1;
+        for (long windowSize = Math.min(size, MIN_CHUNK_SIZE); end < 0; windowSize = Math.min(size, windowSize * 2)) {
+            names.clear();
+            end = parser.parse(map(channel, 0, windowSize), 0, windowSize == size, null, null, names);
+        }
+        header[0] = end;
+        header[1] = parser.lines;
+        return BookCsvCodec.forHeader(names);
+    }
+
+    private static long chunkSize(long size) {
+        long perCore = size / (Runtime.getRuntime().availableProcessors() * 4L);
+        return Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, perCore));
+    }
+
+    /**
+     * Walks the records once, without building any Strings, to find chunk
+     * boundaries that never fall inside a record (even a quoted multi-line one).
+     */
+    private static List<long[]> splitChunks(FileChannel channel, long start, long size, long chunkSize) throws IOException {
+        List<long[]> chunks = new ArrayList<>();
+        RecordParser parser = new RecordParser();
+        long chunkStart = start;
+        long base = start;
+        while (base < size) {
+            long windowSize = Math.min(WINDOW_SIZE, size - base);
+            boolean atEof = base + windowSize == size;
+            MappedByteBuffer window = map(channel, base, windowSize);
+
+            int pos = 0;
+            while (pos < windowSize) {
+                int next = parser.parse(window, pos, atEof, SKIP_ALL, null, null);
+                if (next < 0) {
+                    break; // Record runs past this window; remap starting at it
+                }
+                pos = next;
+                if (base + pos - chunkStart >= chunkSize) {
+                    chunks.add(new long[]{chunkStart, base + pos});
+                    chunkStart = base + pos;
+                }
+            }
+            if (pos == 0) {
+                throw new IOException("CSV record at byte " + base + " is larger than " + WINDOW_SIZE + " bytes");
+            }
+            base += pos;
+        }
+        if (chunkStart < size) {
+            chunks.add(new long[]{chunkStart, size});
+        }
+        return chunks;
+    }
+
+    private static List<Book> parseChunk(FileChannel channel, long start, long end, BookCsvCodec codec) {
+        try {
+            MappedByteBuffer buffer = map(channel, start, end - start);
+            RecordParser parser = new RecordParser();
+            int[] columns = codec.columns();
+            String[] values = new String[BookCsvCodec.FIELD_COUNT];
+            List<Book> books = new ArrayList<>();
+
+            int pos = 0;
+            while (pos < buffer.limit()) {
+                Arrays.fill(values, null);
+                int next = parser.parse(buffer, pos, true, columns, values, null);
+                Book book = readRecord(parser, codec, values, start + pos);
+                if (book != null) {
+                    books.add(book);
+                }
+                pos = next;
+            }
+            return books;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Builds the book of the record the parser has just read.
+     *
+     * @param offset the record's position in the file, for error messages
+     * @return the book, or null if the record is blank or a repeat of the header
+     */
+    private static Book readRecord(RecordParser parser, BookCsvCodec codec, String[] values, long offset)
+            throws IOException {
+        if (parser.blank) {
+            return null;
+        }
+        if (parser.fieldCount != codec.width()) {
+            throw new IOException("Number of data fields does not match number of headers"
+                    + " in the record at byte " + offset);
+        }
+        try {
+            return codec.read(values);
+        } catch (IOException e) {
+            throw new IOException(e.getMessage() + " at byte " + offset, e);
+        }
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+    }
+
+    /**
+     * Parses one record at a time from a byte buffer, reusing a single scratch
+     * buffer for field contents.
+     */
+    private static final class RecordParser {
+        private byte[] scratch = new byte[256];
+        private int length;
+        private boolean onlyWhitespace = true;
+        private boolean capturing;
+
+        int fieldCount;
+        boolean blank;
+        int lines; // Line terminators the record spans, including those inside quoted fields
+
+        /**
+         * Parses the record starting at {@code pos}.
+         *
+         * @param buffer  the bytes to parse
+         * @param pos     where the record starts
+         * @param atEof   whether the buffer ends at the end of the file
+         * @param columns for each field, the slot in {@code values} to store it in or -1 to
+         *                skip it; null to collect every field into {@code all}
+         * @param values  receives the captured fields
+         * @param all     receives every field when {@code columns} is null
+         * @return the position after the record's line terminator, or -1 if the record
+         *         is not complete within the buffer and {@code atEof} is false
+         */
+        int parse(ByteBuffer buffer, int pos, boolean atEof, int[] columns, String[] values, List<String> all)
+                throws IOException {
+            int limit = buffer.limit();
+            int lineStart = pos;
+            int field = 0;
+            boolean inQuotes = false;
+            boolean inField = false;
+            startField(field, columns);
+            blank = false;
+            lines = 0;
+
+            int i = pos;
+            while (true) {
+                if (i + 1 >= limit && !atEof) {
+                    return -1; // Can't see the next byte yet; let the caller retry with more data
+                }
+                if (i >= limit) {
+                    if (inQuotes) {
+                        throw new IOException("Unterminated quoted field at end of CSV file");
+                    }
+                    endField(field, columns, values, all);
+                    fieldCount = field + 1;
+                    return i;
+                }
+
+                byte b = buffer.get(i);
+                if (b == '\n' || b == '\r') {
+                    int next = i + 1;
+                    if (b == '\r' && next < limit && buffer.get(next) == '\n') {
+                        next++;
+                    }
+                    lines++;
+                    if (inQuotes) {
+                        // A quoted field continues on the next line, joined with '\n' like OpenCSV does
+                        append((byte) '\n');
+                        i = next;
+                        lineStart = next;
+                        continue;
+                    }
+                    blank = i == pos;
+                    endField(field, columns, values, all);
+                    fieldCount = field + 1;
+                    return next;
+                }
+
+                if (b == '\\') {
+                    // Escape: keeps a following quote, escape or separator; otherwise it is dropped
+                    inField = true;
+                    if (i + 1 < limit && isEscapable(buffer.get(i + 1))) {
+                        append(buffer.get(i + 1));
+                        i += 2;
+                    } else {
+                        i++;
+                    }
+                } else if (b == '"') {
+                    if ((inQuotes || inField) && i + 1 < limit && buffer.get(i + 1) == '"') {
+                        append((byte) '"');
+                        i += 2;
+                    } else {
+                        inQuotes = !inQuotes;
+                        // A quote in the middle of a field is kept, unless only white space precedes it
+                        if (i - lineStart >= 3 && buffer.get(i - 1) != ',' && i + 1 < limit && !isLineEnd(buffer.get(i + 1))
+                                && buffer.get(i + 1) != ',') {
+                            if (length > 0 && onlyWhitespace) {
+                                length = 0;
+                            } else {
+                                append(b);
+                            }
+                        }
+                        i++;
+                    }
+                    inField = !inField;
+                } else if (b == ',' && !inQuotes) {
+                    endField(field, columns, values, all);
+                    field++;
+                    startField(field, columns);
+                    inField = false;
+                    i++;
+                } else {
+                    append(b);
+                    inField = true;
+                    i++;
+                }
+            }
+        }
+
+        private void startField(int field, int[] columns) {
+            length = 0;
+            onlyWhitespace = true;
+            capturing = columns == null || (field < columns.length && columns[field] >= 0);
+        }
+
+        private void endField(int field, int[] columns, String[] values, List<String> all) {
+            if (!capturing) {
+                return;
+            }
+            String value = new String(scratch, 0, length, StandardCharsets.UTF_8);
+            if (columns == null) {
+                all.add(value);
+            } else {
+                values[columns[field]] = value;
+            }
+        }
+
+        private void append(byte b) {
+            if (onlyWhitespace && (b < 0 || !Character.isWhitespace((char) b))) {
+                onlyWhitespace = false;
+            }
+            if (!capturing) {
+                length++;
+                return;
+            }
+            if (length == scratch.length) {
+                scratch = Arrays.copyOf(scratch, length * 2);
+            }
+            scratch[length++] = b;
+        }
+
+        private static boolean isEscapable(byte b) {
+            return b == '"' || b == '\\' || b == ',';
+        }
+
+        private static boolean isLineEnd(byte b) {
+            return b == '\n' || b == '\r';
+        }
+    }
+}
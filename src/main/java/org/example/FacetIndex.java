@@ -0,0 +1,116 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * Running book counts per author and per location, kept up to date on every add and remove.
+ *
+ * Counts are stored in arrays indexed by the store's {@link StringDictionary} codes, so reading
+ * every count of a field costs one step per distinct value rather than one per book.
+ * A second table counts each author and location pair, which answers "authors in
+ * location X" and "locations of author Y" the same way. Books without an author or
+ * location are not counted under that field.
+ *
+ * Arrays only grow, and a grown array is filled in before it is published, so
+ * lock-free readers racing a writer see either the old or the new array.
+ */
+class FacetIndex implements BookIndex {
+    private final BookColumns columns;
+    private int[] authorCounts = new int[0];
+    private int[] locationCounts = new int[0];
+    private int[][] pairCounts = new int[0][]; // author code -> location code -> count
+
+    /**
+     * Creates an empty index over the given store, whose codes it counts by.
+     *
+     * @param columns the store the indexed rows live in
+     */
+    FacetIndex(BookColumns columns) {
+        this.columns = columns;
+    }
+
+    @Override
+    public void add(int row, Book book) {
+        update(row, 1);
+    }
+
+    @Override
+    public void remove(int row, Book book) {
+        update(row, -1);
+    }
+
+    @Override
+    public void clear() {
+        authorCounts = new int[0];
+        locationCounts = new int[0];
+        pairCounts = new int[0][];
+    }
+
+    /**
+     * Returns the number of books holding each value of the field.
+     *
+     * @param field the field to count, author or location
+     * @return book counts indexed by dictionary code; codes past the end have no books
+     */
+    int[] counts(BookField field) {
+        return switch (field) {
+            case AUTHOR -> authorCounts;
+            case LOCATION -> locationCounts;
+            default -> throw new IllegalArgumentException("No facet counts for " + field);
+        };
+    }
+
+    /**
+     * Returns the number of books holding each value of the field among the books
+     * whose other facet field has the given code. For example, the per-author
+     * counts among books in one location.
+     *
+     * @param field     the field to count, author or location
+     * @param otherCode the dictionary code of the other field's value
+     * @return book counts indexed by dictionary code; codes past the end have no books
+     */
+    int[] countsWhere(BookField field, int otherCode) {
+        int[][] pairs = pairCounts;
+        if (field == BookField.LOCATION) {
+            return otherCode >= 0 && otherCode < pairs.length && pairs[otherCode] != null
+                    ? pairs[otherCode] : new int[0];
+        }
+        if (field != BookField.AUTHOR) {
+            throw new IllegalArgumentException("No facet counts for " + field);
+        }
+        int[] counts = new int[pairs.length];
+        for (int author = 0; author < pairs.length; author++) {
+            int[] locations = pairs[author];
+            if (locations != null && otherCode >= 0 && otherCode < locations.length) {
+                counts[author] = locations[otherCode];
+            }
+        }
+        return counts;
+    }
+
+    private void update(int row, int delta) {
+        int author = columns.authorCode(row);
+        int location = columns.locationCode(row);
+        if (author >= 0) {
+            authorCounts = grown(authorCounts, author);
+            authorCounts[author] += delta;
+        }
+        if (location >= 0) {
+            locationCounts = grown(locationCounts, location);
+            locationCounts[location] += delta;
+        }
+        if (author >= 0 && location >= 0) {
+            if (author >= pairCounts.length) {
+                pairCounts = Arrays.copyOf(pairCounts, Math.max(author + 1, pairCounts.length * 2));
+            }
+            int[] locations = pairCounts[author] == null ? new int[0] : pairCounts[author];
+            locations = grown(locations, location);
+            locations[location] += delta;
+            pairCounts[author] = locations;
+        }
+    }
+
+    private static int[] grown(int[] counts, int code) {
+        return code < counts.length ? counts : Arrays.copyOf(counts, Math.max(code + 1, counts.length * 2));
+    }
+}
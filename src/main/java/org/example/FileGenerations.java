@@ -0,0 +1,123 @@
+package org.example;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces text files atomically and keeps numbered backups of their earlier versions.
+ *
+ * A new version is written to a temporary file next to the target and forced to
+ * disk before it is renamed over the target, so a crash at any point leaves either
+ * the complete old file or the complete new one, never a truncated mix. Before
+ * the rename, the current version becomes backup generation 1
+ * ({@code books.csv.gen1}), generation 1 becomes 2, and so on; the oldest
+ * generation beyond the limit is deleted. The current version is hard-linked
+ * rather than moved into generation 1, so the target never disappears.
+ */
+final class FileGenerations {
+    private static final int BUFFER_SIZE = 1 << 18;
+    private static final String GENERATION_SUFFIX = ".gen";
+
+    /**
+     * Writes the new contents of a file.
+     */
+    @FunctionalInterface
+    interface Content {
+        void writeTo(Writer out) throws IOException;
+    }
+
+    private FileGenerations() {
+    }
+
+    /**
+     * Atomically replaces a file with new contents, keeping earlier versions as backups.
+     * If writing the contents fails, the file and its backups are left untouched.
+     *
+     * @param target      the file to replace; it need not exist yet
+     * @param generations the number of earlier versions to keep, or 0 for none
+     * @param content     writes the new contents as UTF-8 text
+     * @throws IOException if the new version could not be written or renamed into place
+     */
+    static void replace(Path target, int generations, Content content) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Writer out = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(),
+                    BUFFER_SIZE), BUFFER_SIZE);
+            content.writeTo(out);
+            out.flush();
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        if (generations > 0 && Files.exists(target)) {
+            Files.deleteIfExists(generation(target, generations));
+            for (int i = generations - 1; i >= 1; i--) {
+                if (Files.exists(generation(target, i))) {
+                    Files.move(generation(target, i), generation(target, i + 1), StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+            keepCopy(target, generation(target, 1));
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory(target);
+    }
+
+    /**
+     * Returns the backup generations of a file that exist, newest first.
+     *
+     * @param target the file whose backups to list
+     * @return the backup files, generation 1 first
+     */
+    static List<Path> backups(Path target) {
+        List<Path> backups = new ArrayList<>();
+        for (int i = 1; Files.exists(generation(target, i)); i++) {
+            backups.add(generation(target, i));
+        }
+        return backups;
+    }
+
+    /**
+     * Returns the path of a backup generation of a file.
+     *
+     * @param target     the file
+     * @param generation the generation, 1 being the most recent
+     * @return the backup file's path, whether or not it exists
+     */
+    static Path generation(Path target, int generation) {
+        return target.resolveSibling(target.getFileName() + GENERATION_SUFFIX + generation);
+    }
+
+    private static void keepCopy(Path target, Path backup) throws IOException {
+        try {
+            Files.createLink(backup, target);
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            Files.copy(target, backup, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Forces the directory entry of a renamed file to disk, where the platform allows it.
+     */
+    private static void forceDirectory(Path file) {
+        Path directory = file.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Not supported on every platform; the rename itself is still atomic
+        }
+    }
+}
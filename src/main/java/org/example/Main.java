@@ -1,11 +1,30 @@
 package org.example;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.Scanner;
 
 public class Main {
-    public static void main(String[] args) {
-        Scanner scnr = new Scanner(System.in);
-        BookInventoryOperations.loadBooksFromCsv();
+    /**
+     * Starts the console program, or with {@code serve [port]} the HTTP service
+     * (see {@link BookServer}) on the given port, 8080 by default.
+     */
+    public static void main(String[] args) throws IOException {
+        BookMetrics.registerMBean();
+        BookMetrics.startDumping(Paths.get(BookInventoryOperations.dataFile() + ".metrics"),
+                Duration.ofSeconds(Long.getLong("bookstore.metrics.interval", 60)));
+        if (!BookInventoryOperations.loadBooksFromSnapshot()) {
+            BookInventoryOperations.loadBooksFromCsv();
+        }
 
+        if (args.length > 0 && args[0].equals("serve")) {
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+            BookServer.start(port); // Its dispatcher thread keeps the JVM running
+            System.out.println("📡 Serving " + BookInventoryOperations.getBooks().size()
+                    + " books on http://localhost:" + port + "/books");
+            return;
+        }
+        Scanner scnr = new Scanner(System.in);
         BookInventoryManager.runProgram(scnr);
     }
-}
\ No newline at end of file
+}
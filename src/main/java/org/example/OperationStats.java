@@ -0,0 +1,71 @@
+package org.example;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Call count, latency percentiles and allocation of one instrumented operation,
+ * as collected by {@link BookMetrics}. Latencies are in nanoseconds; percentiles
+ * are accurate to about 12%.
+ */
+public final class OperationStats {
+    private final String operation;
+    private final long count;
+    private final long meanNanos;
+    private final long p50Nanos;
+    private final long p99Nanos;
+    private final long maxNanos;
+    private final long allocatedBytesPerCall;
+
+    @ConstructorProperties({"operation", "count", "meanNanos", "p50Nanos", "p99Nanos", "maxNanos",
+            "allocatedBytesPerCall"})
+    public OperationStats(String operation, long count, long meanNanos, long p50Nanos, long p99Nanos, long maxNanos,
+                          long allocatedBytesPerCall) {
+        this.operation = operation;
+        this.count = count;
+        this.meanNanos = meanNanos;
+        this.p50Nanos = p50Nanos;
+        this.p99Nanos = p99Nanos;
+        this.maxNanos = maxNanos;
+        this.allocatedBytesPerCall = allocatedBytesPerCall;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMeanNanos() {
+        return meanNanos;
+    }
+
+    public long getP50Nanos() {
+        return p50Nanos;
+    }
+
+    public long getP99Nanos() {
+        return p99Nanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    /**
+     * Returns the average number of bytes the calling thread allocated per call,
+     * estimated from a random sample of calls.
+     *
+     * @return the bytes per call, or 0 if no call has been sampled
+     */
+    public long getAllocatedBytesPerCall() {
+        return allocatedBytesPerCall;
+    }
+
+    @Override
+    public String toString() {
+        return "OperationStats{operation='" + operation + "', count=" + count + ", p50Nanos=" + p50Nanos
+                + ", p99Nanos=" + p99Nanos + ", maxNanos=" + maxNanos + "}";
+    }
+}
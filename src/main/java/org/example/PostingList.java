@@ -0,0 +1,170 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A sorted, duplicate-free list of row numbers used by the search indexes.
+ *
+ * Rows are handed out in increasing order as books are added, so adding a row
+ * is normally a plain append.
+ */
+class PostingList {
+    private static final int[] EMPTY = new int[0];
+
+    private int[] rows = new int[2];
+    private int size;
+
+    /**
+     * Adds a row, keeping the list sorted.
+     *
+     * @param row the row to add
+     */
+    void add(int row) {
+        if (size == rows.length) {
+            rows = Arrays.copyOf(rows, size * 2);
+        }
+        if (size == 0 || rows[size - 1] < row) {
+            rows[size++] = row;
+            return;
+        }
+        int pos = Arrays.binarySearch(rows, 0, size, row);
+        if (pos >= 0) {
+            return;
+        }
+        pos = -pos - 1;
+        System.arraycopy(rows, pos, rows, pos + 1, size - pos);
+        rows[pos] = row;
+        size++;
+    }
+
+    /**
+     * Removes a row if present.
+     *
+     * @param row the row to remove
+     */
+    void remove(int row) {
+        int pos = Arrays.binarySearch(rows, 0, size, row);
+        if (pos >= 0) {
+            System.arraycopy(rows, pos + 1, rows, pos, size - pos - 1);
+            size--;
+        }
+    }
+
+    /**
+     * Removes every row in the given set, in one pass over the list.
+     *
+     * @param removed the rows to remove
+     */
+    void removeAll(BitSet removed) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (!removed.get(rows[i])) {
+                rows[kept++] = rows[i];
+            }
+        }
+        size = kept;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns a sorted copy of the rows in this list.
+     *
+     * @return the rows in ascending order
+     */
+    int[] toArray() {
+        return Arrays.copyOf(rows, size);
+    }
+
+    /**
+     * Merges several posting lists into one sorted, duplicate-free array.
+     *
+     * @param lists the posting lists to merge
+     * @return the union of all rows in ascending order
+     */
+    static int[] union(Collection<PostingList> lists) {
+        if (lists.isEmpty()) {
+            return EMPTY;
+        }
+        if (lists.size() == 1) {
+            return lists.iterator().next().toArray();
+        }
+        List<int[]> rowSets = new ArrayList<>(lists.size());
+        for (PostingList list : lists) {
+            rowSets.add(list.toArray());
+        }
+        return unionRows(rowSets);
+    }
+
+    /**
+     * Merges several row sets into one sorted, duplicate-free array.
+     *
+     * @param rowSets the row sets to merge, in any order
+     * @return the union of all rows in ascending order
+     */
+    static int[] unionRows(List<int[]> rowSets) {
+        int total = 0;
+        for (int[] rows : rowSets) {
+            total += rows.length;
+        }
+        int[] merged = new int[total];
+        int offset = 0;
+        for (int[] rows : rowSets) {
+            System.arraycopy(rows, 0, merged, offset, rows.length);
+            offset += rows.length;
+        }
+        Arrays.sort(merged);
+
+        int unique = 0;
+        for (int i = 0; i < merged.length; i++) {
+            if (unique == 0 || merged[unique - 1] != merged[i]) {
+                merged[unique++] = merged[i];
+            }
+        }
+        return Arrays.copyOf(merged, unique);
+    }
+
+    /**
+     * Intersects several posting lists, starting from the shortest one.
+     *
+     * @param lists the posting lists to intersect
+     * @return the rows present in every list, in ascending order
+     */
+    static int[] intersect(Collection<PostingList> lists) {
+        if (lists.isEmpty()) {
+            return EMPTY;
+        }
+        List<PostingList> bySize = new ArrayList<>(lists);
+        bySize.sort(Comparator.comparingInt(PostingList::size));
+
+        int[] result = bySize.get(0).toArray();
+        int length = result.length;
+        for (int l = 1; l < bySize.size() && length > 0; l++) {
+            PostingList other = bySize.get(l);
+            int kept = 0;
+            int j = 0;
+            for (int i = 0; i < length && j < other.size; i++) {
+                int row = result[i];
+                while (j < other.size && other.rows[j] < row) {
+                    j++;
+                }
+                if (j < other.size && other.rows[j] == row) {
+                    result[kept++] = row;
+                }
+            }
+            length = kept;
+        }
+        return Arrays.copyOf(result, length);
+    }
+}
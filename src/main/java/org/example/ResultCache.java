@@ -0,0 +1,277 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+/**
+ * Bounded LRU cache of the rows matching single-field searches, kept exact by {@link BookList}.
+ *
+ * Entries are keyed by the search's match type, field and normalized term (lower
+ * case for the case-insensitive matches), so the same search in any letter case,
+ * sort order or page window shares one entry. The cached value is the matching
+ * row numbers; the caller still windows, sorts and materializes them under its
+ * own read, so a hit costs what a query of a known row set costs.
+ *
+ * As a {@link BookIndex} the cache hears about every add and remove, and drops
+ * exactly the entries whose search matches the added or removed book; other
+ * entries stay valid. A bulk removal of more books than there are entries drops
+ * everything instead, which is cheaper than matching each entry against each
+ * book, as does a clear (which compaction also does, as it renumbers rows). To keep a search that ran concurrently with a change from
+ * caching its result after the change's invalidation, each change bumps a version,
+ * and a result is only stored if the version it was computed under is current.
+ *
+ * The cache is bounded both in entries and in cached rows; the least recently
+ * used entries are evicted first. All methods synchronize on the cache, which is
+ * held only for map operations.
+ */
+final class ResultCache implements BookIndex {
+    private final int maxEntries;
+    private final long maxRows;
+    private final LinkedHashMap<Key, int[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedRows;
+    private long version;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param maxEntries the most searches to keep
+     * @param maxRows    the most matching rows to keep across all searches; 0 disables the cache
+     */
+    ResultCache(int maxEntries, long maxRows) {
+        this.maxEntries = maxEntries;
+        this.maxRows = maxRows;
+    }
+
+    /**
+     * Returns the cache key of a query, or null if the query is not cached.
+     * Single-field equality, substring, word and word-prefix searches are cached;
+     * listing every book is already cheap, an ID lookup is a single probe of the
+     * primary-key index, and fuzzy and compound queries are not keyed by one
+     * (field, term) pair.
+     *
+     * @param query the query
+     * @return the key, ignoring the query's sort order and page window
+     */
+    static Key key(BookQuery query) {
+        return switch (query.getMatch()) {
+            case EQUALS -> query.getField() == BookField.ID
+                    ? null
+                    : new Key(query.getMatch(), query.getField(), query.getText());
+            case CONTAINS, WORD, WORD_PREFIX ->
+                    new Key(query.getMatch(), query.getField(), query.getText().toLowerCase());
+            default -> null;
+        };
+    }
+
+    /**
+     * Returns the current version, to be passed back to {@link #put} with a result
+     * computed after this call.
+     *
+     * @return the version
+     */
+    synchronized long version() {
+        return version;
+    }
+
+    /**
+     * Returns the cached rows of a search and marks the entry as recently used.
+     * Does not count as a hit or miss; see {@link #recordLookup}.
+     *
+     * @param key the search
+     * @return the matching rows, which must not be modified, or null if not cached
+     */
+    synchronized int[] get(Key key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Counts a lookup once its outcome is final.
+     *
+     * @param hit whether the rows came from the cache
+     */
+    synchronized void recordLookup(boolean hit) {
+        if (hit) {
+            hits++;
+        } else {
+            misses++;
+        }
+    }
+
+    /**
+     * Caches the rows of a search, unless the inventory changed since {@code version}
+     * was read or the rows alone would take more than a quarter of the cache.
+     *
+     * @param key     the search
+     * @param rows    the matching rows; not copied, so must not be modified afterwards
+     * @param version the version read before the rows were computed
+     */
+    synchronized void put(Key key, int[] rows, long version) {
+        if (version != this.version || rows.length > maxRows / 4) {
+            return;
+        }
+        int[] previous = entries.put(key, rows);
+        cachedRows += rows.length - (previous == null ? 0 : previous.length);
+        Iterator<int[]> eldest = entries.values().iterator();
+        while (entries.size() > maxEntries || cachedRows > maxRows) {
+            cachedRows -= eldest.next().length;
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Returns the hit, miss, eviction and invalidation counts and the current size.
+     *
+     * @return the statistics
+     */
+    synchronized CacheStats stats() {
+        return new CacheStats(hits, misses, evictions, invalidations, entries.size(), cachedRows);
+    }
+
+    @Override
+    public synchronized void add(int row, Book book) {
+        invalidate(book);
+    }
+
+    @Override
+    public synchronized void addAll(int firstRow, List<Book> books) {
+        if (books.size() > entries.size()) {
+            clear();
+        } else {
+            BookIndex.super.addAll(firstRow, books);
+        }
+    }
+
+    @Override
+    public synchronized void remove(int row, Book book) {
+        invalidate(book);
+    }
+
+    @Override
+    public synchronized void removeAll(BitSet rows, IntFunction<Book> books) {
+        if (rows.cardinality() > entries.size()) {
+            clear();
+        } else {
+            BookIndex.super.removeAll(rows, books);
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        version++;
+        invalidations += entries.size();
+        entries.clear();
+        cachedRows = 0;
+    }
+
+    private void invalidate(Book book) {
+        version++;
+        if (entries.isEmpty()) {
+            return;
+        }
+        FieldValues values = new FieldValues(book);
+        Iterator<Map.Entry<Key, int[]>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, int[]> entry = it.next();
+            if (entry.getKey().matches(values)) {
+                cachedRows -= entry.getValue().length;
+                it.remove();
+                invalidations++;
+            }
+        }
+    }
+
+    /**
+     * A normalized single-field search.
+     */
+    static final class Key {
+        private final BookQuery.Match match;
+        private final BookField field;
+        private final String term;
+
+        private Key(BookQuery.Match match, BookField field, String term) {
+            this.match = match;
+            this.field = field;
+            this.term = term;
+        }
+
+        /**
+         * Tells whether the search matches a book, with the same rules {@link BookList} uses.
+         */
+        private boolean matches(FieldValues book) {
+            return switch (match) {
+                case EQUALS -> term.equals(book.value(field));
+                case CONTAINS -> book.lowered(field) != null && book.lowered(field).contains(term);
+                case WORD -> book.tokens(field).contains(term);
+                case WORD_PREFIX -> book.tokens(field).stream().anyMatch(token -> token.startsWith(term));
+                default -> true;
+            };
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other && match == other.match && field == other.field && term.equals(other.term);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(match, field, term);
+        }
+
+        @Override
+        public String toString() {
+            return match + " " + field + " '" + term + "'";
+        }
+    }
+
+    /**
+     * A book's field values, lower-cased and tokenized at most once however many
+     * cached searches they are checked against.
+     */
+    private static final class FieldValues {
+        private final Book book;
+        private final String[] lowered = new String[BookField.values().length];
+        private final List<Set<String>> tokens = new ArrayList<>(Collections.nCopies(BookField.values().length, null));
+
+        FieldValues(Book book) {
+            this.book = book;
+        }
+
+        String value(BookField field) {
+            return switch (field) {
+                case ID -> book.getId();
+                case TITLE -> book.getTitle();
+                case AUTHOR -> book.getAuthor();
+                case LOCATION -> book.getLocation();
+            };
+        }
+
+        String lowered(BookField field) {
+            int i = field.ordinal();
+            if (lowered[i] == null && value(field) != null) {
+                lowered[i] = value(field).toLowerCase();
+            }
+            return lowered[i];
+        }
+
+        Set<String> tokens(BookField field) {
+            int i = field.ordinal();
+            if (tokens.get(i) == null) {
+                tokens.set(i, TokenIndex.tokenize(value(field)));
+            }
+            return tokens.get(i);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Dictionary of canonical String instances for a low-cardinality book field,
+ * owned by one {@link BookColumns} store.
+ *
+ * A catalog has only a few dozen distinct authors and a handful of locations,
+ * repeated across every row. Storing a small integer code per row means each
+ * distinct value is held in memory once, columnar storage keeps an {@code int}
+ * per row instead of a reference, and equality filters compare codes.
+ *
+ * Values are added only when a row holding them is stored, and the dictionary
+ * counts the stored rows holding each value. A value whose last row is removed
+ * keeps its code, since the removed row's code stays readable until the store is
+ * compacted, but it no longer matches any lookup or filter. {@link #compact()}
+ * then drops it and renumbers the rest, so the dictionary follows the values in
+ * the catalog rather than every value it ever held.
+ *
+ * Writes are serialized by the owning list. Readers may run concurrently with a
+ * write; every array they read is replaced whole, never resized in place.
+ */
+final class StringDictionary {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private volatile ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] values = new String[INITIAL_CAPACITY];
+    private volatile int[] rowCounts = new int[INITIAL_CAPACITY];
+    private int size; // guarded by this
+
+    /**
+     * Returns the code of the given value for a row being stored, adding the value
+     * if it is new, and counts the row as holding it.
+     *
+     * @param value the value to encode, may be null
+     * @return the value's code, or -1 if value is null
+     */
+    synchronized int acquire(String value) {
+        if (value == null) {
+            return -1;
+        }
+        Integer code = codes.get(value);
+        if (code == null) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+                rowCounts = Arrays.copyOf(rowCounts, size * 2);
+            }
+            values[size] = value;
+            code = size++;
+            codes.put(value, code); // Publishes the slot written above
+        }
+        rowCounts[code]++;
+        return code;
+    }
+
+    /**
+     * Records that a row holding the value with the given code was removed.
+     *
+     * @param code the code handed out by {@link #acquire(String)}, or -1 for null
+     */
+    synchronized void release(int code) {
+        if (code >= 0) {
+            rowCounts[code]--;
+        }
+    }
+
+    /**
+     * Returns the value for a code handed out by {@link #acquire(String)}.
+     *
+     * @param code the code, or -1 for null
+     * @return the canonical value
+     */
+    String value(int code) {
+        return code < 0 ? null : values[code];
+    }
+
+    /**
+     * Returns the code of the given value without adding it.
+     * A result of -1 means no stored book holds this value, so an equality
+     * filter on it cannot match anything.
+     *
+     * @param value the value to look up
+     * @return the value's code, or -1 if no stored row holds the value
+     */
+    int lookupCode(String value) {
+        Integer code = value == null ? null : codes.get(value);
+        return code == null || rowCounts[code] <= 0 ? -1 : code;
+    }
+
+    /**
+     * Returns the canonical instance of the given value without adding it.
+     *
+     * @param value the value to look up
+     * @return the shared instance, or null if no stored row holds the value
+     */
+    String lookup(String value) {
+        return value(lookupCode(value));
+    }
+
+    /**
+     * Returns the codes of every value accepted by the predicate, among the values
+     * some stored row holds. This touches each distinct value once instead of once per book.
+     *
+     * @param predicate the test to apply to each value
+     * @return a set of matching codes
+     */
+    BitSet matchingCodes(Predicate<String> predicate) {
+        String[] snapshot;
+        int[] counts;
+        int count;
+        synchronized (this) {
+            snapshot = values;
+            counts = rowCounts;
+            count = size;
+        }
+        BitSet matches = new BitSet(count);
+        for (int code = 0; code < count; code++) {
+            if (counts[code] > 0 && predicate.test(snapshot[code])) {
+                matches.set(code);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Ranks every value under the given order, so that rows can be sorted by
+     * comparing the ranks of their codes instead of the Strings themselves.
+     * Values the comparator considers equal share a rank.
+     *
+     * @param order the order to rank by
+     * @return the rank of each code, indexed by code
+     */
+    int[] ranks(Comparator<String> order) {
+        String[] snapshot;
+        int count;
+        synchronized (this) {
+            snapshot = values;
+            count = size;
+        }
+        Integer[] codesInOrder = new Integer[count];
+        for (int code = 0; code < count; code++) {
+            codesInOrder[code] = code;
+        }
+        Arrays.sort(codesInOrder, (a, b) -> order.compare(snapshot[a], snapshot[b]));
+        int[] ranks = new int[count];
+        for (int i = 1; i < count; i++) {
+            int previous = codesInOrder[i - 1];
+            int code = codesInOrder[i];
+            ranks[code] = ranks[previous] + (order.compare(snapshot[previous], snapshot[code]) == 0 ? 0 : 1);
+        }
+        return ranks;
+    }
+
+    /**
+     * Returns the number of codes handed out, including those of values no
+     * stored row holds any more but that have not been compacted away yet.
+     *
+     * @return the dictionary size
+     */
+    int size() {
+        return codes.size();
+    }
+
+    /**
+     * Drops every value no stored row holds and renumbers the rest, keeping their
+     * order. Called by the store when it compacts, so no row still refers to a dropped code.
+     *
+     * @return a mapping from each old code to its new code, or -1 if the value was dropped
+     */
+    synchronized int[] compact() {
+        int[] remap = new int[size];
+        String[] keptValues = new String[Math.max(INITIAL_CAPACITY, size)];
+        int[] keptCounts = new int[keptValues.length];
+        ConcurrentHashMap<String, Integer> keptCodes = new ConcurrentHashMap<>();
+        int next = 0;
+        for (int code = 0; code < size; code++) {
+            if (rowCounts[code] <= 0) {
+                remap[code] = -1;
+                continue;
+            }
+            keptValues[next] = values[code];
+            keptCounts[next] = rowCounts[code];
+            keptCodes.put(values[code], next);
+            remap[code] = next++;
+        }
+        values = keptValues;
+        rowCounts = keptCounts;
+        codes = keptCodes;
+        size = next;
+        return remap;
+    }
+
+    /**
+     * Returns an independent copy of this dictionary, codes and row counts included.
+     *
+     * @return the copy
+     */
+    synchronized StringDictionary copy() {
+        StringDictionary copy = new StringDictionary();
+        copy.values = values.clone();
+        copy.rowCounts = rowCounts.clone();
+        copy.codes = new ConcurrentHashMap<>(codes);
+        copy.size = size;
+        return copy;
+    }
+
+    /**
+     * Drops every value.
+     */
+    synchronized void clear() {
+        values = new String[INITIAL_CAPACITY];
+        rowCounts = new int[INITIAL_CAPACITY];
+        codes = new ConcurrentHashMap<>();
+        size = 0;
+    }
+}
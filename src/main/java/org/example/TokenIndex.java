@@ -0,0 +1,306 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.IntFunction;
+
+/**
+ * Inverted index from normalized (lowercased) word tokens to the rows that contain them.
+ *
+ * Each field keeps its own sorted vocabulary, so a whole-word lookup is a single
+ * map lookup and a prefix lookup is a range scan over the vocabulary. The index can
+ * also narrow a case-insensitive "contains" search down to a candidate set that is
+ * guaranteed to include every match, which the caller then checks exactly.
+ * The vocabularies are concurrent maps so that lock-free readers racing a writer
+ * can never corrupt or loop in them; the caller still validates what it read.
+ *
+ * Every word that enters a vocabulary is also added to the field's {@link BkTree},
+ * so typo-tolerant lookups only compare against words near the query word.
+ */
+class TokenIndex implements BookIndex {
+    private final Map<BookField, ConcurrentSkipListMap<String, PostingList>> vocabularies = new EnumMap<>(BookField.class);
+    private final Map<BookField, BkTree> similarWords = new EnumMap<>(BookField.class);
+
+    /**
+     * Creates a token index over the given fields.
+     *
+     * @param fields the fields to index
+     */
+    TokenIndex(BookField... fields) {
+        for (BookField field : fields) {
+            vocabularies.put(field, new ConcurrentSkipListMap<>());
+            similarWords.put(field, new BkTree());
+        }
+    }
+
+    @Override
+    public void add(int row, Book book) {
+        for (Map.Entry<BookField, ConcurrentSkipListMap<String, PostingList>> entry : vocabularies.entrySet()) {
+            ConcurrentSkipListMap<String, PostingList> vocabulary = entry.getValue();
+            for (String token : tokenize(entry.getKey().valueOf(book))) {
+                PostingList rows = vocabulary.get(token);
+                if (rows == null) {
+                    rows = new PostingList();
+                    vocabulary.put(token, rows);
+                    similarWords.get(entry.getKey()).add(token);
+                }
+                rows.add(row);
+            }
+        }
+    }
+
+    @Override
+    public void remove(int row, Book book) {
+        for (Map.Entry<BookField, ConcurrentSkipListMap<String, PostingList>> entry : vocabularies.entrySet()) {
+            ConcurrentSkipListMap<String, PostingList> vocabulary = entry.getValue();
+            for (String token : tokenize(entry.getKey().valueOf(book))) {
+                PostingList rows = vocabulary.get(token);
+                if (rows != null) {
+                    rows.remove(row);
+                    if (rows.isEmpty()) {
+                        vocabulary.remove(token);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Collects the words of every removed book first, then filters each affected
+     * posting list once, so a bulk removal costs one pass per list rather than
+     * one array shift per removed row.
+     */
+    @Override
+    public void removeAll(BitSet rows, IntFunction<Book> books) {
+        for (Map.Entry<BookField, ConcurrentSkipListMap<String, PostingList>> entry : vocabularies.entrySet()) {
+            Set<String> touched = new LinkedHashSet<>();
+            for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+                touched.addAll(tokenize(entry.getKey().valueOf(books.apply(row))));
+            }
+            ConcurrentSkipListMap<String, PostingList> vocabulary = entry.getValue();
+            for (String token : touched) {
+                PostingList postings = vocabulary.get(token);
+                if (postings != null) {
+                    postings.removeAll(rows);
+                    if (postings.isEmpty()) {
+                        vocabulary.remove(token);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (ConcurrentSkipListMap<String, PostingList> vocabulary : vocabularies.values()) {
+            vocabulary.clear();
+        }
+        for (BkTree tree : similarWords.values()) {
+            tree.clear();
+        }
+    }
+
+    /**
+     * Returns true if this index covers the given field.
+     *
+     * @param field the field to check
+     * @return true if the field is indexed
+     */
+    boolean covers(BookField field) {
+        return vocabularies.containsKey(field);
+    }
+
+    /**
+     * Finds the rows whose field contains the given whole word (case-insensitive).
+     *
+     * @param field the field to search
+     * @param word  the word to look for
+     * @return matching rows in ascending order
+     */
+    int[] word(BookField field, String word) {
+        PostingList rows = vocabularies.get(field).get(word.toLowerCase());
+        return rows == null ? new int[0] : rows.toArray();
+    }
+
+    /**
+     * Finds the rows whose field contains a word starting with the given prefix (case-insensitive).
+     *
+     * @param field  the field to search
+     * @param prefix the word prefix to look for
+     * @return matching rows in ascending order
+     */
+    int[] wordPrefix(BookField field, String prefix) {
+        String from = prefix.toLowerCase();
+        return PostingList.union(vocabularies.get(field).subMap(from, from + Character.MAX_VALUE).values());
+    }
+
+    /**
+     * Narrows a case-insensitive substring search to a set of candidate rows.
+     *
+     * Every word in the needle must sit inside some word of a matching value. A word
+     * with separators on both sides in the needle must be a whole word of the value,
+     * one with a separator before it must start a word, and so on. The most selective
+     * of those constraints is resolved against the vocabulary.
+     *
+     * @param field  the field to search
+     * @param needle the lowercased text to search for
+     * @return candidate rows in ascending order, or null if the needle has no
+     *         word characters and cannot be narrowed
+     */
+    int[] candidates(BookField field, String needle) {
+        List<PostingList> postings = candidatePostings(field, needle);
+        return postings == null ? null : PostingList.union(postings);
+    }
+
+    /**
+     * Estimates how many rows {@link #candidates(BookField, String)} would return,
+     * without merging any posting lists. Used by the query planner to rank predicates.
+     *
+     * @param field  the field to search
+     * @param needle the lowercased text to search for
+     * @return an upper bound on the candidate count, or -1 if the needle cannot be narrowed
+     */
+    int estimate(BookField field, String needle) {
+        List<PostingList> postings = candidatePostings(field, needle);
+        if (postings == null) {
+            return -1;
+        }
+        long total = 0;
+        for (PostingList rows : postings) {
+            total += rows.size();
+        }
+        return (int) Math.min(total, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Finds the words of a field within the given edit distance of a lowercased word.
+     * Words that once appeared but no longer occur in any row are left out.
+     *
+     * @param field       the field to search
+     * @param word        the lowercased word
+     * @param maxDistance the largest edit distance to accept
+     * @return each similar word mapped to its edit distance from {@code word}
+     */
+    Map<String, Integer> similarWords(BookField field, String word, int maxDistance) {
+        ConcurrentSkipListMap<String, PostingList> vocabulary = vocabularies.get(field);
+        Map<String, Integer> similar = new HashMap<>();
+        similarWords.get(field).search(word, maxDistance, (candidate, distance) -> {
+            if (vocabulary.containsKey(candidate)) {
+                similar.put(candidate, distance);
+            }
+        });
+        return similar;
+    }
+
+    /**
+     * Returns the number of rows whose field contains the given whole lowercased word.
+     *
+     * @param field the field to search
+     * @param word  the lowercased word
+     * @return the row count
+     */
+    int count(BookField field, String word) {
+        PostingList rows = vocabularies.get(field).get(word);
+        return rows == null ? 0 : rows.size();
+    }
+
+    /**
+     * Returns the number of rows whose field contains a word starting with the
+     * given lowercased prefix, counting a row once per matching word.
+     *
+     * @param field  the field to search
+     * @param prefix the lowercased word prefix
+     * @return an upper bound on the row count
+     */
+    int prefixCount(BookField field, String prefix) {
+        long total = 0;
+        for (PostingList rows : vocabularies.get(field).subMap(prefix, prefix + Character.MAX_VALUE).values()) {
+            total += rows.size();
+        }
+        return (int) Math.min(total, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Picks the most selective word constraint in the needle and returns the
+     * posting lists that satisfy it, or null if the needle has no word characters.
+     */
+    private List<PostingList> candidatePostings(BookField field, String needle) {
+        String best = null;
+        int bestRank = -1;
+
+        int i = 0;
+        while (i < needle.length()) {
+            if (!Character.isLetterOrDigit(needle.charAt(i))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < needle.length() && Character.isLetterOrDigit(needle.charAt(i))) {
+                i++;
+            }
+            // Rank: 3 = whole word, 2 = word prefix, 1 = word suffix, 0 = anywhere in a word
+            int rank = (start > 0 ? 2 : 0) + (i < needle.length() ? 1 : 0);
+            String token = needle.substring(start, i);
+            if (rank > bestRank || (rank == bestRank && token.length() > best.length())) {
+                best = token;
+                bestRank = rank;
+            }
+        }
+        if (best == null) {
+            return null;
+        }
+
+        ConcurrentSkipListMap<String, PostingList> vocabulary = vocabularies.get(field);
+        switch (bestRank) {
+            case 3:
+                PostingList rows = vocabulary.get(best);
+                return rows == null ? List.of() : List.of(rows);
+            case 2:
+                return new ArrayList<>(vocabulary.subMap(best, best + Character.MAX_VALUE).values());
+            default:
+                List<PostingList> matches = new ArrayList<>();
+                for (Map.Entry<String, PostingList> entry : vocabulary.entrySet()) {
+                    String word = entry.getKey();
+                    if (bestRank == 1 ? word.endsWith(best) : word.contains(best)) {
+                        matches.add(entry.getValue());
+                    }
+                }
+                return matches;
+        }
+    }
+
+    /**
+     * Splits a value into its distinct lowercased word tokens.
+     * A word is a run of letters or digits.
+     *
+     * @param value the value to split, may be null
+     * @return the distinct tokens in order of first appearance
+     */
+    static Set<String> tokenize(String value) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (value == null) {
+            return tokens;
+        }
+        String lower = value.toLowerCase();
+        int i = 0;
+        while (i < lower.length()) {
+            if (!Character.isLetterOrDigit(lower.charAt(i))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < lower.length() && Character.isLetterOrDigit(lower.charAt(i))) {
+                i++;
+            }
+            tokens.add(lower.substring(start, i));
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,89 @@
+package org.example;
+
+/**
+ * Selects the first k rows of a sequence under a given order without sorting all of them.
+ *
+ * The best k rows seen so far are kept in a bounded binary max-heap whose root is
+ * the worst row kept. A row that does not make the cut costs one comparison with
+ * the root; one that does costs O(log k). Taking the first 20 of a million
+ * matches therefore stays close to a single pass over the matches.
+ */
+final class TopRows {
+
+    /**
+     * A total order on rows. Implementations should break ties (for example by row
+     * number) so that the selection is deterministic.
+     */
+    @FunctionalInterface
+    interface RowOrder {
+        int compare(int a, int b);
+    }
+
+    private TopRows() {
+    }
+
+    /**
+     * Returns the first k rows under the given order, sorted.
+     *
+     * @param rows  the rows to select from
+     * @param k     the maximum number of rows to return
+     * @param order the order to select by
+     * @return the first {@code min(k, rows.length)} rows in ascending order
+     */
+    static int[] select(int[] rows, int k, RowOrder order) {
+        int capacity = Math.min(k, rows.length);
+        if (capacity <= 0) {
+            return new int[0];
+        }
+        int[] heap = new int[capacity];
+        int size = 0;
+        for (int row : rows) {
+            if (size < capacity) {
+                heap[size] = row;
+                siftUp(heap, size++, order);
+            } else if (order.compare(row, heap[0]) < 0) {
+                heap[0] = row;
+                siftDown(heap, size, order);
+            }
+        }
+        // Pop the worst row into the last free slot until the heap is empty
+        for (int last = size - 1; last > 0; last--) {
+            int worst = heap[0];
+            heap[0] = heap[last];
+            heap[last] = worst;
+            siftDown(heap, last, order);
+        }
+        return heap;
+    }
+
+    private static void siftUp(int[] heap, int index, RowOrder order) {
+        int row = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (order.compare(row, heap[parent]) <= 0) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = row;
+    }
+
+    private static void siftDown(int[] heap, int size, RowOrder order) {
+        int row = heap[0];
+        int index = 0;
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && order.compare(heap[child + 1], heap[child]) > 0) {
+                child++;
+            }
+            if (order.compare(row, heap[child]) >= 0) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = row;
+    }
+}
@@ -0,0 +1,161 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+/**
+ * N-gram index from every lowercased three-character sequence of a value to the rows containing it.
+ *
+ * A value can only contain a needle if it contains every trigram of that needle,
+ * so intersecting the needle's posting lists gives a small candidate set for any
+ * substring search of three characters or more, including matches inside a word
+ * (e.g. "usket" in "Musketeers"). Callers still check each candidate exactly.
+ */
+class TrigramIndex implements BookIndex {
+    static final int GRAM_LENGTH = 3;
+
+    private final Map<BookField, Map<Long, PostingList>> grams = new EnumMap<>(BookField.class);
+
+    /**
+     * Creates a trigram index over the given fields.
+     *
+     * @param fields the fields to index
+     */
+    TrigramIndex(BookField... fields) {
+        for (BookField field : fields) {
+            grams.put(field, new ConcurrentHashMap<>()); // Safe to read while a writer resizes it
+        }
+    }
+
+    @Override
+    public void add(int row, Book book) {
+        for (Map.Entry<BookField, Map<Long, PostingList>> entry : grams.entrySet()) {
+            Map<Long, PostingList> postings = entry.getValue();
+            for (long gram : trigrams(lower(entry.getKey().valueOf(book)))) {
+                postings.computeIfAbsent(gram, g -> new PostingList()).add(row);
+            }
+        }
+    }
+
+    @Override
+    public void remove(int row, Book book) {
+        for (Map.Entry<BookField, Map<Long, PostingList>> entry : grams.entrySet()) {
+            Map<Long, PostingList> postings = entry.getValue();
+            for (long gram : trigrams(lower(entry.getKey().valueOf(book)))) {
+                PostingList rows = postings.get(gram);
+                if (rows != null) {
+                    rows.remove(row);
+                    if (rows.isEmpty()) {
+                        postings.remove(gram);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Collects the trigrams of every removed book first, then filters each
+     * affected posting list once.
+     */
+    @Override
+    public void removeAll(BitSet rows, IntFunction<Book> books) {
+        for (Map.Entry<BookField, Map<Long, PostingList>> entry : grams.entrySet()) {
+            Set<Long> touched = new LinkedHashSet<>();
+            for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+                touched.addAll(trigrams(lower(entry.getKey().valueOf(books.apply(row)))));
+            }
+            Map<Long, PostingList> postings = entry.getValue();
+            for (long gram : touched) {
+                PostingList list = postings.get(gram);
+                if (list != null) {
+                    list.removeAll(rows);
+                    if (list.isEmpty()) {
+                        postings.remove(gram);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (Map<Long, PostingList> postings : grams.values()) {
+            postings.clear();
+        }
+    }
+
+    /**
+     * Returns true if this index can narrow a search for the given needle.
+     *
+     * @param field  the field to search
+     * @param needle the lowercased text to search for
+     * @return true if the field is indexed and the needle is long enough
+     */
+    boolean canNarrow(BookField field, String needle) {
+        return grams.containsKey(field) && needle.length() >= GRAM_LENGTH;
+    }
+
+    /**
+     * Narrows a case-insensitive substring search to the rows containing every trigram of the needle.
+     *
+     * @param field  the field to search
+     * @param needle the lowercased text to search for, at least three characters long
+     * @return candidate rows in ascending order
+     */
+    int[] candidates(BookField field, String needle) {
+        Map<Long, PostingList> postings = grams.get(field);
+        List<PostingList> lists = new ArrayList<>();
+        for (long gram : trigrams(needle)) {
+            PostingList rows = postings.get(gram);
+            if (rows == null) {
+                return new int[0];
+            }
+            lists.add(rows);
+        }
+        return PostingList.intersect(lists);
+    }
+
+    /**
+     * Estimates how many candidates {@link #candidates(BookField, String)} would
+     * return, as the size of the rarest trigram's posting list. Used by the query
+     * planner to rank predicates without intersecting anything.
+     *
+     * @param field  the field to search
+     * @param needle the lowercased text to search for; at least three characters long
+     * @return an upper bound on the candidate count
+     */
+    int estimate(BookField field, String needle) {
+        Map<Long, PostingList> postings = grams.get(field);
+        int smallest = Integer.MAX_VALUE;
+        for (long gram : trigrams(needle)) {
+            PostingList rows = postings.get(gram);
+            if (rows == null) {
+                return 0;
+            }
+            smallest = Math.min(smallest, rows.size());
+        }
+        return smallest;
+    }
+
+    /**
+     * Returns the distinct trigrams of a value, each packed into a long (16 bits per char).
+     */
+    private static Set<Long> trigrams(String value) {
+        Set<Long> result = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= value.length(); i++) {
+            result.add(((long) value.charAt(i) << 32) | ((long) value.charAt(i + 1) << 16) | value.charAt(i + 2));
+        }
+        return result;
+    }
+
+    private static String lower(String value) {
+        return value == null ? "" : value.toLowerCase();
+    }
+}
@@ -0,0 +1,65 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BkTreeTest {
+
+    @Test
+    void testDistance() {
+        assertEquals(0, BkTree.distance("tolstoy", "tolstoy"));
+        assertEquals(1, BkTree.distance("tolstoi", "tolstoy"));
+        assertEquals(1, BkTree.distance("musketers", "musketeers"));
+        assertEquals(3, BkTree.distance("kitten", "sitting"));
+        assertEquals(4, BkTree.distance("", "dune"));
+    }
+
+    @Test
+    void testSearchMatchesBruteForce() {
+        Random random = new Random(18);
+        BkTree tree = new BkTree();
+        Set<String> words = new HashSet<>();
+        for (int i = 0; i < 3000; i++) {
+            String word = randomWord(random);
+            words.add(word);
+            tree.add(word);
+            tree.add(word); // Adding twice is a no-op
+        }
+
+        for (int i = 0; i < 200; i++) {
+            String query = randomWord(random);
+            int maxDistance = random.nextInt(3);
+            Map<String, Integer> expected = new HashMap<>();
+            for (String word : words) {
+                int distance = BkTree.distance(query, word);
+                if (distance <= maxDistance) {
+                    expected.put(word, distance);
+                }
+            }
+            Map<String, Integer> found = new HashMap<>();
+            tree.search(query, maxDistance, found::put);
+            assertEquals(expected, found, query);
+        }
+
+        tree.clear();
+        Map<String, Integer> found = new HashMap<>();
+        tree.search("abc", 2, found::put);
+        assertTrue(found.isEmpty());
+    }
+
+    private static String randomWord(Random random) {
+        StringBuilder word = new StringBuilder();
+        int length = 2 + random.nextInt(6);
+        for (int i = 0; i < length; i++) {
+            word.append((char) ('a' + random.nextInt(6))); // Small alphabet so neighbours exist
+        }
+        return word.toString();
+    }
+}
@@ -0,0 +1,118 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookCsvCodecTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testWritesCurrentLayoutQuotingOnlyWhereNeeded() throws IOException {
+        StringWriter out = new StringWriter();
+        int written = BookCsvCodec.write(out, List.of(
+                new Book("1", "Plain", "Quahog", "Jane Austen"),
+                new Book("2", "Dune, Part One", " Arrakis", "Say \"Hi\" \\ there")));
+
+        assertEquals(2, written);
+        assertEquals("id,title,author,location\n"
+                + "1,Plain,Jane Austen,Quahog\n"
+                + "2,\"Dune, Part One\",\"Say \"\"Hi\"\" \\\\ there\",\" Arrakis\"\n", out.toString());
+    }
+
+    @Test
+    void testWrittenBooksReadBackUnchanged() throws IOException {
+        Random random = new Random(24);
+        String alphabet = "ab ,\"\\\n\r'é";
+        List<Book> books = new ArrayList<>();
+        for (int i = 1; i <= 500; i++) {
+            books.add(new Book(String.valueOf(i), randomText(random, alphabet), randomText(random, alphabet),
+                    randomText(random, alphabet)));
+        }
+        Path file = dir.resolve("round-trip.csv");
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            BookCsvCodec.write(out, books);
+        }
+
+        List<Book> loaded = CsvBookLoader.load(file);
+
+        assertEquals(books.size(), loaded.size());
+        for (int i = 0; i < books.size(); i++) {
+            Book expected = books.get(i);
+            Book actual = loaded.get(i);
+            assertEquals(expected.getId(), actual.getId());
+            assertEquals(lineBreaks(expected.getTitle()), actual.getTitle(), "row " + i);
+            assertEquals(lineBreaks(expected.getAuthor()), actual.getAuthor(), "row " + i);
+            assertEquals(lineBreaks(expected.getLocation()), actual.getLocation(), "row " + i);
+        }
+    }
+
+    @Test
+    void testForHeaderRequiresTitleAndDistinctColumns() throws IOException {
+        BookCsvCodec codec = BookCsvCodec.forHeader(List.of(" Title ", "isbn", "AUTHOR"));
+        assertArrayEquals(new int[]{BookCsvCodec.TITLE, -1, BookCsvCodec.AUTHOR}, codec.columns());
+        assertEquals(3, codec.width());
+
+        assertThrows(IOException.class, () -> BookCsvCodec.forHeader(List.of("id", "author", "location")));
+        assertThrows(IOException.class, () -> BookCsvCodec.forHeader(List.of("title", "author", "Author")));
+    }
+
+    @Test
+    void testReadChecksRowsAgainstTheHeader() throws IOException {
+        BookCsvCodec codec = BookCsvCodec.forHeader(List.of("id", "title", "author", "location"));
+
+        assertEquals(new Book("7", "1984", "Quahog", "George Orwell"),
+                codec.read(new String[]{"7", "1984", "George Orwell", "Quahog"}));
+        assertNull(codec.read(new String[]{"ID", "Title", "Author", "Location"}));
+        assertThrows(IOException.class, () -> codec.read(new String[]{"id", "title", "location", "author"}));
+    }
+
+    @Test
+    void testReadsNumericFieldsAndFreeTextIds() throws IOException {
+        BookCsvCodec codec = BookCsvCodec.forHeader(List.of("id", "title", "author", "location"));
+
+        assertEquals(new Book("ISBN-x", "Title", "12", "Author"),
+                codec.read(new String[]{"ISBN-x", "Title", "Author", "12"}));
+        assertEquals(new Book("Me", "1001", "Chicago", "The Doer"),
+                codec.read(new String[]{"Me", "1001", "The Doer", "Chicago"}));
+    }
+
+    @Test
+    void testBlankIdIsAbsent() throws IOException {
+        BookCsvCodec codec = BookCsvCodec.forHeader(List.of("id", "title", "author", "location"));
+
+        Book book = codec.read(new String[]{"", "1984", "George Orwell", "Shelf A"});
+        assertNull(book.getId());
+        assertEquals("1984", book.getTitle());
+        assertNull(codec.read(new String[]{" ", "Emma", "Jane Austen", "Quahog"}).getId());
+    }
+
+    /**
+     * A quoted line break reads back as '\n', as OpenCSV does.
+     */
+    private static String lineBreaks(String text) {
+        return text.replace("\r\n", "\n").replace('\r', '\n');
+    }
+
+    private static String randomText(Random random, String alphabet) {
+        StringBuilder text = new StringBuilder();
+        int length = 1 + random.nextInt(8);
+        for (int i = 0; i < length; i++) {
+            text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return text.toString();
+    }
+}
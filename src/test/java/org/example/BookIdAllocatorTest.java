@@ -0,0 +1,57 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookIdAllocatorTest {
+
+    @Test
+    void testNextAfterObservedIds() {
+        BookIdAllocator allocator = new BookIdAllocator();
+        allocator.observe("5");
+        allocator.observe("10");
+        allocator.observe("abc"); // Non-numeric IDs are skipped
+        allocator.observe("7");
+
+        assertEquals("11", allocator.next());
+        assertEquals("12", allocator.next());
+    }
+
+    @Test
+    void testReserveBlock() {
+        BookIdAllocator allocator = new BookIdAllocator();
+        allocator.observe("100");
+
+        int first = allocator.reserve(50);
+        assertEquals(101, first);
+        assertEquals(150, allocator.highWaterMark());
+        assertEquals("151", allocator.next());
+        assertThrows(IllegalArgumentException.class, () -> allocator.reserve(0));
+    }
+
+    @Test
+    void testRefusesToWrapPastMaxInt() {
+        BookIdAllocator allocator = new BookIdAllocator();
+        allocator.observe(String.valueOf(Integer.MAX_VALUE - 2));
+
+        assertThrows(IllegalStateException.class, () -> allocator.reserve(3));
+        assertEquals(Integer.MAX_VALUE - 1, allocator.reserve(2));
+        assertThrows(IllegalStateException.class, allocator::next);
+        assertEquals(Integer.MAX_VALUE, allocator.highWaterMark());
+    }
+
+    @Test
+    void testIdsAreNotReusedAfterRemove() {
+        BookList books = new BookList();
+        books.add(new Book("1", "First", "Springfield", "Author"));
+        books.add(new Book("2", "Second", "Quahog", "Author"));
+        books.removeIf(book -> book.getId().equals("2"));
+
+        assertEquals("3", books.idAllocator().next());
+
+        books.clear(); // A reload starts from the IDs in the new data
+        books.add(new Book("4", "Reloaded", "Quahog", "Author"));
+        assertEquals("5", books.idAllocator().next());
+    }
+}
@@ -3,10 +3,16 @@ package org.example;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
 import java.util.Scanner;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -15,11 +21,17 @@ class BookInventoryManagerTest {
     private final PrintStream originalOut = System.out;
     private ByteArrayOutputStream outputStream;
 
+    @TempDir
+    Path dir;
+
     @BeforeEach
-    void setUp() {
+    void setUp() throws IOException {
         outputStream = new ByteArrayOutputStream();
         System.setOut(new PrintStream(outputStream)); // Redirect System.out to capture outputs
-        BookInventoryOperations.getBooks().clear();   // Start clean
+        // Start clean, on a private copy of the catalog so commands never touch the shipped file
+        Path csv = dir.resolve("books.csv");
+        Files.copy(Paths.get("src/test/resources/books_1000.csv"), csv);
+        BookInventoryOperations.useDataFile(csv);
     }
 
     @AfterEach
@@ -93,4 +105,82 @@ class BookInventoryManagerTest {
         assertTrue(output.contains("Options:")); // Printed again after invalid input
         assertTrue(output.contains("Goodbye!"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testImportAndExportCommands(@TempDir Path dir) throws IOException {
+        Path source = dir.resolve("In Books.csv");
+        Files.write(source, List.of("id,title,author,location", "99,Emma,Jane Austen,Quahog"));
+        Path target = dir.resolve("Out.csv");
+        String input = "import " + source + "\nexport " + target + "\nimport\nexit\n";
+        Scanner scanner = new Scanner(new ByteArrayInputStream(input.getBytes()));
+
+        BookInventoryManager.runProgram(scanner);
+
+        String output = outputStream.toString();
+        assertTrue(output.contains("✅ Imported 1 books starting at ID 1."));
+        assertTrue(output.contains("✅ Exported 1 books to " + target + "."));
+        assertTrue(output.contains("'import' is invalid."));
+        assertEquals(List.of("id,title,author,location", "1,Emma,Jane Austen,Quahog"), Files.readAllLines(target));
+    }
+
+    @Test
+    void testPurgeByLocationAndRange() {
+        for (int i = 1; i <= 10; i++) {
+            BookInventoryOperations.getBooks().add(new Book(String.valueOf(i), "Title " + i,
+                    i <= 4 ? "Springfield" : "Quahog", "Author"));
+        }
+        String input = "purge\nlocation\nSpringfield\nyes\npurge\nrange\n8-20\npurge\nids\n5, 6,99\nexit\n";
+        Scanner scanner = new Scanner(new ByteArrayInputStream(input.getBytes()));
+
+        BookInventoryManager.runProgram(scanner);
+
+        String output = outputStream.toString();
+        assertTrue(output.contains("Remove 4 book(s) with location 'Springfield'? (yes/no)"));
+        assertTrue(output.contains("✅ Removed 4 book(s)."));
+        assertTrue(output.contains("✅ Removed 3 book(s)."));
+        assertTrue(output.contains("✅ Removed 2 book(s)."));
+        assertEquals(List.of("7"), BookInventoryOperations.getBooks().stream().map(Book::getId).toList());
+    }
+
+    @Test
+    void testCountCommand() {
+        BookInventoryOperations.getBooks().add(new Book("1", "Emma", "Quahog", "Jane Austen"));
+        BookInventoryOperations.getBooks().add(new Book("2", "Persuasion", "Springfield", "Jane Austen"));
+        BookInventoryOperations.getBooks().add(new Book("3", "Animal Farm", "Quahog", "George Orwell"));
+
+        String input = "count location\ncount Author location=Quahog\ncount title\nexit\n";
+        BookInventoryManager.runProgram(new Scanner(new ByteArrayInputStream(input.getBytes())));
+
+        String output = outputStream.toString();
+        assertTrue(output.contains("📊 Quahog: 2\n📊 Springfield: 1"));
+        assertTrue(output.contains("✅ Counted 3 book(s) across 2 location(s)."));
+        assertTrue(output.contains("📊 George Orwell: 1\n📊 Jane Austen: 1"));
+        assertTrue(output.contains("❌ Can only count by author or location."));
+    }
+
+    @Test
+    void testStatsCommand() {
+        BookInventoryOperations.getBooks().add(new Book("1", "Emma", "Quahog", "Jane Austen"));
+
+        String input = "search\nid\n1\nstats\nexit\n";
+        BookInventoryManager.runProgram(new Scanner(new ByteArrayInputStream(input.getBytes())));
+
+        String output = outputStream.toString();
+        assertTrue(output.contains("p50 (µs)"));
+        assertTrue(output.contains("find by id")); // The ID search goes straight to the primary-key index
+    }
+
+    @Test
+    void testFailedJournalWriteIsReported() throws IOException {
+        BookInventoryOperations.getBooks().add(new Book("1", "Emma", "Quahog", "Jane Austen"));
+        Files.createDirectory(dir.resolve("books.csv.journal")); // Appending to a directory fails
+
+        String input = "add\nDune\nFrank Herbert\nArrakis\nremove\n1\nexit\n";
+        BookInventoryManager.runProgram(new Scanner(new ByteArrayInputStream(input.getBytes())));
+
+        String output = outputStream.toString();
+        assertTrue(output.contains("but could not save it: Could not record the change in the journal"), output);
+        assertTrue(output.contains("❌ Removed the book with ID 1 but could not save the removal"), output);
+        assertFalse(output.contains("✅"), output);
+    }
+}
@@ -1,36 +1,36 @@
 package org.example;
 
-import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
+
 class BookInventoryOperationsTest {
 
-    private static final String TEST_FILE_PATH = "src/test/resources/test_books.csv";
+    @TempDir
+    Path dir;
 
     @BeforeEach
     void setUp() throws IOException {
-        // Make sure we start fresh each test
-        BookInventoryOperations.getBooks().clear();
-
-        // Prepare test CSV file
-        Files.createDirectories(Paths.get("src/test/resources"));
-        Files.write(Paths.get(TEST_FILE_PATH),
-                List.of("id,title,location,author"),
-                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-    }
-
-    @AfterEach
-    void tearDown() throws IOException {
-        // Clean up test CSV
-        Files.deleteIfExists(Paths.get(TEST_FILE_PATH));
+        // Work on a private copy of the catalog, so saves and journal writes never touch the shipped file
+        Path csv = dir.resolve("books.csv");
+        Files.copy(Paths.get("src/test/resources/books_1000.csv"), csv);
+        BookInventoryOperations.useDataFile(csv);
     }
 
     @Test
@@ -74,18 +74,163 @@ class BookInventoryOperationsTest {
 
     @Test
     void testSaveAndLoadBooks() throws IOException {
-        Book book1 = new Book("1", "SaveBook1", "Location1", "Author1");
+        Book book1 = new Book("1", "SaveBook1, Revised", "Location1", "Author1");
         Book book2 = new Book("2", "SaveBook2", "Location2", "Author2");
         BookInventoryOperations.getBooks().addAll(List.of(book1, book2));
 
         BookInventoryOperations.saveBooks();
+        assertEquals("id,title,author,location", Files.readAllLines(BookInventoryOperations.dataFile()).get(0));
         BookInventoryOperations.getBooks().clear(); // Clear memory
         BookInventoryOperations.loadBooksFromCsv(); // Reload from file
 
         List<Book> loadedBooks = BookInventoryOperations.getBooks();
         assertEquals(2, loadedBooks.size());
-        assertEquals("SaveBook1", loadedBooks.get(0).getTitle());
+        assertEquals("SaveBook1, Revised", loadedBooks.get(0).getTitle());
+        assertEquals("Author1", loadedBooks.get(0).getAuthor());
         assertEquals("SaveBook2", loadedBooks.get(1).getTitle());
     }
 
-}
\ No newline at end of file
+    @Test
+    void testRemovedHighestIdIsNotReissuedAfterRestart() {
+        BookInventoryOperations.getBooks().add(new Book("1", "Kept", "Quahog", "Author"));
+        BookInventoryOperations.add(new Book(BookInventoryOperations.getNextBookId(), "Sold", "Quahog", "Author"));
+        assertTrue(BookInventoryOperations.remove("2"));
+        BookInventoryOperations.saveBooks(); // The CSV no longer holds ID 2
+
+        BookInventoryOperations.getBooks().clear();
+        BookInventoryOperations.loadBooksFromCsv();
+
+        assertEquals(1, BookInventoryOperations.getBooks().size());
+        assertEquals("3", BookInventoryOperations.getNextBookId());
+    }
+
+    @Test
+    void testSaveBooksAsyncWritesInTheBackground() throws Exception {
+        BookInventoryOperations.getBooks().add(new Book("1", "Background Save", "Quahog", "Author"));
+
+        CompletableFuture<Integer> save = BookInventoryOperations.saveBooksAsync();
+
+        assertEquals(1, save.get(10, TimeUnit.SECONDS));
+        Path csv = BookInventoryOperations.dataFile();
+        assertTrue(Files.readString(csv).contains("Background Save"));
+        assertFalse(Files.exists(Path.of(csv + ".tmp")));
+        assertFalse(FileGenerations.backups(csv).isEmpty()); // The file it replaced
+    }
+
+    @Test
+    void testImportAssignsIdsAndSkipsInvalidRows(@TempDir Path dir) throws IOException {
+        BookInventoryOperations.getBooks().add(new Book("10", "Existing", "Quahog", "Author"));
+        Path file = dir.resolve("shipment.csv");
+        Files.write(file, List.of(
+                "title,author,location",
+                "\"Dune, Part One\",Frank Herbert,Springfield",
+                "",
+                "title,author,location",
+                ",No Title,Quahog",
+                "Emma,Jane Austen,Hill Valley"));
+
+        BookImportResult result = BookInventoryOperations.importBooks(file);
+
+        assertEquals(2, result.getImported());
+        assertEquals("11", result.getFirstId());
+        assertEquals(List.of("Line 5: missing title"), result.getRejected()); // Counts the skipped lines too
+        assertTrue(result.isSaved());
+        assertEquals("Dune, Part One", BookInventoryOperations.findById("11").getTitle());
+        assertEquals("Jane Austen", BookInventoryOperations.findById("12").getAuthor());
+        assertEquals("13", BookInventoryOperations.getNextBookId());
+    }
+
+    @Test
+    void testExportRoundTripsThroughImport(@TempDir Path dir) throws IOException {
+        BookInventoryOperations.getBooks().addAll(List.of(
+                new Book("1", "Dune, Part One", "Springfield", "Frank Herbert"),
+                new Book("2", "Say \"Cheese\"", "Quahog", "Author")));
+        Path file = dir.resolve("export.csv");
+
+        assertEquals(2, BookInventoryOperations.exportBooks(file));
+        assertEquals("id,title,author,location", Files.readAllLines(file).get(0));
+
+        List<Book> exported = CsvBookLoader.load(file);
+        assertEquals(BookInventoryOperations.getBooks(), exported);
+    }
+
+    @Test
+    void testFailedJournalWriteIsReported() throws IOException {
+        BookInventoryOperations.getBooks().add(new Book("1", "Emma", "Quahog", "Jane Austen"));
+        Files.createDirectory(dir.resolve("books.csv.journal")); // Appending to a directory fails
+
+        assertThrows(UncheckedIOException.class,
+                () -> BookInventoryOperations.add(new Book("2", "Persuasion", "Springfield", "Jane Austen")));
+        assertThrows(UncheckedIOException.class, () -> BookInventoryOperations.remove("1"));
+        assertThrows(UncheckedIOException.class, () -> BookInventoryOperations.removeBooks(List.of("2")));
+        assertEquals(0, BookInventoryOperations.getBooks().size()); // Applied in memory, for the next checkpoint
+    }
+
+    @Test
+    void testConcurrentChangesSurviveSavesAndReplay() throws Exception {
+        BookInventoryOperations.loadBooksFromCsv();
+        BookQuery quahog = BookQuery.containing(BookField.LOCATION, "quahog");
+
+        ExecutorService pool = Executors.newFixedThreadPool(5);
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int w = 0; w < 2; w++) {
+            int writer = w;
+            tasks.add(pool.submit(() -> {
+                // Each writer adds its own books and removes most of them again, singly and in bulk
+                List<String> bulk = new ArrayList<>();
+                for (int i = 0; i < 200; i++) {
+                    String id = BookInventoryOperations.getNextBookId();
+                    BookInventoryOperations.add(new Book(id, "Churn " + i, "Quahog", "Writer " + writer));
+                    if (i % 4 == 1) {
+                        assertTrue(BookInventoryOperations.remove(id));
+                    } else if (i % 4 == 2) {
+                        bulk.add(id);
+                    }
+                }
+                assertEquals(bulk.size(), BookInventoryOperations.removeBooks(bulk));
+            }));
+        }
+        tasks.add(pool.submit(() -> {
+            for (int i = 0; i < 5; i++) {
+                BookInventoryOperations.saveBooksAsync().get(10, TimeUnit.SECONDS);
+            }
+            return null;
+        }));
+        for (int r = 0; r < 2; r++) {
+            tasks.add(pool.submit(() -> {
+                for (int i = 0; i < 500; i++) {
+                    BookQueryResult page = BookInventoryOperations.query(quahog.page(0, 5));
+                    page.getBooks().forEach(book -> assertTrue(book.getLocation().toLowerCase().contains("quahog")));
+                    assertNotNull(BookInventoryOperations.findById("1"));
+                }
+            }));
+        }
+        for (Future<?> task : tasks) {
+            task.get(); // Rethrows any assertion failure from the task
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        List<String> before = sortedBooks(BookInventoryOperations.getBooks());
+        int quahogBefore = BookInventoryOperations.query(quahog).getTotalCount();
+        String nextIdBefore = BookInventoryOperations.getNextBookId();
+
+        // Restart on the same files: the last save plus the journal must give back the same inventory
+        BookInventoryOperations.useDataFile(BookInventoryOperations.dataFile());
+        BookInventoryOperations.loadBooksFromCsv();
+
+        assertEquals(before, sortedBooks(BookInventoryOperations.getBooks()));
+        assertEquals(quahogBefore, BookInventoryOperations.query(quahog).getTotalCount());
+        // Every ID below it went to a journaled add, so none of them is handed out again
+        assertTrue(Integer.parseInt(BookInventoryOperations.getNextBookId()) >= Integer.parseInt(nextIdBefore));
+    }
+
+    private static List<String> sortedBooks(List<Book> books) {
+        List<String> rendered = new ArrayList<>();
+        for (Book book : books) {
+            rendered.add(book.toString());
+        }
+        Collections.sort(rendered);
+        return rendered;
+    }
+}
@@ -0,0 +1,188 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookJournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testReplayAppliesAddsAndRemoves() throws IOException {
+        BookJournal journal = new BookJournal(dir.resolve("books.csv.journal"));
+        BookJournal.await(journal.enqueueAdd(new Book("1", "Keep, Me", "Springfield", "Author One")));
+        BookJournal.await(journal.enqueueAdd(new Book("2", "Drop Me", "Quahog", "Author Two")));
+        BookJournal.await(journal.enqueueRemove("2"));
+        assertEquals(3, journal.records());
+
+        BookList books = new BookList();
+        journal.replay(books);
+
+        assertEquals(1, books.size());
+        Book kept = books.findById("1");
+        assertEquals("Keep, Me", kept.getTitle());
+        assertEquals("Author One", kept.getAuthor());
+        assertEquals("Springfield", kept.getLocation());
+    }
+
+    @Test
+    void testReplayIsIdempotentAndSkipsTornRecord() throws IOException {
+        Path path = dir.resolve("books.csv.journal");
+        BookJournal journal = new BookJournal(path);
+        BookJournal.await(journal.enqueueAdd(new Book("1", "Title", "Quahog", "Author")));
+        Files.write(path, "\"A\",\"2\",\"Torn".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        BookList books = new BookList();
+        books.add(new Book("1", "Title", "Quahog", "Author")); // Already in the CSV
+        journal.replay(books);
+
+        assertEquals(1, books.size());
+    }
+
+    @Test
+    void testReplayKeepsLineBreaksInsideFields() throws IOException {
+        BookJournal journal = new BookJournal(dir.resolve("books.csv.journal"));
+        BookJournal.await(journal.enqueueAdd(new Book("1", "Two\nLines, \"Quoted\" C:\\", "Quahog", "Author")));
+        BookJournal.await(journal.enqueueAdd(new Book("2", "Next", "Quahog", "Author")));
+
+        BookList books = new BookList();
+        journal.replay(books);
+
+        assertEquals(2, books.size());
+        assertEquals("Two\nLines, \"Quoted\" C:\\", books.findById("1").getTitle());
+    }
+
+    @Test
+    void testTornRecordIsCutOffBeforeLaterAppends() throws IOException {
+        Path path = dir.resolve("books.csv.journal");
+        Files.write(path, "\"A\",\"1\",\"Whole\",\"Author\",\"Quahog\"\n\"A\",\"2\",\"Torn\nin half"
+                .getBytes(StandardCharsets.UTF_8));
+        BookJournal journal = new BookJournal(path);
+        journal.replay(new BookList()); // As at startup, before anything new is journaled
+
+        BookJournal.await(journal.enqueueAdd(new Book("3", "After Restart", "Quahog", "Author")));
+        BookList books = new BookList();
+        journal.replay(books);
+
+        assertEquals(List.of("1", "3"), books.stream().map(Book::getId).toList());
+    }
+
+    @Test
+    void testRotateKeepsRecordsUntilDeleted() throws IOException {
+        BookJournal journal = new BookJournal(dir.resolve("books.csv.journal"));
+        BookJournal.await(journal.enqueueAdd(new Book("1", "Before Rotate", "Quahog", "Author")));
+        journal.rotate();
+        BookJournal.await(journal.enqueueAdd(new Book("2", "After Rotate", "Quahog", "Author")));
+        assertEquals(1, journal.records());
+
+        BookList books = new BookList();
+        journal.replay(books);
+        assertEquals(2, books.size());
+
+        journal.deleteRotated();
+        books.clear();
+        journal.replay(books);
+        assertEquals(1, books.size());
+        assertEquals("After Rotate", books.get(0).getTitle());
+
+        journal.rotate();
+        journal.deleteRotated();
+        books.clear();
+        journal.replay(books);
+        assertTrue(books.isEmpty());
+    }
+
+    @Test
+    void testRemoveAllReplaysEveryRemoval() throws IOException {
+        BookJournal journal = new BookJournal(dir.resolve("books.csv.journal"));
+        for (int i = 1; i <= 4; i++) {
+            BookJournal.await(journal.enqueueAdd(new Book(String.valueOf(i), "Title " + i, "Quahog", "Author")));
+        }
+        BookJournal.await(journal.enqueueRemoveAll(List.of("1", "3")));
+        assertEquals(6, journal.records());
+
+        BookList books = new BookList();
+        journal.replay(books);
+        assertEquals(List.of("2", "4"), books.stream().map(Book::getId).toList());
+    }
+
+    @Test
+    void testBatchCommitsWhenFullWithoutWaitingOutTheWindow() throws Exception {
+        BookJournal journal = new BookJournal(dir.resolve("books.csv.journal"), Duration.ofMinutes(1), 3);
+        CompletableFuture<Void> first = journal.enqueueAdd(new Book("1", "First", "Quahog", "Author"));
+        CompletableFuture<Void> second = journal.enqueueAdd(new Book("2", "Second", "Quahog", "Author"));
+        assertFalse(first.isDone()); // Still inside the commit window
+        assertEquals(0, journal.records());
+
+        journal.enqueueRemove("1").get(10, TimeUnit.SECONDS);
+        assertTrue(first.isDone());
+        assertTrue(second.isDone());
+        assertEquals(3, journal.records());
+
+        BookList books = new BookList();
+        journal.replay(books);
+        assertEquals(List.of("2"), books.stream().map(Book::getId).toList());
+    }
+
+    @Test
+    void testRotateCommitsQueuedRecordsToTheRotatedJournal() throws Exception {
+        BookJournal journal = new BookJournal(dir.resolve("books.csv.journal"), Duration.ofMinutes(1), 1000);
+        CompletableFuture<Void> queued = journal.enqueueAdd(new Book("1", "Queued", "Quahog", "Author"));
+
+        journal.rotate();
+        assertTrue(queued.isDone());
+        assertEquals(0, journal.records());
+
+        journal.deleteRotated();
+        BookList books = new BookList();
+        journal.replay(books);
+        assertTrue(books.isEmpty());
+    }
+
+    @Test
+    void testConcurrentWritersAreAllDurable() throws Exception {
+        BookJournal journal = new BookJournal(dir.resolve("books.csv.journal"));
+        try (ExecutorService writers = Executors.newFixedThreadPool(16)) {
+            for (int t = 0; t < 16; t++) {
+                int thread = t;
+                writers.submit(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        Book book = new Book(thread + "-" + i, "Title", "Quahog", "Author");
+                        BookJournal.await(journal.enqueueAdd(book));
+                    }
+                    return null;
+                });
+            }
+        }
+        assertEquals(800, journal.records());
+
+        BookList books = new BookList();
+        journal.replay(books);
+        assertEquals(800, books.size());
+    }
+
+    @Test
+    void testFailedWriteIsReportedToTheCaller() {
+        BookJournal journal = new BookJournal(dir.resolve("missing").resolve("books.csv.journal"));
+
+        Book book = new Book("1", "Lost", "Quahog", "Author");
+
+        assertThrows(IOException.class, () -> BookJournal.await(journal.enqueueAdd(book)));
+        assertEquals(0, journal.records());
+    }
+}
@@ -0,0 +1,53 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookJsonTest {
+
+    @Test
+    void testEscapesStrings() {
+        Book book = new Book("7", "Say \"Hi\"\\\n", "Tab\there", "Null\u0001");
+
+        assertEquals("{\"id\":\"7\",\"title\":\"Say \\\"Hi\\\"\\\\\\n\",\"author\":\"Null\\u0001\","
+                + "\"location\":\"Tab\\there\"}", BookJson.book(book));
+    }
+
+    @Test
+    void testEncodesPagesAndObjects() {
+        BookQueryResult result = new BookQueryResult(List.of(new Book("1", "Emma", "Quahog", "Jane Austen")), 2, 5);
+        assertEquals("{\"offset\":2,\"total\":5,\"books\":[{\"id\":\"1\",\"title\":\"Emma\","
+                + "\"author\":\"Jane Austen\",\"location\":\"Quahog\"}]}", BookJson.page(result));
+
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("name", "x");
+        fields.put("count", 3L);
+        fields.put("missing", null);
+        assertEquals("{\"name\":\"x\",\"count\":3,\"missing\":null}", BookJson.object(fields));
+    }
+
+    @Test
+    void testParseObjectRoundTrips() {
+        Map<String, String> fields = BookJson.parseObject(
+                " { \"title\" : \"Say \\\"Hi\\\"\\n\\u00e9\", \"author\": null, \"location\":\"\" } ");
+
+        assertEquals("Say \"Hi\"\n\u00e9", fields.get("title"));
+        assertTrue(fields.containsKey("author"));
+        assertNull(fields.get("author"));
+        assertEquals("", fields.get("location"));
+        assertEquals(Map.of(), BookJson.parseObject("{}"));
+    }
+
+    @Test
+    void testParseObjectRejectsMalformedJson() {
+        for (String json : List.of("", "[]", "{\"title\":1}", "{\"title\":\"x\"", "{\"title\":\"x}",
+                "{\"title\":\"\\q\"}", "{\"title\":\"x\"} trailing", "{title:\"x\"}")) {
+            assertThrows(IllegalArgumentException.class, () -> BookJson.parseObject(json), json);
+        }
+    }
+}
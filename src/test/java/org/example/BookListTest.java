@@ -0,0 +1,224 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookListTest {
+
+    @Test
+    void testFindByIdAfterAdd() {
+        BookList books = new BookList();
+        books.add(new Book("1", "Java Basics", "Springfield", "John Doe"));
+        books.addAll(List.of(new Book("2", "Advanced Java", "Quahog", "Jane Smith")));
+
+        assertEquals("Java Basics", books.findById("1").getTitle());
+        assertEquals("Advanced Java", books.findById("2").getTitle());
+        assertNull(books.findById("3"));
+    }
+
+    @Test
+    void testIndexFollowsRemovals() {
+        BookList books = new BookList();
+        books.add(new Book("1", "Keep Me", "Springfield", "Author"));
+        books.add(new Book("2", "Delete Me", "Quahog", "Author"));
+        books.add(new Book("3", "Delete Me Too", "Quahog", "Author"));
+
+        assertTrue(books.removeIf(book -> book.getId().equals("2")));
+        books.remove(1); // Removes ID 3 by position
+
+        assertNull(books.findById("2"));
+        assertNull(books.findById("3"));
+        assertNotNull(books.findById("1"));
+
+        books.clear();
+        assertNull(books.findById("1"));
+    }
+
+    @Test
+    void testDuplicateIdFallsBackToNextBook() {
+        BookList books = new BookList();
+        Book first = new Book("7", "First", "Springfield", "Author");
+        Book second = new Book("7", "Second", "Quahog", "Author");
+        books.add(first);
+        books.add(second);
+
+        assertEquals(first, books.findById("7")); // First in list order wins
+        books.remove(first);
+        assertEquals(second, books.findById("7"));
+    }
+
+    @Test
+    void testIndexOfIdAfterInsertAndRemove() {
+        BookList books = new BookList();
+        for (int i = 1; i <= 5; i++) {
+            books.add(new Book(String.valueOf(i), "Title " + i, "Quahog", "Author"));
+        }
+        assertTrue(books.removeById("2"));
+        assertEquals(2, books.indexOfId("4"));
+
+        books.add(0, new Book("9", "Inserted", "Quahog", "Author")); // Rows no longer ascend with position
+        assertEquals(0, books.indexOfId("9"));
+        assertEquals(3, books.indexOfId("4"));
+        assertTrue(books.removeById("4"));
+        assertEquals(-1, books.indexOfId("4"));
+        assertEquals(3, books.indexOfId("5"));
+    }
+
+    @Test
+    void testCompactionKeepsOrderAndIndexes() {
+        BookList books = new BookList();
+        for (int i = 1; i <= 5000; i++) {
+            books.add(new Book(String.valueOf(i), "Title " + i, i % 2 == 0 ? "Quahog" : "Springfield", "Author"));
+        }
+        // Removing most rows triggers compaction of the column store
+        books.removeIf(book -> Integer.parseInt(book.getId()) % 10 != 0);
+
+        assertEquals(500, books.size());
+        assertEquals("10", books.get(0).getId());
+        assertEquals("5000", books.get(499).getId());
+        assertEquals("Title 4990", books.findById("4990").getTitle());
+        assertNull(books.findById("4991"));
+        assertEquals(500, books.searchContaining(BookField.LOCATION, "quahog").size());
+        assertEquals(List.of(books.findById("1230")), books.searchContaining(BookField.TITLE, "title 1230"));
+    }
+
+    @Test
+    void testSearchesKeepRunningDuringCompaction() throws Exception {
+        BookList books = new BookList();
+        List<Book> catalog = new ArrayList<>();
+        for (int i = 1; i <= 20_000; i++) {
+            catalog.add(new Book(String.valueOf(i), "Title " + i, i % 2 == 0 ? "Quahog" : "Springfield", "Author " + i % 50));
+        }
+        books.addAll(catalog);
+        BookQuery quahog = BookQuery.word(BookField.LOCATION, "quahog").page(0, 1);
+
+        // Removing half the rows compacts the store on the removing thread once it has let go of the lock
+        Thread remover = new Thread(() -> books.removeIf(book -> book.getLocation().equals("Springfield")));
+        remover.start();
+        int searchesDuringCompaction = 0;
+        while (remover.isAlive()) {
+            boolean compactingBefore = books.isCompacting();
+            int found = books.query(quahog).getTotalCount();
+            if (compactingBefore && books.isCompacting()) {
+                assertEquals(10_000, found);
+                assertEquals("Title 1230", books.findById("1230").getTitle());
+                searchesDuringCompaction++;
+            }
+        }
+        remover.join();
+
+        assertTrue(searchesDuringCompaction > 0);
+        assertFalse(books.isCompacting());
+        assertEquals(10_000, books.query(quahog).getTotalCount());
+        assertEquals(List.of(books.findById("1230")), books.searchWord(BookField.TITLE, "1230"));
+        assertNull(books.findById("1231"));
+    }
+
+    @Test
+    void testConcurrentReadersAndWriters() throws Exception {
+        BookList books = new BookList();
+        for (int i = 1; i <= 1000; i++) {
+            books.add(new Book(String.valueOf(i), "Stable Title " + i, "Springfield", "Author"));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(6);
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int w = 0; w < 2; w++) {
+            int writer = w;
+            tasks.add(pool.submit(() -> {
+                // Each writer adds and removes its own books, churning enough to trigger compaction
+                for (int i = 0; i < 5000; i++) {
+                    String id = String.valueOf(100_000 * (writer + 1) + i);
+                    books.add(new Book(id, "Churn Title " + id, "Quahog", "Writer " + writer));
+                    if (i % 4 != 0) {
+                        assertTrue(books.removeById(id));
+                    }
+                }
+            }));
+        }
+        for (int r = 0; r < 4; r++) {
+            tasks.add(pool.submit(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    String id = String.valueOf(1 + i % 1000);
+                    assertEquals("Stable Title " + id, books.findById(id).getTitle());
+                    for (Book book : books.searchContaining(BookField.TITLE, "title " + id)) {
+                        assertTrue(book.getTitle().toLowerCase().contains("title " + id));
+                    }
+                    for (Book book : books.searchWord(BookField.LOCATION, "quahog")) {
+                        assertEquals("Quahog", book.getLocation());
+                    }
+                    if (i % 200 == 0) {
+                        int count = 0;
+                        for (Book book : books) {
+                            assertNotNull(book.getId());
+                            count++;
+                        }
+                        assertTrue(count >= 1000);
+                    }
+                }
+            }));
+        }
+        for (Future<?> task : tasks) {
+            task.get(); // Rethrows any assertion failure from the task
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(1000 + 2 * 1250, books.size());
+        assertEquals(2 * 1250, books.searchContaining(BookField.LOCATION, "quahog").size());
+        assertEquals(2 * 1250, books.searchWord(BookField.TITLE, "churn").size());
+        assertEquals("Churn Title 200004", books.findById("200004").getTitle());
+        assertNull(books.findById("200005"));
+    }
+
+    @Test
+    void testBulkRemovalsKeepIndexesInSync() {
+        BookList books = new BookList();
+        for (int i = 1; i <= 3000; i++) {
+            books.add(new Book(String.valueOf(i), "Title " + i, i % 3 == 0 ? "Springfield" : "Quahog", "Author"));
+        }
+        books.add(new Book("X-1", "Odd One", "Springfield", "Author"));
+
+        assertEquals(1001, books.removeAll(BookQuery.equalTo(BookField.LOCATION, "Springfield")).size());
+        assertEquals(List.of("1", "2"), books.removeIds(List.of("1", "2", "3", "nope")));
+        assertEquals(List.of("4", "5", "7", "8"), books.removeIdRange(4, 8));
+
+        assertEquals(3000 - 1000 - 2 - 4, books.size());
+        assertTrue(books.searchContaining(BookField.LOCATION, "springfield").isEmpty());
+        assertNull(books.findById("X-1"));
+        assertNull(books.findById("7"));
+        assertEquals("Title 10", books.findById("10").getTitle());
+        assertEquals(books.size(), books.searchWord(BookField.TITLE, "title").size());
+    }
+
+    @Test
+    void testBulkRemovalBelowCompactionThresholdKeepsIndexesInSync() {
+        BookList books = new BookList();
+        for (int i = 1; i <= 5000; i++) {
+            books.add(new Book(String.valueOf(i), "Title " + i, i % 5 == 0 ? "Springfield" : "Quahog", "Author " + i % 7));
+        }
+        books.add(new Book("10", "Second Ten", "Quahog", "Author 3"));
+
+        // A fifth of the rows: too few to compact, so each index drops them itself
+        assertEquals(1000, books.removeAll(BookQuery.equalTo(BookField.LOCATION, "Springfield")).size());
+        books.subList(0, 100).clear();
+
+        assertEquals(5001 - 1000 - 100, books.size());
+        assertEquals(0, books.query(BookQuery.containing(BookField.LOCATION, "ringf")).getTotalCount());
+        assertEquals(0, books.query(BookQuery.wordPrefix(BookField.LOCATION, "spring")).getTotalCount());
+        assertEquals(books.size(), books.query(BookQuery.word(BookField.LOCATION, "quahog")).getTotalCount());
+        assertEquals(books.size(), books.facetCounts(BookField.LOCATION, null).get("Quahog"));
+        assertEquals("Second Ten", books.findById("10").getTitle()); // The removed first "10" hands over its ID
+        assertEquals("Title 126", books.get(0).getTitle());
+        assertEquals(List.of("Title 1261"), books.query(BookQuery.containing(BookField.TITLE, "Title 1261"))
+                .stream().map(Book::getTitle).toList());
+    }
+}
@@ -0,0 +1,125 @@
+package org.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookMetricsTest {
+
+    @BeforeEach
+    void setUp() {
+        BookMetrics.reset();
+    }
+
+    private static OperationStats stats(String operation) {
+        return BookMetrics.snapshot().stream()
+                .filter(stat -> stat.getOperation().equals(operation))
+                .findFirst().orElse(null);
+    }
+
+    @Test
+    void testRecordsCountsAndPercentiles() {
+        for (int i = 0; i < 99; i++) {
+            BookMetrics.run(BookMetrics.Operation.ADD, () -> { });
+        }
+        BookMetrics.run(BookMetrics.Operation.ADD, () -> LockSupport.parkNanos(5_000_000));
+        byte[] allocated = new byte[0];
+        for (int i = 0; i < 200; i++) { // Allocations are only measured on a sample of calls
+            allocated = BookMetrics.call(BookMetrics.Operation.FIND_BY_ID, () -> new byte[1 << 16]);
+        }
+
+        OperationStats add = stats("add");
+        assertEquals(100, add.getCount());
+        assertTrue(add.getP50Nanos() <= add.getP99Nanos());
+        assertTrue(add.getP99Nanos() <= add.getMaxNanos());
+        assertTrue(add.getMaxNanos() >= 5_000_000);
+        assertTrue(add.getP50Nanos() < 5_000_000);
+        if (BookMetrics.allocatedBytes() >= 0) {
+            assertTrue(stats("find by id").getAllocatedBytesPerCall() >= allocated.length);
+        }
+        assertNull(stats("save"));
+
+        String report = BookMetrics.report();
+        assertTrue(report.contains("p99 (µs)"));
+        assertTrue(report.contains("find by id"));
+
+        BookMetrics.reset();
+        assertTrue(BookMetrics.snapshot().isEmpty());
+        assertEquals("No operations recorded yet.", BookMetrics.report());
+    }
+
+    @Test
+    void testInventoryOperationsAreRecorded() {
+        BookInventoryOperations.getBooks().clear();
+        BookInventoryOperations.getBooks().add(new Book("1", "Emma", "Quahog", "Jane Austen"));
+        BookInventoryOperations.findById("1");
+        BookInventoryOperations.query(BookQuery.containing(BookField.TITLE, "emma"));
+        BookInventoryOperations.query(BookQuery.and(BookQuery.byId("1"), BookQuery.word(BookField.TITLE, "emma")));
+        BookInventoryOperations.searchWord(BookField.TITLE, "emma");
+        BookInventoryOperations.remove("missing");
+
+        assertEquals(1, stats("find by id").getCount());
+        assertEquals(1, stats("search contains").getCount());
+        assertEquals(1, stats("search and/or").getCount());
+        assertEquals(1, stats("search word").getCount());
+        assertEquals(1, stats("remove").getCount());
+    }
+
+    @Test
+    void testDumpAndMBean(@TempDir Path dir) throws Exception {
+        BookMetrics.run(BookMetrics.Operation.SAVE, () -> { });
+
+        Path file = dir.resolve("metrics.txt");
+        BookMetrics.dump(file);
+        assertTrue(Files.readString(file).contains("save"));
+
+        BookMetrics.registerMBean();
+        BookMetrics.registerMBean(); // Registering twice is harmless
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("org.example:type=BookMetrics");
+        CompositeData[] operations = (CompositeData[]) server.getAttribute(name, "Operations");
+        assertEquals(List.of("save"), List.of(operations[0].get("operation")));
+        assertEquals(1L, operations[0].get("count"));
+        assertTrue(((String) server.getAttribute(name, "Report")).contains("save"));
+
+        server.invoke(name, "reset", null, null);
+        assertTrue(BookMetrics.snapshot().isEmpty());
+    }
+
+    @Test
+    void testStripesAreMergedWhenRead() throws Exception {
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            long slowest = 1_000_000L * (t + 1);
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    BookMetrics.record(BookMetrics.Operation.FIND_BY_ID, System.nanoTime(), -1);
+                }
+                BookMetrics.record(BookMetrics.Operation.FIND_BY_ID, System.nanoTime() - slowest, -1);
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        OperationStats find = stats("find by id");
+        assertEquals(8 * 10_001, find.getCount());
+        assertTrue(find.getMaxNanos() >= 8_000_000);
+        assertTrue(find.getP99Nanos() < 1_000_000);
+        assertEquals(1, BookMetrics.stripeCount(1));
+        assertEquals(4, BookMetrics.stripeCount(3));
+        assertEquals(64, BookMetrics.stripeCount(96));
+    }
+}
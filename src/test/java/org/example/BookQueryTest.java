@@ -0,0 +1,228 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookQueryTest {
+
+    private static BookList catalog() {
+        BookList books = new BookList();
+        for (int i = 1; i <= 25; i++) {
+            books.add(new Book(String.valueOf(i), (i % 2 == 0 ? "Even Title " : "Odd Title ") + i,
+                    i <= 10 ? "Quahog" : "Springfield", i % 5 == 0 ? "George Orwell" : "Mary Shelley"));
+        }
+        return books;
+    }
+
+    private static List<String> ids(BookQueryResult result) {
+        return result.stream().map(Book::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    void testPageReportsTotalCount() {
+        BookList books = catalog();
+        BookQuery evens = BookQuery.containing(BookField.TITLE, "even");
+
+        BookQueryResult first = books.query(evens.page(0, 5));
+        assertEquals(List.of("2", "4", "6", "8", "10"), ids(first));
+        assertEquals(12, first.getTotalCount());
+        assertTrue(first.hasMore());
+
+        BookQueryResult last = books.query(evens.page(10, 5));
+        assertEquals(List.of("22", "24"), ids(last));
+        assertEquals(10, last.getOffset());
+        assertFalse(last.hasMore());
+
+        BookQueryResult beyond = books.query(evens.page(50, 5));
+        assertTrue(beyond.getBooks().isEmpty());
+        assertEquals(12, beyond.getTotalCount());
+    }
+
+    @Test
+    void testMatchModes() {
+        BookList books = catalog();
+
+        assertEquals(List.of("7"), ids(books.query(BookQuery.byId("7"))));
+        assertEquals(0, books.query(BookQuery.byId("70")).getTotalCount());
+        assertEquals(5, books.query(BookQuery.equalTo(BookField.AUTHOR, "George Orwell")).getTotalCount());
+        assertEquals(0, books.query(BookQuery.equalTo(BookField.AUTHOR, "george orwell")).getTotalCount());
+        assertEquals(15, books.query(BookQuery.word(BookField.LOCATION, "SPRINGFIELD")).getTotalCount());
+        assertEquals(List.of("1", "10", "11"), ids(books.query(BookQuery.wordPrefix(BookField.TITLE, "1").page(0, 3))));
+        // IDs have no token index; word queries on them fall back to a scan
+        assertEquals(List.of("2"), ids(books.query(BookQuery.word(BookField.ID, "2"))));
+        assertEquals(List.of("2", "20", "21", "22", "23", "24", "25"), ids(books.query(BookQuery.wordPrefix(BookField.ID, "2"))));
+        assertEquals(25, books.query(BookQuery.all()).getTotalCount());
+    }
+
+    @Test
+    void testQueryValidation() {
+        assertThrows(IllegalArgumentException.class, () -> BookQuery.all().page(-1, 10));
+        assertThrows(NullPointerException.class, () -> BookQuery.containing(BookField.TITLE, null));
+        assertEquals(BookQuery.word(BookField.TITLE, "java").page(10, 10),
+                BookQuery.word(BookField.TITLE, "java").page(10, 10));
+    }
+
+    @Test
+    void testCompoundQueriesMatchBruteForce() {
+        BookList books = new BookList();
+        List<Book> all = new ArrayList<>();
+        String[] titles = {"War and Peace", "Peace Talks", "The War of the Worlds", "Emma", "Animal Farm"};
+        String[] authors = {"Leo Tolstoy", "George Orwell", "H. G. Wells", "Jane Austen"};
+        String[] locations = {"Quahog", "Springfield", "Hill Valley"};
+        Random random = new Random(16);
+        for (int i = 1; i <= 2000; i++) {
+            Book book = new Book(String.valueOf(i), titles[random.nextInt(titles.length)],
+                    locations[random.nextInt(locations.length)], authors[random.nextInt(authors.length)]);
+            books.add(book);
+            all.add(book);
+        }
+
+        List<BookQuery> queries = List.of(
+                BookQuery.and(BookQuery.equalTo(BookField.AUTHOR, "George Orwell"),
+                        BookQuery.equalTo(BookField.LOCATION, "Quahog")),
+                BookQuery.and(BookQuery.containing(BookField.TITLE, "war"),
+                        BookQuery.equalTo(BookField.AUTHOR, "Leo Tolstoy"),
+                        BookQuery.containing(BookField.ID, "7")),
+                BookQuery.or(BookQuery.equalTo(BookField.ID, "42"),
+                        BookQuery.word(BookField.TITLE, "emma")),
+                BookQuery.or(BookQuery.containing(BookField.ID, "99"),
+                        BookQuery.and(BookQuery.wordPrefix(BookField.AUTHOR, "wel"),
+                                BookQuery.equalTo(BookField.LOCATION, "Hill Valley"))),
+                BookQuery.parse("author=Jane Austen AND location~spring OR title=Animal Farm AND id~12"));
+        List<Predicate<Book>> expected = List.of(
+                b -> b.getAuthor().equals("George Orwell") && b.getLocation().equals("Quahog"),
+                b -> b.getTitle().toLowerCase().contains("war") && b.getAuthor().equals("Leo Tolstoy")
+                        && b.getId().contains("7"),
+                b -> b.getId().equals("42") || b.getTitle().equals("Emma"),
+                b -> b.getId().contains("99") || (b.getAuthor().equals("H. G. Wells") && b.getLocation().equals("Hill Valley")),
+                b -> (b.getAuthor().equals("Jane Austen") && b.getLocation().equals("Springfield"))
+                        || (b.getTitle().equals("Animal Farm") && b.getId().contains("12")));
+
+        for (int q = 0; q < queries.size(); q++) {
+            List<Book> matches = all.stream().filter(expected.get(q)).collect(Collectors.toList());
+            BookQueryResult result = books.query(queries.get(q));
+            assertEquals(matches, result.getBooks(), queries.get(q).toString());
+            assertEquals(matches.size(), result.getTotalCount());
+        }
+    }
+
+    @Test
+    void testParse() {
+        assertEquals(BookQuery.and(BookQuery.equalTo(BookField.AUTHOR, "George Orwell"),
+                        BookQuery.containing(BookField.TITLE, "Pride and Prejudice")),
+                BookQuery.parse("author=George Orwell AND title~Pride and Prejudice"));
+        assertEquals(BookQuery.or(BookQuery.equalTo(BookField.ID, "1"), BookQuery.equalTo(BookField.ID, "2")),
+                BookQuery.parse(" id=1 OR ID = 2 "));
+        assertThrows(IllegalArgumentException.class, () -> BookQuery.parse("publisher=Penguin"));
+        assertThrows(IllegalArgumentException.class, () -> BookQuery.parse("title"));
+    }
+
+    @Test
+    void testSortedQueriesMatchFullSort() {
+        BookList books = new BookList();
+        List<Book> all = new ArrayList<>();
+        String[] authors = {"mary shelley", "George Orwell", "Jane Austen", "Mary Shelley"};
+        Random random = new Random(17);
+        for (int i = 0; i < 3000; i++) {
+            String id = i % 100 == 0 ? "X-" + i : String.valueOf(random.nextInt(1_000_000));
+            Book book = new Book(id, "Title " + random.nextInt(500), i % 3 == 0 ? "Quahog" : "Springfield",
+                    authors[random.nextInt(authors.length)]);
+            books.add(book);
+            all.add(book);
+        }
+
+        Comparator<String> text = String.CASE_INSENSITIVE_ORDER;
+        Comparator<Book> byId = Comparator.comparing((Book b) -> !b.getId().matches("\\d+"))
+                .thenComparing(b -> b.getId().matches("\\d+") ? String.format("%010d", Long.parseLong(b.getId())) : b.getId());
+        List<Book> byTitle = all.stream().sorted(Comparator.comparing(Book::getTitle, text)).collect(Collectors.toList());
+        List<Book> quahogByAuthor = all.stream().filter(b -> b.getLocation().equals("Quahog"))
+                .sorted(Comparator.comparing(Book::getAuthor, text)).collect(Collectors.toList());
+        List<Book> sortedIds = all.stream().sorted(byId).collect(Collectors.toList());
+
+        // Stable sorts above keep insertion order for ties, just like the query
+        assertEquals(byTitle.subList(0, 20), books.query(BookQuery.all().sortedBy(BookField.TITLE).page(0, 20)).getBooks());
+        assertEquals(byTitle.subList(100, 120), books.query(BookQuery.all().sortedBy(BookField.TITLE).page(100, 20)).getBooks());
+        BookQueryResult authors1 = books.query(BookQuery.equalTo(BookField.LOCATION, "Quahog").sortedBy(BookField.AUTHOR));
+        assertEquals(quahogByAuthor, authors1.getBooks());
+        assertEquals(1000, authors1.getTotalCount());
+        assertEquals(sortedIds, books.query(BookQuery.all().sortedBy(BookField.ID)).getBooks());
+        assertEquals(sortedIds.get(0), books.query(BookQuery.parse("ORDER BY id LIMIT 1")).getBooks().get(0));
+    }
+
+    @Test
+    void testRemoveSortedWindow() {
+        BookList books = catalog();
+        // "Even Title 10" and "Even Title 12" sort first
+        assertEquals(List.of("10", "12"), books.removeAll(BookQuery.all().sortedBy(BookField.TITLE).page(0, 2)));
+        assertEquals(23, books.size());
+    }
+
+    @Test
+    void testParseOrderByAndLimit() {
+        assertEquals(BookQuery.containing(BookField.AUTHOR, "orwell").sortedBy(BookField.TITLE).page(0, 5),
+                BookQuery.parse("author~orwell ORDER BY title LIMIT 5"));
+        assertEquals(BookQuery.all().sortedBy(BookField.LOCATION), BookQuery.parse("ORDER BY Location"));
+        assertEquals(BookQuery.all().page(0, 3), BookQuery.parse("LIMIT 3"));
+        assertThrows(IllegalArgumentException.class, () -> BookQuery.parse("title~war ORDER BY price"));
+        assertThrows(IllegalArgumentException.class, () -> BookQuery.parse("title~war LIMIT ten"));
+        assertThrows(IllegalArgumentException.class, () -> BookQuery.parse("title~war LIMIT -1"));
+    }
+
+    @Test
+    void testFuzzyRanksByCloseness() {
+        BookList books = new BookList();
+        books.add(new Book("1", "The Three Musketeers", "Quahog", "Alexandre Dumas"));
+        books.add(new Book("2", "War and Peace", "Quahog", "Leo Tolstoy"));
+        books.add(new Book("3", "Anna Karenina", "Springfield", "Leo Tolstoy"));
+        books.add(new Book("4", "Tolstoi Letters", "Springfield", "Leo Tolstoi"));
+        books.add(new Book("5", "Ward Number Six", "Springfield", "Anton Chekhov"));
+
+        assertEquals(List.of("1"), ids(books.query(BookQuery.fuzzy(BookField.TITLE, "Musketers"))));
+        // The exact spelling ranks ahead of the one-edit matches, which keep insertion order
+        assertEquals(List.of("4", "2", "3"), ids(books.query(BookQuery.fuzzy(BookField.AUTHOR, "tolstoi"))));
+        assertEquals(List.of("2", "3"), ids(books.query(BookQuery.fuzzy(BookField.AUTHOR, "leo tolstoy").page(0, 2))));
+        assertEquals(3, books.query(BookQuery.fuzzy(BookField.AUTHOR, "leo tolstoy").page(0, 2)).getTotalCount());
+        // Short words must match exactly
+        assertEquals(0, books.query(BookQuery.fuzzy(BookField.TITLE, "wa")).getTotalCount());
+        assertEquals(List.of("2", "5"), ids(books.query(BookQuery.fuzzy(BookField.TITLE, "warr"))));
+        assertEquals(List.of("2"), ids(books.query(BookQuery.and(BookQuery.fuzzy(BookField.TITLE, "warr"),
+                BookQuery.equalTo(BookField.LOCATION, "Quahog")))));
+        assertEquals(List.of("4"), ids(books.query(BookQuery.fuzzy(BookField.ID, "4"))));
+        assertEquals(0, books.query(BookQuery.fuzzy(BookField.TITLE, " - ")).getTotalCount());
+
+        books.removeById("4");
+        assertEquals(List.of("2", "3"), ids(books.query(BookQuery.fuzzy(BookField.AUTHOR, "tolstoi"))));
+    }
+
+    @Test
+    void testFuzzyMatchesBruteForce() {
+        BookList books = new BookList();
+        List<Book> all = new ArrayList<>();
+        String[] words = {"war", "peace", "ward", "pearl", "musketeers", "musketeer", "three", "tree", "river", "rover"};
+        Random random = new Random(18);
+        for (int i = 1; i <= 2000; i++) {
+            String title = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)];
+            Book book = new Book(String.valueOf(i), title, "Quahog", "Author");
+            books.add(book);
+            all.add(book);
+        }
+        for (String text : List.of("warr", "muskteers", "thre rivr", "pease", "trees")) {
+            List<String> needles = new ArrayList<>(TokenIndex.tokenize(text));
+            List<Book> expected = all.stream().filter(book -> needles.stream().allMatch(needle ->
+                    TokenIndex.tokenize(book.getTitle()).stream().anyMatch(word ->
+                            BkTree.distance(needle, word) <= BookQuery.maxEdits(needle))))
+                    .collect(Collectors.toList());
+            List<Book> found = new ArrayList<>(books.query(BookQuery.fuzzy(BookField.TITLE, text)).getBooks());
+            found.sort(Comparator.comparing(book -> Integer.parseInt(book.getId())));
+            assertEquals(expected, found, text);
+        }
+    }
+}
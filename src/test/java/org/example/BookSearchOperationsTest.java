@@ -101,7 +101,7 @@ class BookSearchOperationsTest {
     void testSearchByAuthor_NotFound() {
         BookInventoryOperations.getBooks().add(new Book("6", "Another Book", "Location", "Different Author"));
 
-        String input = "author\nNoAuthor\n";
+        String input = "author\nNobody\n"; // Not within a typo or two of any author either
         Scanner scanner = new Scanner(new ByteArrayInputStream(input.getBytes()));
 
         BookSearchOperations.searchBooks(scanner);
@@ -153,4 +153,56 @@ class BookSearchOperationsTest {
         assertTrue(output.contains("👉"));
         assertTrue(output.contains("Another Book"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testSearchByCompoundQuery() {
+        BookInventoryOperations.getBooks().add(new Book("1", "Animal Farm", "Quahog", "George Orwell"));
+        BookInventoryOperations.getBooks().add(new Book("2", "Nineteen Eighty-Four", "Springfield", "George Orwell"));
+        BookInventoryOperations.getBooks().add(new Book("3", "Emma", "Quahog", "Jane Austen"));
+
+        String input = "query\nauthor=George Orwell AND location~quahog\n";
+        BookSearchOperations.searchBooks(new Scanner(new ByteArrayInputStream(input.getBytes())));
+
+        String output = outputStream.toString();
+        assertTrue(output.contains("Animal Farm"));
+        assertFalse(output.contains("Nineteen Eighty-Four"));
+        assertFalse(output.contains("Emma"));
+        assertTrue(output.contains("✅ Found 1 matching book(s)."));
+    }
+
+    @Test
+    void testSearchByQueryWithOrderAndLimit() {
+        BookInventoryOperations.getBooks().add(new Book("1", "Nineteen Eighty-Four", "Quahog", "George Orwell"));
+        BookInventoryOperations.getBooks().add(new Book("2", "Animal Farm", "Quahog", "George Orwell"));
+        BookInventoryOperations.getBooks().add(new Book("3", "Burmese Days", "Quahog", "George Orwell"));
+
+        String input = "query\nauthor=George Orwell ORDER BY title LIMIT 2\n";
+        BookSearchOperations.searchBooks(new Scanner(new ByteArrayInputStream(input.getBytes())));
+
+        String output = outputStream.toString();
+        assertTrue(output.indexOf("Animal Farm") < output.indexOf("Burmese Days"));
+        assertFalse(output.contains("Nineteen Eighty-Four"));
+        assertTrue(output.contains("✅ Found 3 matching book(s). Showing 2."));
+    }
+
+    @Test
+    void testSearchFallsBackToClosestMatches() {
+        BookInventoryOperations.getBooks().add(new Book("1", "The Three Musketeers", "Quahog", "Alexandre Dumas"));
+        BookInventoryOperations.getBooks().add(new Book("2", "War and Peace", "Quahog", "Leo Tolstoy"));
+
+        String input = "title\nMusketers\n";
+        BookSearchOperations.searchBooks(new Scanner(new ByteArrayInputStream(input.getBytes())));
+        String output = outputStream.toString();
+        assertTrue(output.contains("🔎 No exact matches. Closest matches:"));
+        assertTrue(output.contains("The Three Musketeers"));
+        assertTrue(output.contains("🔎 Showing 1 closest match(es)."));
+        assertFalse(output.contains("✅"), output); // Suggestions are not reported as matches
+
+        outputStream.reset();
+        input = "author\nTolstoi\n";
+        BookSearchOperations.searchBooks(new Scanner(new ByteArrayInputStream(input.getBytes())));
+        output = outputStream.toString();
+        assertTrue(output.contains("War and Peace"));
+        assertTrue(output.contains("🔎 Showing 1 closest match(es)."));
+    }
+}
@@ -0,0 +1,164 @@
+package org.example;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookServerTest {
+
+    private HttpServer server;
+    private HttpClient client;
+    private String baseUrl;
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path csv = dir.resolve("books.csv"); // A private copy, so writes never touch the shipped catalog
+        Files.copy(Paths.get("src/test/resources/books_1000.csv"), csv);
+        BookInventoryOperations.useDataFile(csv);
+        BookInventoryOperations.getBooks().add(new Book("1", "Emma", "Quahog", "Jane Austen"));
+        BookInventoryOperations.getBooks().add(new Book("2", "Persuasion", "Springfield", "Jane Austen"));
+        BookInventoryOperations.getBooks().add(new Book("3", "Animal Farm", "Quahog", "George Orwell"));
+        server = BookServer.start(0);
+        client = HttpClient.newHttpClient();
+        baseUrl = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        client.close();
+        BookInventoryOperations.getBooks().clear();
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + path)).GET());
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testGetBookById() throws Exception {
+        HttpResponse<String> response = get("/books/2");
+
+        assertEquals(200, response.statusCode());
+        assertEquals("{\"id\":\"2\",\"title\":\"Persuasion\",\"author\":\"Jane Austen\",\"location\":\"Springfield\"}",
+                response.body());
+        assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("application/json"));
+    }
+
+    @Test
+    void testGetMissingBookIsNotFound() throws Exception {
+        HttpResponse<String> response = get("/books/99");
+
+        assertEquals(404, response.statusCode());
+        assertEquals("{\"error\":\"No book found with ID 99\"}", response.body());
+        assertEquals(404, get("/booksfoo").statusCode());
+    }
+
+    @Test
+    void testListBooksPagedAndSorted() throws Exception {
+        HttpResponse<String> response = get("/books?offset=1&limit=1&sort=title");
+
+        assertEquals(200, response.statusCode());
+        assertEquals("{\"offset\":1,\"total\":3,\"books\":[{\"id\":\"1\",\"title\":\"Emma\","
+                + "\"author\":\"Jane Austen\",\"location\":\"Quahog\"}]}", response.body());
+    }
+
+    @Test
+    void testSearchByQueryAndByField() throws Exception {
+        HttpResponse<String> byQuery = get("/books/search?q=" + encode("author=Jane Austen AND location~quahog"));
+        assertEquals(200, byQuery.statusCode());
+        assertTrue(byQuery.body().startsWith("{\"offset\":0,\"total\":1,"));
+        assertTrue(byQuery.body().contains("\"title\":\"Emma\""));
+
+        HttpResponse<String> byField = get("/books/search?field=author&text=jane&mode=word");
+        assertEquals(200, byField.statusCode());
+        assertTrue(byField.body().contains("\"total\":2"));
+
+        HttpResponse<String> fuzzy = get("/books/search?field=title&text=Persuasoin&mode=fuzzy");
+        assertTrue(fuzzy.body().contains("\"title\":\"Persuasion\""));
+    }
+
+    @Test
+    void testBadRequestsAreRejected() throws Exception {
+        assertEquals(400, get("/books/search?field=title").statusCode());
+        assertEquals(400, get("/books/search?field=isbn&text=x").statusCode());
+        assertEquals(400, get("/books/search?field=title&text=x&mode=regex").statusCode());
+        assertEquals(400, get("/books?limit=abc").statusCode());
+        assertEquals(400, get("/books?limit=100000").statusCode());
+        assertEquals(405, send(HttpRequest.newBuilder(URI.create(baseUrl + "/books/search"))
+                .DELETE()).statusCode());
+
+        HttpResponse<String> badBody = send(HttpRequest.newBuilder(URI.create(baseUrl + "/books"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"title\": 42}")));
+        assertEquals(400, badBody.statusCode());
+        assertTrue(badBody.body().startsWith("{\"error\":"));
+    }
+
+    @Test
+    void testAddAndRemoveBook() throws Exception {
+        HttpResponse<String> added = send(HttpRequest.newBuilder(URI.create(baseUrl + "/books"))
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"title\":\" Dune \",\"author\":\"Frank Herbert\",\"location\":\"Arrakis\"}")));
+
+        assertEquals(201, added.statusCode());
+        assertEquals("/books/4", added.headers().firstValue("Location").orElse(null));
+        assertEquals("{\"id\":\"4\",\"title\":\"Dune\",\"author\":\"Frank Herbert\",\"location\":\"Arrakis\"}",
+                added.body());
+        assertEquals("Dune", BookInventoryOperations.findById("4").getTitle());
+
+        HttpResponse<String> removed = send(HttpRequest.newBuilder(URI.create(baseUrl + "/books/4")).DELETE());
+        assertEquals(204, removed.statusCode());
+        assertNull(BookInventoryOperations.findById("4"));
+        assertEquals(404, send(HttpRequest.newBuilder(URI.create(baseUrl + "/books/4")).DELETE()).statusCode());
+    }
+
+    @Test
+    void testStats() throws Exception {
+        BookMetrics.reset();
+        get("/books/1");
+
+        HttpResponse<String> response = get("/stats");
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().startsWith("{\"operations\":["));
+        assertTrue(response.body().contains("\"operation\":\"find by id\",\"count\":1"));
+        assertTrue(response.body().contains(",\"resultCache\":{\"hits\":"));
+    }
+
+    @Test
+    void testChangeThatCannotBeJournaledIsAServerError() throws Exception {
+        Files.createDirectory(dir.resolve("books.csv.journal")); // Appending to a directory fails
+
+        HttpResponse<String> added = send(HttpRequest.newBuilder(URI.create(baseUrl + "/books"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"title\":\"Dune\"}")));
+        assertEquals(500, added.statusCode());
+        assertTrue(added.body().startsWith("{\"error\":\"Could not record the change in the journal"), added.body());
+
+        assertEquals(500, send(HttpRequest.newBuilder(URI.create(baseUrl + "/books/1")).DELETE()).statusCode());
+    }
+}
@@ -0,0 +1,59 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testWriteAndReadRoundTrip() throws IOException {
+        List<Book> books = List.of(
+                new Book("1", "Les Misérables", "Springfield", "Victor Hugo"),
+                new Book("2", "The Road, Again", "Quahog", "Cormac McCarthy"),
+                new Book("3", "Notre-Dame de Paris", "Springfield", "Victor Hugo"),
+                new Book("4", null, null, null));
+        Path path = dir.resolve("books.snapshot");
+
+        BookSnapshot.write(books, path);
+        List<Book> loaded = BookSnapshot.read(path);
+
+        assertEquals(books.size(), loaded.size());
+        for (int i = 0; i < books.size(); i++) {
+            assertEquals(books.get(i).toString(), loaded.get(i).toString());
+        }
+        // Dictionary entries are decoded once and shared
+        assertSame(loaded.get(0).getAuthor(), loaded.get(2).getAuthor());
+        assertSame(loaded.get(0).getLocation(), loaded.get(2).getLocation());
+    }
+
+    @Test
+    void testCorruptSnapshotIsRejected() throws IOException {
+        Path path = dir.resolve("books.snapshot");
+        BookSnapshot.write(List.of(new Book("1", "Title", "Quahog", "Author")), path);
+
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length - 1] ^= 0x7F; // Flip bits in the last location code
+        Files.write(path, bytes);
+
+        IOException e = assertThrows(IOException.class, () -> BookSnapshot.read(path));
+        assertTrue(e.getMessage().contains("checksum"));
+    }
+
+    @Test
+    void testOtherFilesAreRejected() throws IOException {
+        Path path = dir.resolve("books.snapshot");
+        Files.writeString(path, "id,title,author,location\n1,Title,Author,Quahog\n");
+
+        assertThrows(IOException.class, () -> BookSnapshot.read(path));
+    }
+}
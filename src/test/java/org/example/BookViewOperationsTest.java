@@ -0,0 +1,85 @@
+package org.example;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Scanner;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookViewOperationsTest {
+    private final PrintStream originalOut = System.out;
+    private ByteArrayOutputStream outputStream;
+
+    @BeforeEach
+    void setUp() {
+        outputStream = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(outputStream)); // Capture console output
+        BookInventoryOperations.getBooks().clear();   // Start fresh
+    }
+
+    @AfterEach
+    void tearDown() {
+        System.setOut(originalOut); // Restore normal System.out
+    }
+
+    private static void addBooks(int count) {
+        for (int i = 1; i <= count; i++) {
+            BookInventoryOperations.getBooks().add(new Book(String.valueOf(i), "Title " + i, "Quahog", "Author " + i));
+        }
+    }
+
+    @Test
+    void testSinglePageDoesNotPrompt() {
+        addBooks(3);
+        BookViewOperations.viewBooks(new Scanner(new ByteArrayInputStream(new byte[0])));
+
+        String output = outputStream.toString();
+        assertTrue(output.contains("📚 Page 1 of 1 (books 1-3 of 3)"));
+        assertTrue(output.contains(new Book("2", "Title 2", "Quahog", "Author 2").toString()));
+        assertFalse(output.contains("'n' next page"));
+    }
+
+    @Test
+    void testNavigatePages() {
+        addBooks(45);
+        String input = "n\nn\nn\nid 7\nsize 10\np\nq\n";
+        BookViewOperations.viewBooks(new Scanner(new ByteArrayInputStream(input.getBytes())));
+
+        String output = outputStream.toString();
+        assertTrue(output.contains("📚 Page 1 of 3 (books 1-20 of 45)"));
+        assertTrue(output.contains("📚 Page 2 of 3 (books 21-40 of 45)"));
+        assertTrue(output.contains("📚 Page 3 of 3 (books 41-45 of 45)"));
+        assertTrue(output.contains("⚠️ Already on the last page."));
+        assertTrue(output.contains("👉 Book [ID=7, Title=\"Title 7\""));
+        assertTrue(output.contains("📚 Page 1 of 5 (books 1-10 of 45)"));
+        assertTrue(output.contains("⚠️ Already on the first page."));
+    }
+
+    @Test
+    void testEmptyInventoryAndUnknownId() {
+        BookViewOperations.viewBooks(new Scanner(new ByteArrayInputStream(new byte[0])));
+        assertTrue(outputStream.toString().contains("⚠️ No books in the inventory."));
+
+        addBooks(30);
+        BookViewOperations.viewBooks(new Scanner(new ByteArrayInputStream("id 99\nsize 0\n\n".getBytes())));
+        String output = outputStream.toString();
+        assertTrue(output.contains("⚠️ No book exists with that ID."));
+        assertTrue(output.contains("⚠️ Page size must be a positive number."));
+    }
+
+    @Test
+    void testBooksWithoutIdAreShown() {
+        addBooks(25);
+        BookInventoryOperations.getBooks().add(1, new Book(null, "Untracked", "Quahog", "Nobody"));
+        BookViewOperations.viewBooks(new Scanner(new ByteArrayInputStream("id 2\nq\n".getBytes())));
+
+        String output = outputStream.toString();
+        assertTrue(output.contains("   " + new Book(null, "Untracked", "Quahog", "Nobody")));
+        assertTrue(output.contains("👉 " + new Book("2", "Title 2", "Quahog", "Author 2")));
+    }
+}
@@ -0,0 +1,172 @@
+package org.example;
+
+import com.opencsv.bean.CsvBindByName;
+import com.opencsv.bean.CsvToBeanBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvBookLoaderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testMatchesOpenCsvOnSampleCatalog() throws IOException {
+        assertSameAsOpenCsv(Paths.get("src/test/resources/books_1000.csv"));
+    }
+
+    @Test
+    void testQuotedAndEscapedFields() throws IOException {
+        Path file = dir.resolve("quoted.csv");
+        Files.writeString(file, "id,TITLE,author,location\r\n"
+                + "1,\"A, B\",\"Say \"\"hi\"\"\",  Quahog\n"
+                + "2,  \"x\",back\\slash,\"q\\\"x\"\n"
+                + "3,,\"multi\r\nline\",z \n"
+                + "4,a\\\\b,\"b\" ,\"\"\n"
+                + "5,Les Misérables,ab\"c\"d,\"a\"b\n"
+                + "6,a,b,c", StandardCharsets.UTF_8);
+
+        List<Book> books = CsvBookLoader.load(file);
+        assertEquals(6, books.size());
+        assertEquals("A, B", books.get(0).getTitle());
+        assertEquals("Say \"hi\"", books.get(0).getAuthor());
+        assertEquals("multi\nline", books.get(2).getAuthor());
+        assertEquals("Les Misérables", books.get(4).getTitle());
+        assertSameAsOpenCsv(file);
+    }
+
+    @Test
+    void testManyChunksMatchOpenCsv() throws IOException {
+        Random random = new Random(7);
+        StringBuilder csv = new StringBuilder("id,title,author,location\n");
+        for (int i = 1; i <= 60_000; i++) {
+            String title = random.nextInt(10) == 0 ? "\"Volume, " + i + "\nReprint\"" : "Title " + i;
+            csv.append(i).append(',').append(title).append(",Author ").append(i % 50)
+                    .append(',').append(random.nextBoolean() ? "Quahog" : "Springfield").append('\n');
+        }
+        Path file = dir.resolve("large.csv");
+        Files.writeString(file, csv, StandardCharsets.UTF_8);
+
+        assertTrue(Files.size(file) > 2 << 20); // Large enough to be split into several chunks
+        assertSameAsOpenCsv(file);
+    }
+
+    @Test
+    void testStreamsBatchesInFileOrder() throws IOException {
+        Path file = dir.resolve("shipment.csv");
+        Files.writeString(file, "title,author,location\nEmma,Jane Austen,Quahog\n\n\"Dune,\nPart One\",Frank Herbert,Arrakis\n"
+                + "title,author,location\n1984,George Orwell,Springfield\n,No Title,Quahog\n", StandardCharsets.UTF_8);
+
+        List<Integer> batchSizes = new ArrayList<>();
+        List<Book> streamed = new ArrayList<>();
+        List<Integer> lines = new ArrayList<>();
+        CsvBookLoader.read(file, 2, (batch, batchLines) -> {
+            batchSizes.add(batch.size());
+            streamed.addAll(batch);
+            for (int i = 0; i < batch.size(); i++) {
+                lines.add(batchLines[i]);
+            }
+        });
+
+        assertEquals(List.of(2, 2), batchSizes);
+        assertEquals(List.of(2, 4, 7, 8), lines); // Past the blank line, the quoted line break and the repeated header
+        assertEquals(CsvBookLoader.load(file), streamed);
+        assertEquals("Dune,\nPart One", streamed.get(1).getTitle());
+    }
+
+    @Test
+    void testLoadsBlankIdsAndNumericFields() throws IOException {
+        Path file = dir.resolve("numbers.csv");
+        Files.writeString(file, "id,title,author,location\n,1984,George Orwell,Shelf A\nISBN-x,Title,Author,12\n",
+                StandardCharsets.UTF_8);
+
+        assertEquals(List.of(new Book(null, "1984", "Shelf A", "George Orwell"), new Book("ISBN-x", "Title", "12", "Author")),
+                CsvBookLoader.load(file));
+    }
+
+    @Test
+    void testRejectsWrongFieldCount() throws IOException {
+        Path file = dir.resolve("bad.csv");
+        Files.writeString(file, "id,title,author,location\n1,Title,Author\n", StandardCharsets.UTF_8);
+
+        assertThrows(IOException.class, () -> CsvBookLoader.load(file));
+    }
+
+    @Test
+    void testReadsEveryLayoutByHeaderName() throws IOException {
+        Path saved = dir.resolve("saved.csv");
+        Files.writeString(saved, "id,title,location,author\n1,Emma,Quahog,Jane Austen\n", StandardCharsets.UTF_8);
+        Path beans = dir.resolve("beans.csv");
+        Files.writeString(beans, "\"AUTHOR\",\"ID\",\"LOCATION\",\"TITLE\"\n"
+                + "\"Jane Austen\",\"1\",\"Quahog\",\"Emma\"\n"
+                + "\"AUTHOR\",\"ID\",\"LOCATION\",\"TITLE\"\n", StandardCharsets.UTF_8);
+
+        Book expected = new Book("1", "Emma", "Quahog", "Jane Austen");
+        assertEquals(List.of(expected), CsvBookLoader.load(saved));
+        assertEquals(List.of(expected), CsvBookLoader.load(beans)); // The repeated header is skipped
+    }
+
+    @Test
+    void testRejectsMixedLayouts() throws IOException {
+        Path reorderedHeader = dir.resolve("reordered.csv");
+        Files.writeString(reorderedHeader, "id,title,author,location\n1,Emma,Jane Austen,Quahog\n"
+                + "id,title,location,author\n2,Persuasion,Springfield,Jane Austen\n", StandardCharsets.UTF_8);
+        Path noHeader = dir.resolve("headerless.csv");
+        Files.writeString(noHeader, "1,Emma,Jane Austen,Quahog\n", StandardCharsets.UTF_8);
+        Path duplicate = dir.resolve("duplicate.csv");
+        Files.writeString(duplicate, "id,title,Title,location\n1,Emma,Emma,Quahog\n", StandardCharsets.UTF_8);
+
+        for (Path file : List.of(reorderedHeader, noHeader, duplicate)) {
+            assertThrows(IOException.class, () -> CsvBookLoader.load(file), file.toString());
+        }
+    }
+
+    private static void assertSameAsOpenCsv(Path file) throws IOException {
+        List<Book> expected;
+        try (FileReader reader = new FileReader(file.toFile(), StandardCharsets.UTF_8)) {
+            expected = new CsvToBeanBuilder<OpenCsvBook>(reader)
+                    .withType(OpenCsvBook.class)
+                    .withIgnoreLeadingWhiteSpace(true)
+                    .build()
+                    .parse()
+                    .stream()
+                    .map(row -> new Book(row.id, row.title, row.location, row.author))
+                    .toList();
+        }
+        List<Book> actual = CsvBookLoader.load(file);
+
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).toString(), actual.get(i).toString(), "row " + i);
+        }
+    }
+
+    /**
+     * The reference binding: the fields OpenCSV fills by header name.
+     */
+    public static class OpenCsvBook {
+        @CsvBindByName
+        private String id;
+
+        @CsvBindByName
+        private String title;
+
+        @CsvBindByName
+        private String author;
+
+        @CsvBindByName
+        private String location;
+    }
+}
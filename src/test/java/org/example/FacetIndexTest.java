@@ -0,0 +1,71 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FacetIndexTest {
+
+    @Test
+    void testCountsFollowAddsAndRemoves() {
+        BookList books = new BookList();
+        books.add(new Book("1", "Emma", "Quahog", "Jane Austen"));
+        books.add(new Book("2", "Persuasion", "Springfield", "Jane Austen"));
+        books.add(new Book("3", "Animal Farm", "Quahog", "George Orwell"));
+        books.add(new Book("4", "Untitled", null, null));
+
+        assertEquals(List.of("Jane Austen", "George Orwell"),
+                List.copyOf(books.facetCounts(BookField.AUTHOR, null).keySet())); // Largest count first
+        assertEquals(Map.of("Quahog", 2, "Springfield", 1), books.facetCounts(BookField.LOCATION, BookQuery.all()));
+        assertEquals(Map.of("Jane Austen", 1, "George Orwell", 1),
+                books.facetCounts(BookField.AUTHOR, BookQuery.equalTo(BookField.LOCATION, "Quahog")));
+        assertEquals(Map.of(), books.facetCounts(BookField.AUTHOR, BookQuery.equalTo(BookField.LOCATION, "Atlantis")));
+        assertEquals(Map.of("Quahog", 1),
+                books.facetCounts(BookField.LOCATION, BookQuery.containing(BookField.TITLE, "farm")));
+
+        books.removeById("1");
+        books.set(1, new Book("3", "Animal Farm", "Springfield", "George Orwell"));
+        assertEquals(Map.of("Springfield", 2), books.facetCounts(BookField.LOCATION, null));
+        books.clear();
+        assertEquals(Map.of(), books.facetCounts(BookField.AUTHOR, null));
+        assertThrows(IllegalArgumentException.class, () -> books.facetCounts(BookField.TITLE, null));
+    }
+
+    @Test
+    void testCountsMatchBruteForceAfterChurn() {
+        BookList books = new BookList();
+        String[] authors = {"Jane Austen", "George Orwell", "Leo Tolstoy", "Mary Shelley"};
+        String[] locations = {"Quahog", "Springfield", "Hill Valley"};
+        Random random = new Random(19);
+        for (int i = 1; i <= 5000; i++) {
+            books.add(new Book(String.valueOf(i), "Title " + i, locations[random.nextInt(locations.length)],
+                    authors[random.nextInt(authors.length)]));
+        }
+        // Enough removals to compact the list and rebuild the indexes
+        books.removeIf(book -> Integer.parseInt(book.getId()) % 3 != 0);
+
+        assertEquals(bruteForce(books, BookField.AUTHOR, book -> true), books.facetCounts(BookField.AUTHOR, null));
+        assertEquals(bruteForce(books, BookField.LOCATION, book -> book.getAuthor().equals("Leo Tolstoy")),
+                books.facetCounts(BookField.LOCATION, BookQuery.equalTo(BookField.AUTHOR, "Leo Tolstoy")));
+        assertEquals(bruteForce(books, BookField.AUTHOR, book -> book.getLocation().equals("Hill Valley")),
+                books.facetCounts(BookField.AUTHOR, BookQuery.equalTo(BookField.LOCATION, "Hill Valley")));
+        assertEquals(bruteForce(books, BookField.AUTHOR, book -> book.getTitle().contains("99")),
+                books.facetCounts(BookField.AUTHOR, BookQuery.containing(BookField.TITLE, "99")));
+    }
+
+    private static Map<String, Integer> bruteForce(BookList books, BookField field, Predicate<Book> filter) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (Book book : books) {
+            if (filter.test(book)) {
+                counts.merge(field.valueOf(book), 1, Integer::sum);
+            }
+        }
+        return counts;
+    }
+}
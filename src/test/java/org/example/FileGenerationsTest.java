@@ -0,0 +1,62 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileGenerationsTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testReplaceKeepsTheConfiguredNumberOfGenerations() throws IOException {
+        Path file = dir.resolve("books.csv");
+        for (int version = 1; version <= 4; version++) {
+            String text = "version " + version;
+            FileGenerations.replace(file, 2, out -> out.write(text));
+        }
+
+        assertEquals("version 4", Files.readString(file));
+        assertEquals(List.of(FileGenerations.generation(file, 1), FileGenerations.generation(file, 2)),
+                FileGenerations.backups(file));
+        assertEquals("version 3", Files.readString(FileGenerations.generation(file, 1)));
+        assertEquals("version 2", Files.readString(FileGenerations.generation(file, 2)));
+        assertFalse(Files.exists(FileGenerations.generation(file, 3)));
+        assertFalse(Files.exists(dir.resolve("books.csv.tmp")));
+    }
+
+    @Test
+    void testReplaceWithoutGenerationsKeepsNoBackups() throws IOException {
+        Path file = dir.resolve("books.csv");
+        FileGenerations.replace(file, 0, out -> out.write("old"));
+        FileGenerations.replace(file, 0, out -> out.write("new"));
+
+        assertEquals("new", Files.readString(file));
+        assertTrue(FileGenerations.backups(file).isEmpty());
+    }
+
+    @Test
+    void testFailedWriteLeavesFileAndBackupsUntouched() throws IOException {
+        Path file = dir.resolve("books.csv");
+        FileGenerations.replace(file, 3, out -> out.write("first"));
+        FileGenerations.replace(file, 3, out -> out.write("second"));
+
+        IOException failure = assertThrows(IOException.class, () -> FileGenerations.replace(file, 3, out -> {
+            out.write("half of the third");
+            throw new IOException("disk full");
+        }));
+
+        assertEquals("disk full", failure.getMessage());
+        assertEquals("second", Files.readString(file));
+        assertEquals(List.of(FileGenerations.generation(file, 1)), FileGenerations.backups(file));
+        assertEquals("first", Files.readString(FileGenerations.generation(file, 1)));
+        assertFalse(Files.exists(dir.resolve("books.csv.tmp")));
+    }
+}
@@ -0,0 +1,151 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultCacheTest {
+
+    private static List<String> titles(BookQueryResult result) {
+        return result.getBooks().stream().map(Book::getTitle).toList();
+    }
+
+    @Test
+    void testRepeatedSearchesHitInAnyCaseSortAndPage() {
+        BookList books = new BookList();
+        books.add(new Book("1", "Emma", "Quahog", "Jane Austen"));
+        books.add(new Book("2", "Persuasion", "Springfield", "Jane Austen"));
+        books.add(new Book("3", "Animal Farm", "Quahog", "George Orwell"));
+
+        assertEquals(List.of("Emma", "Persuasion"), titles(books.query(BookQuery.word(BookField.AUTHOR, "jane"))));
+        BookQueryResult page = books.query(BookQuery.word(BookField.AUTHOR, "JANE").sortedBy(BookField.TITLE).page(1, 1));
+        assertEquals(List.of("Persuasion"), titles(page));
+        assertEquals(2, page.getTotalCount());
+        assertEquals(1, page.getOffset());
+
+        CacheStats stats = books.cacheStats();
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(1, stats.getEntries());
+        assertEquals(2, stats.getCachedRows());
+        assertEquals(0.5, stats.getHitRate());
+
+        // Equality is case-sensitive, so it is keyed by the exact value
+        assertEquals(0, books.query(BookQuery.equalTo(BookField.LOCATION, "quahog")).getTotalCount());
+        assertEquals(2, books.query(BookQuery.equalTo(BookField.LOCATION, "Quahog")).getTotalCount());
+        // Fuzzy and compound queries bypass the cache
+        books.query(BookQuery.fuzzy(BookField.TITLE, "Emam"));
+        books.query(BookQuery.and(BookQuery.word(BookField.AUTHOR, "jane"), BookQuery.containing(BookField.TITLE, "m")));
+        assertEquals(3, books.cacheStats().getMisses());
+    }
+
+    @Test
+    void testAddAndRemoveInvalidateOnlyMatchingSearches() {
+        BookList books = new BookList();
+        books.add(new Book("1", "Emma", "Quahog", "Jane Austen"));
+        books.add(new Book("2", "Animal Farm", "Quahog", "George Orwell"));
+        BookQuery austen = BookQuery.containing(BookField.AUTHOR, "AUST");
+        BookQuery orwell = BookQuery.wordPrefix(BookField.AUTHOR, "orw");
+        BookQuery quahog = BookQuery.equalTo(BookField.LOCATION, "Quahog");
+        books.query(austen);
+        books.query(orwell);
+        books.query(quahog);
+
+        books.add(new Book("3", "Persuasion", "Springfield", "Jane Austen"));
+        assertEquals(2, books.cacheStats().getEntries()); // Only the author substring search is dropped
+        assertEquals(1, books.cacheStats().getInvalidations());
+        assertEquals(List.of("Emma", "Persuasion"), titles(books.query(austen)));
+
+        books.removeById("2");
+        assertEquals(0, books.query(orwell).getTotalCount());
+        assertEquals(List.of("Emma"), titles(books.query(quahog)));
+
+        books.set(0, new Book("1", "Emma", "Springfield", "Jane Austen"));
+        assertEquals(0, books.query(quahog).getTotalCount());
+        assertEquals(List.of("Persuasion", "Emma"), titles(books.query(austen))); // The replacement got a new row
+
+        books.clear();
+        assertEquals(0, books.cacheStats().getEntries());
+        assertEquals(0, books.query(austen).getTotalCount());
+    }
+
+    @Test
+    void testCompactionDropsRenumberedRows() {
+        BookList books = new BookList();
+        for (int i = 1; i <= 5000; i++) {
+            books.add(new Book(String.valueOf(i), "Title " + i, i % 2 == 0 ? "Quahog" : "Springfield", "Author"));
+        }
+        BookQuery authors = BookQuery.word(BookField.AUTHOR, "author").page(0, 1);
+        assertEquals(5000, books.query(authors).getTotalCount());
+
+        // Removing most rows compacts the column store, renumbering every row
+        books.removeIf(book -> Integer.parseInt(book.getId()) % 10 != 0);
+
+        BookQueryResult result = books.query(authors);
+        assertEquals(500, result.getTotalCount());
+        assertEquals("10", result.getBooks().get(0).getId());
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsedWithinBounds() {
+        ResultCache cache = new ResultCache(2, 8);
+        ResultCache.Key a = ResultCache.key(BookQuery.word(BookField.TITLE, "a"));
+        ResultCache.Key b = ResultCache.key(BookQuery.word(BookField.TITLE, "b"));
+        ResultCache.Key c = ResultCache.key(BookQuery.word(BookField.TITLE, "c"));
+        cache.put(a, new int[]{1}, 0);
+        cache.put(b, new int[]{2}, 0);
+        cache.get(a);
+        cache.put(c, new int[]{3}, 0);
+
+        assertNotNull(cache.get(a));
+        assertNull(cache.get(b));
+        assertNotNull(cache.get(c));
+        assertEquals(1, cache.stats().getEvictions());
+
+        cache.put(b, new int[]{1, 2, 3}, 0); // Over a quarter of the row budget
+        assertNull(cache.get(b));
+        cache.put(b, new int[]{1, 2}, 0);
+        assertEquals(2, cache.stats().getEntries());
+        assertEquals(3, cache.stats().getCachedRows());
+
+        assertNull(ResultCache.key(BookQuery.all()));
+        assertNull(ResultCache.key(BookQuery.byId("1")));
+        assertNotNull(ResultCache.key(BookQuery.equalTo(BookField.AUTHOR, "Jane Austen")));
+        assertNull(new ResultCache(16, 0).get(a));
+    }
+
+    @Test
+    void testBatchLargerThanTheCacheClearsItOnce() {
+        ResultCache cache = new ResultCache(16, 1024);
+        ResultCache.Key farm = ResultCache.key(BookQuery.containing(BookField.TITLE, "Farm"));
+        ResultCache.Key emma = ResultCache.key(BookQuery.word(BookField.TITLE, "emma"));
+        cache.put(farm, new int[]{1}, cache.version());
+        cache.put(emma, new int[]{2}, cache.version());
+
+        cache.addAll(3, List.of(new Book("3", "Unrelated", "Quahog", "Nobody")));
+        assertEquals(2, cache.stats().getEntries()); // Small batches invalidate book by book
+
+        cache.addAll(4, List.of(new Book("4", "Emma", "Quahog", "Jane Austen"),
+                new Book("5", "Persuasion", "Quahog", "Jane Austen"),
+                new Book("6", "Sanditon", "Quahog", "Jane Austen")));
+        assertEquals(0, cache.stats().getEntries());
+        assertEquals(2, cache.stats().getInvalidations());
+    }
+
+    @Test
+    void testResultComputedBeforeAChangeIsNotCached() {
+        ResultCache cache = new ResultCache(16, 1024);
+        ResultCache.Key key = ResultCache.key(BookQuery.containing(BookField.TITLE, "Farm"));
+        long version = cache.version();
+
+        cache.add(7, new Book("7", "Unrelated", "Quahog", "Nobody"));
+        cache.put(key, new int[]{1}, version);
+        assertNull(cache.get(key));
+
+        cache.put(key, new int[]{1}, cache.version());
+        assertArrayEquals(new int[]{1}, cache.get(key));
+        assertEquals(key, ResultCache.key(BookQuery.containing(BookField.TITLE, "fARM")));
+    }
+}
@@ -0,0 +1,111 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StringDictionaryTest {
+
+    @Test
+    void testAcquireReturnsOneCodePerValue() {
+        StringDictionary dictionary = new StringDictionary();
+        int first = dictionary.acquire(new String("Quahog"));
+        int second = dictionary.acquire(new String("Quahog"));
+
+        assertEquals(first, second);
+        assertSame(dictionary.value(first), dictionary.lookup("Quahog"));
+        assertNull(dictionary.lookup("Atlantis"));
+        assertEquals(-1, dictionary.acquire(null));
+        assertEquals(1, dictionary.size());
+    }
+
+    @Test
+    void testReleasedValuesStopMatchingAndAreCompactedAway() {
+        StringDictionary dictionary = new StringDictionary();
+        int quahog = dictionary.acquire("Quahog");
+        int springfield = dictionary.acquire("Springfield");
+        dictionary.acquire("Springfield");
+
+        dictionary.release(quahog);
+        dictionary.release(springfield);
+        assertEquals(-1, dictionary.lookupCode("Quahog"));
+        assertEquals("Quahog", dictionary.value(quahog)); // Still readable until compacted
+        BitSet matches = dictionary.matchingCodes(value -> true);
+        assertEquals(1, matches.cardinality());
+        assertTrue(matches.get(springfield));
+
+        int[] remap = dictionary.compact();
+        assertEquals(-1, remap[quahog]);
+        assertEquals(1, dictionary.size());
+        assertEquals("Springfield", dictionary.value(remap[springfield]));
+        assertEquals(remap[springfield], dictionary.lookupCode("Springfield"));
+    }
+
+    @Test
+    void testBooksReadFromTheListShareAuthorAndLocation() {
+        BookList books = new BookList();
+        books.add(new Book("1", "The Road", new String("Springfield"), new String("Cormac McCarthy")));
+        books.add(new Book("2", "No Country for Old Men", new String("Springfield"), new String("Cormac McCarthy")));
+
+        assertSame(books.get(0).getAuthor(), books.get(1).getAuthor());
+        assertSame(books.get(0).getLocation(), books.get(1).getLocation());
+    }
+
+    @Test
+    void testColumnCompactionDropsRemovedValues() {
+        BookColumns columns = new BookColumns();
+        for (int i = 1; i <= 8; i++) {
+            columns.append(new Book(String.valueOf(i), "Title " + i, "Shelf " + (i % 2), "Author " + i));
+        }
+        for (int row = 0; row < 8; row += 2) {
+            columns.delete(row); // Books 1, 3, 5 and 7, every "Shelf 1"
+        }
+        assertEquals(8, columns.authors().size());
+        assertEquals(-1, columns.locations().lookupCode("Shelf 1"));
+
+        columns.compact();
+        assertEquals(4, columns.authors().size());
+        assertEquals(1, columns.locations().size());
+        for (int row = 0; row < columns.rowCount(); row++) {
+            Book book = columns.book(row);
+            assertEquals("Author " + book.getId(), book.getAuthor());
+            assertEquals("Shelf 0", book.getLocation());
+        }
+    }
+
+    @Test
+    void testRemovedValuesNoLongerMatchListQueries() {
+        BookList books = new BookList();
+        for (int i = 1; i <= 4000; i++) {
+            books.add(new Book(String.valueOf(i), "Title " + i, "Shelf " + (i % 2), "Author " + i));
+        }
+
+        // Removing three quarters of the rows compacts the store and its dictionaries
+        books.removeIf(book -> Integer.parseInt(book.getId()) % 4 != 0);
+
+        assertEquals(0, books.query(BookQuery.equalTo(BookField.AUTHOR, "Author 3")).getTotalCount());
+        assertEquals(0, books.query(BookQuery.containing(BookField.LOCATION, "Shelf 1")).getTotalCount());
+        assertEquals(1, books.query(BookQuery.equalTo(BookField.AUTHOR, "Author 4")).getTotalCount());
+        assertEquals(Map.of("Shelf 0", 1000), books.facetCounts(BookField.LOCATION, null));
+    }
+
+    @Test
+    void testLoadedCatalogIsDeduplicated() throws IOException {
+        BookList books = new BookList();
+        books.addAll(CsvBookLoader.load(Paths.get("src/test/resources/books_1000.csv")));
+
+        Map<String, String> authors = new HashMap<>();
+        Map<String, String> locations = new HashMap<>();
+        for (int i = 0; i < books.size(); i++) {
+            Book book = books.get(i);
+            assertSame(authors.computeIfAbsent(book.getAuthor(), author -> book.getAuthor()), book.getAuthor());
+            assertSame(locations.computeIfAbsent(book.getLocation(), location -> book.getLocation()), book.getLocation());
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenIndexTest {
+
+    @Test
+    void testTokenize() {
+        assertEquals(List.of("the", "catcher", "in", "rye"),
+                new ArrayList<>(TokenIndex.tokenize("The Catcher in the Rye")));
+        assertTrue(TokenIndex.tokenize(null).isEmpty());
+        assertTrue(TokenIndex.tokenize(" - ").isEmpty());
+    }
+
+    @Test
+    void testWordAndPrefixSearch() {
+        BookList books = new BookList();
+        books.add(new Book("1", "The Three Musketeers", "Springfield", "Alexandre Dumas"));
+        books.add(new Book("2", "The Road", "Quahog", "Cormac McCarthy"));
+        books.add(new Book("3", "Three Men in a Boat", "Quahog", "Jerome K. Jerome"));
+
+        assertEquals(2, books.searchWord(BookField.TITLE, "THREE").size());
+        assertEquals(1, books.searchWordPrefix(BookField.TITLE, "musk").size());
+        assertEquals(0, books.searchWord(BookField.TITLE, "musk").size());
+        assertEquals(2, books.searchWord(BookField.LOCATION, "quahog").size());
+
+        books.removeIf(book -> book.getId().equals("3"));
+        assertEquals(1, books.searchWord(BookField.LOCATION, "quahog").size());
+    }
+
+    @Test
+    void testContainsMatchesFullScan() throws IOException {
+        BookList books = new BookList();
+        for (String line : Files.readAllLines(Paths.get("src/test/resources/books_1000.csv"))) {
+            String[] parts = line.split(",");
+            if (!parts[0].equals("id")) {
+                books.add(new Book(parts[0], parts[1], parts[3], parts[2]));
+            }
+        }
+
+        Random random = new Random(42);
+        BookField[] fields = {BookField.TITLE, BookField.AUTHOR, BookField.LOCATION};
+        for (int i = 0; i < 500; i++) {
+            BookField field = fields[random.nextInt(fields.length)];
+            String value = field.valueOf(books.get(random.nextInt(books.size())));
+            int start = random.nextInt(value.length());
+            int end = start + 1 + random.nextInt(value.length() - start);
+            String needle = random.nextBoolean() ? value.substring(start, end) : value.substring(start, end).toUpperCase();
+
+            List<Book> expected = new ArrayList<>();
+            for (Book book : books) {
+                if (field.valueOf(book).toLowerCase().contains(needle.toLowerCase())) {
+                    expected.add(book);
+                }
+            }
+            assertEquals(expected, books.searchContaining(field, needle), field + " contains '" + needle + "'");
+        }
+    }
+}
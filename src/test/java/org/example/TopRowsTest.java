@@ -0,0 +1,32 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopRowsTest {
+
+    @Test
+    void testSelectMatchesFullSort() {
+        Random random = new Random(17);
+        int[] keys = new int[5000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = random.nextInt(100); // Plenty of ties
+        }
+        int[] rows = new int[keys.length];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = rows.length - 1 - i; // Rows arrive in reverse
+        }
+        TopRows.RowOrder order = (a, b) -> keys[a] != keys[b] ? Integer.compare(keys[a], keys[b]) : Integer.compare(a, b);
+
+        int[] expected = Arrays.stream(rows).boxed().sorted(order::compare).mapToInt(Integer::intValue).toArray();
+        for (int k : new int[]{1, 20, 4999, 5000, 9000}) {
+            assertArrayEquals(Arrays.copyOf(expected, Math.min(k, expected.length)), TopRows.select(rows, k, order));
+        }
+        assertEquals(0, TopRows.select(rows, 0, order).length);
+        assertEquals(0, TopRows.select(new int[0], 10, order).length);
+    }
+}
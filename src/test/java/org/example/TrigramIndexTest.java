@@ -0,0 +1,47 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrigramIndexTest {
+
+    @Test
+    void testInfixMatchInsideWord() {
+        BookList books = new BookList();
+        Book musketeers = new Book("1", "The Three Musketeers", "Springfield", "Alexandre Dumas");
+        books.add(musketeers);
+        books.add(new Book("2", "The Road", "Quahog", "Cormac McCarthy"));
+
+        assertEquals(List.of(musketeers), books.searchContaining(BookField.TITLE, "usket"));
+        assertEquals(List.of(musketeers), books.searchContaining(BookField.TITLE, "E MUS"));
+        assertEquals(List.of(), books.searchContaining(BookField.TITLE, "teersx"));
+    }
+
+    @Test
+    void testCandidatesIntersectEveryGram() {
+        TrigramIndex index = new TrigramIndex(BookField.AUTHOR);
+        index.add(0, new Book("1", "A", "Quahog", "Leo Tolstoy"));
+        index.add(1, new Book("2", "B", "Quahog", "Mary Shelley"));
+        index.add(2, new Book("3", "C", "Quahog", "Tolkien"));
+
+        assertArrayEquals(new int[]{0, 2}, index.candidates(BookField.AUTHOR, "tol"));
+        assertArrayEquals(new int[]{0}, index.candidates(BookField.AUTHOR, "tols"));
+        assertArrayEquals(new int[0], index.candidates(BookField.AUTHOR, "zzz"));
+        assertFalse(index.canNarrow(BookField.AUTHOR, "to"));
+        assertFalse(index.canNarrow(BookField.TITLE, "tol"));
+    }
+
+    @Test
+    void testRemovedBooksAreNotCandidates() {
+        TrigramIndex index = new TrigramIndex(BookField.LOCATION);
+        Book book = new Book("1", "A", "Springfield", "Author");
+        index.add(0, book);
+        index.add(1, new Book("2", "B", "Springfield", "Author"));
+        index.remove(0, book);
+
+        assertArrayEquals(new int[]{1}, index.candidates(BookField.LOCATION, "spring"));
+    }
+}